@@ -29,6 +29,16 @@ java {
     toolchain.languageVersion.set(JavaLanguageVersion.of(21))
 }
 
+// Benchmarks are kept out of the plugin jar. Run with ./gradlew benchmarkQueue or ./gradlew benchmarkFootprint
+val benchmark: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+dependencies {
+    "benchmarkRuntimeOnly"("com.h2database:h2:2.2.224")
+}
+
 tasks {
     processResources {
         val props = mapOf("version" to version)
@@ -47,6 +57,21 @@ tasks {
         archiveClassifier.set("")
     }
 
+    register<JavaExec>("benchmarkQueue") {
+        group = "verification"
+        description = "Compares the platform and virtual thread modes of the database queue."
+        classpath = benchmark.runtimeClasspath
+        mainClass.set("com.github.lukesky19.newPlayerPerks.benchmark.QueueBenchmark")
+    }
+
+    register<JavaExec>("benchmarkFootprint") {
+        group = "verification"
+        description = "Compares the heap footprint of the player join time table with the maps it replaced."
+        classpath = benchmark.runtimeClasspath
+        mainClass.set("com.github.lukesky19.newPlayerPerks.benchmark.FootprintBenchmark")
+        jvmArgs("-XX:+UseSerialGC")
+    }
+
     build {
         dependsOn(publishToMavenLocal)
         dependsOn(javadoc)
@@ -0,0 +1,115 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.benchmark;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.util.PlayerJoinTimeTable;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap footprint of the {@link PlayerJoinTimeTable} with the two {@code HashMap<UUID, PlayerData>} maps it replaced,
+ * one of all loaded players and one of the players with active perks.
+ * Every player has active perks, which is the worst case for the maps. Both structures have to create the {@link UUID}s they are given,
+ * but the table only keeps their bits, so the {@link UUID}s count towards the maps only.
+ * Run with {@code ./gradlew benchmarkFootprint}. Optional arguments: entry counts.
+ */
+public final class FootprintBenchmark {
+    /**
+     * Default Constructor.
+     * This class only contains the benchmark's entry point and should not be constructed.
+     */
+    private FootprintBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     * @param args The entry counts to measure.
+     */
+    public static void main(String[] args) {
+        int[] entryCounts = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray() : new int[] {10_000, 100_000};
+
+        for(int entries : entryCounts) {
+            long maps = measure(() -> {
+                Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+                Map<UUID, PlayerData> activePerksMap = new HashMap<>();
+                for(int i = 0; i < entries; i++) {
+                    UUID uuid = UUID.randomUUID();
+                    PlayerData playerData = new PlayerData(System.currentTimeMillis());
+                    playerDataMap.put(uuid, playerData);
+                    activePerksMap.put(uuid, playerData);
+                }
+
+                return new Object[] {playerDataMap, activePerksMap};
+            });
+
+            long table = measure(() -> {
+                PlayerJoinTimeTable playerJoinTimeTable = new PlayerJoinTimeTable();
+                for(int i = 0; i < entries; i++) {
+                    UUID uuid = UUID.randomUUID();
+                    playerJoinTimeTable.put(uuid, System.currentTimeMillis());
+                    playerJoinTimeTable.setPerksActive(uuid, true);
+                }
+
+                return playerJoinTimeTable;
+            });
+
+            System.out.printf("%,9d entries   two HashMaps %,12d bytes (%5.1f B/entry)   PlayerJoinTimeTable %,12d bytes (%5.1f B/entry)%n",
+                    entries, maps, (double) maps / entries, table, (double) table / entries);
+        }
+    }
+
+    /**
+     * Measures the retained heap of the object a {@link Supplier} creates, as the difference in used heap after garbage collection.
+     * @param supplier The {@link Supplier} creating the object.
+     * @return The retained size in bytes.
+     */
+    private static long measure(@NotNull Supplier<Object> supplier) {
+        long before = usedHeap();
+        Object retained = supplier.get();
+        long after = usedHeap();
+
+        // Keeps the object reachable until after the second measurement.
+        Reference.reachabilityFence(retained);
+
+        return after - before;
+    }
+
+    /**
+     * Get the used heap after running the garbage collector a few times.
+     * @return The used heap in bytes.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.benchmark;
+
+import com.github.lukesky19.newPlayerPerks.manager.database.LaneExecutor;
+import com.github.lukesky19.newPlayerPerks.manager.database.LaneLimit;
+import com.github.lukesky19.newPlayerPerks.manager.database.OverflowPolicy;
+import com.github.lukesky19.newPlayerPerks.manager.database.QueueLane;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the platform thread and virtual thread modes of the {@link LaneExecutor} used by the queue manager.
+ * Both modes run the same number of tasks at once, one less than the connection pool size like the queue manager's reads, so only the thread type differs.
+ * Each task borrows a connection to an in-memory H2 database, looks up a player row, and then waits for a simulated network round trip.
+ * Run with {@code ./gradlew benchmarkQueue}. Optional arguments: tasks, round trip milliseconds, connection pool size.
+ */
+public final class QueueBenchmark {
+    private static final String JDBC_URL = "jdbc:h2:mem:newplayerperks_benchmark;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Default Constructor.
+     * This class only contains the benchmark's entry point and should not be constructed.
+     */
+    private QueueBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     * @param args The number of tasks, the simulated round trip in milliseconds, and the connection pool size.
+     * @throws Exception if the benchmark database couldn't be created.
+     */
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long roundTripMillis = args.length > 1 ? Long.parseLong(args[1]) : 2;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        int concurrency = Math.max(1, poolSize - 1);
+        BlockingQueue<Connection> pool = createPool(poolSize);
+
+        Map<QueueLane, LaneLimit> laneLimits = new EnumMap<>(QueueLane.class);
+        for(QueueLane queueLane : QueueLane.values()) {
+            laneLimits.put(queueLane, new LaneLimit(Integer.MAX_VALUE, OverflowPolicy.BLOCK));
+        }
+
+        System.out.printf("%d reads, %dms simulated round trip, pool size %d%n", tasks, roundTripMillis, poolSize);
+
+        // Warm up both modes before measuring.
+        run(new LaneExecutor(Thread.ofPlatform().daemon(true).factory(), concurrency, EnumSet.of(QueueLane.INTERACTIVE), laneLimits), pool, tasks / 10, 0);
+        run(new LaneExecutor("Benchmark-Warmup", concurrency, EnumSet.of(QueueLane.INTERACTIVE), laneLimits), pool, tasks / 10, 0);
+
+        report("Platform threads (" + concurrency + ")", run(new LaneExecutor(Thread.ofPlatform().daemon(true).factory(), concurrency, EnumSet.of(QueueLane.INTERACTIVE), laneLimits), pool, tasks, roundTripMillis));
+        report("Virtual threads (" + concurrency + " permits)", run(new LaneExecutor("Benchmark", concurrency, EnumSet.of(QueueLane.INTERACTIVE), laneLimits), pool, tasks, roundTripMillis));
+
+        for(Connection connection : pool) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Creates the benchmark table and a simple pool of open connections to it.
+     * @param poolSize The number of connections to open.
+     * @return A {@link BlockingQueue} of open {@link Connection}s.
+     * @throws SQLException if the database couldn't be created.
+     */
+    private static @NotNull BlockingQueue<Connection> createPool(int poolSize) throws SQLException {
+        BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(poolSize);
+        for(int i = 0; i < poolSize; i++) {
+            pool.add(DriverManager.getConnection(JDBC_URL));
+        }
+
+        try(Statement statement = pool.peek().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS player_data (player_id BINARY(16) PRIMARY KEY, join_time BIGINT NOT NULL)");
+            statement.execute("MERGE INTO player_data KEY (player_id) VALUES (X'00000000000000000000000000000001', 1)");
+        }
+
+        return pool;
+    }
+
+    /**
+     * Queues the tasks on the executor and waits for all of them to finish.
+     * @param executor The {@link LaneExecutor} to benchmark. It is shut down afterwards.
+     * @param pool The {@link BlockingQueue} of {@link Connection}s the tasks borrow from.
+     * @param tasks The number of tasks to run.
+     * @param roundTripMillis The simulated network round trip of each task in milliseconds.
+     * @return The {@link Result}.
+     * @throws InterruptedException if interrupted while waiting for the executor to shut down.
+     */
+    private static @NotNull Result run(@NotNull LaneExecutor executor, @NotNull BlockingQueue<Connection> pool, int tasks, long roundTripMillis) throws InterruptedException {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(tasks);
+        long start = System.nanoTime();
+
+        for(int i = 0; i < tasks; i++) {
+            long queuedAt = System.nanoTime();
+            futures.add(executor.submit(QueueLane.INTERACTIVE, () -> {
+                Connection connection = null;
+                try {
+                    connection = pool.take();
+                    try(PreparedStatement preparedStatement = connection.prepareStatement("SELECT join_time FROM player_data WHERE player_id = X'00000000000000000000000000000001'");
+                        ResultSet resultSet = preparedStatement.executeQuery()) {
+                        resultSet.next();
+                    }
+
+                    if(roundTripMillis > 0) Thread.sleep(roundTripMillis);
+                } catch (SQLException | InterruptedException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    if(connection != null) pool.add(connection);
+                }
+
+                return System.nanoTime() - queuedAt;
+            }));
+        }
+
+        long[] latencies = futures.stream().mapToLong(CompletableFuture::join).toArray();
+        long elapsed = System.nanoTime() - start;
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Arrays.sort(latencies);
+        return new Result(tasks, elapsed, latencies);
+    }
+
+    /**
+     * Prints the throughput and latency percentiles of a run.
+     * @param name The name of the mode that was benchmarked.
+     * @param result The {@link Result} of the run.
+     */
+    private static void report(@NotNull String name, @NotNull Result result) {
+        System.out.printf("%-32s %10.0f reads/s   p50 %8.2fms   p99 %8.2fms%n", name,
+                result.tasks() / (result.elapsedNanos() / 1_000_000_000.0),
+                result.percentileMillis(0.50),
+                result.percentileMillis(0.99));
+    }
+
+    /**
+     * The result of one benchmark run.
+     * @param tasks The number of tasks that were run.
+     * @param elapsedNanos How many nanoseconds it took to run all tasks.
+     * @param sortedLatencies The sorted nanoseconds each task took from being queued to finishing.
+     */
+    private record Result(int tasks, long elapsedNanos, long @NotNull [] sortedLatencies) {
+        /**
+         * Get a latency percentile.
+         * @param percentile The percentile between 0 and 1.
+         * @return The latency in milliseconds.
+         */
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.floor(percentile * sortedLatencies.length));
+            return sortedLatencies[index] / 1_000_000.0;
+        }
+    }
+}
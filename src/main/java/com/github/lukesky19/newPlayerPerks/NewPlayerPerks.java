@@ -18,10 +18,12 @@
 package com.github.lukesky19.newPlayerPerks;
 
 import com.github.lukesky19.newPlayerPerks.command.NewPlayersPerksCommand;
+import com.github.lukesky19.newPlayerPerks.data.Settings;
 import com.github.lukesky19.newPlayerPerks.listener.DamageListener;
 import com.github.lukesky19.newPlayerPerks.listener.DeathListener;
 import com.github.lukesky19.newPlayerPerks.listener.JoinListener;
 import com.github.lukesky19.newPlayerPerks.listener.QuitListener;
+import com.github.lukesky19.newPlayerPerks.manager.CountdownManager;
 import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
 import com.github.lukesky19.newPlayerPerks.manager.TaskManager;
@@ -30,7 +32,15 @@ import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
 import com.github.lukesky19.newPlayerPerks.manager.database.ConnectionManager;
 import com.github.lukesky19.newPlayerPerks.manager.database.DatabaseManager;
 import com.github.lukesky19.newPlayerPerks.manager.database.QueueManager;
+import com.github.lukesky19.newPlayerPerks.manager.database.SqlDialect;
+import com.github.lukesky19.newPlayerPerks.manager.storage.LogPlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.manager.storage.MemoryPlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.manager.storage.PlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.manager.storage.ResilientPlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.manager.storage.SqlPlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.manager.storage.StorageType;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skylib.api.time.TimeUtil;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 import net.luckperms.api.LuckPerms;
 import org.bukkit.Bukkit;
@@ -39,19 +49,29 @@ import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The main plugin class
  */
 public final class NewPlayerPerks extends JavaPlugin {
+    // How long shutdown waits for each save, so a stuck storage can't hang the server forever.
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     private SettingsManager settingsManager;
     private LocaleManager localeManager;
-    private DatabaseManager databaseManager;
+    private PlayerDataStorage playerDataStorage;
     private PlayerDataManager playerDataManager;
     private PerksManager perksManager;
     private TaskManager taskManager;
+    private CountdownManager countdownManager;
 
     private LuckPerms luckPermsAPI;
 
@@ -68,6 +88,14 @@ public final class NewPlayerPerks extends JavaPlugin {
         return luckPermsAPI;
     }
 
+    /**
+     * Get the {@link SettingsManager}.
+     * @return The {@link SettingsManager}.
+     */
+    public SettingsManager getSettingsManager() {
+        return settingsManager;
+    }
+
     /**
      * The method ran on plugin startup.
      */
@@ -77,20 +105,21 @@ public final class NewPlayerPerks extends JavaPlugin {
         if(!setupLuckPermsAPI()) return;
 
         settingsManager = new SettingsManager(this);
+        // Settings are needed to decide which storage backend to create.
+        settingsManager.reload();
         localeManager = new LocaleManager(this, settingsManager);
 
-        ConnectionManager connectionManager = new ConnectionManager(this);
-        QueueManager queueManager = new QueueManager(connectionManager);
-        databaseManager = new DatabaseManager(connectionManager, queueManager);
+        playerDataStorage = createPlayerDataStorage();
 
-        playerDataManager = new PlayerDataManager(this, databaseManager);
+        playerDataManager = new PlayerDataManager(this, settingsManager, playerDataStorage);
         perksManager = new PerksManager(this, settingsManager, localeManager, playerDataManager);
-        taskManager = new TaskManager(this, settingsManager, playerDataManager, perksManager);
+        taskManager = new TaskManager(this, settingsManager, localeManager, playerDataManager, perksManager);
+        countdownManager = new CountdownManager(this, settingsManager, localeManager, playerDataManager);
 
         taskManager.startCheckPerksTask();
 
         this.getServer().getPluginManager().registerEvents(new JoinListener(this, settingsManager, localeManager, playerDataManager, perksManager), this);
-        this.getServer().getPluginManager().registerEvents(new QuitListener(playerDataManager, perksManager), this);
+        this.getServer().getPluginManager().registerEvents(new QuitListener(playerDataManager, perksManager, localeManager), this);
         this.getServer().getPluginManager().registerEvents(new DamageListener(perksManager), this);
         this.getServer().getPluginManager().registerEvents(new DeathListener(settingsManager, perksManager), this);
 
@@ -114,17 +143,37 @@ public final class NewPlayerPerks extends JavaPlugin {
      */
     @Override
     public void onDisable() {
-        if(taskManager != null) taskManager.stopCheckPerksTask();
+        CompletableFuture<Void> purge = CompletableFuture.completedFuture(null);
+        if(taskManager != null) {
+            taskManager.stopCheckPerksTask();
+            purge = taskManager.stopPurge();
+        }
+
+        if(countdownManager != null) countdownManager.stopCountdownTask();
 
         if(perksManager != null) perksManager.disableAllPerks(false);
 
+        // Wait for the final save so the storage isn't closed while it is still being written.
         if(playerDataManager != null) {
-            playerDataManager.savePlayerData().thenAccept(v -> {
-                if(databaseManager != null) databaseManager.handlePluginDisable();
-            });
-        } else {
-            if(databaseManager != null) databaseManager.handlePluginDisable();
+            String saveError = awaitOnShutdown(playerDataManager.savePlayerData());
+            if(saveError == null) {
+                // Only written once the save succeeded, so the snapshot never contains data the database doesn't have.
+                String snapshotError = awaitOnShutdown(playerDataManager.writeSnapshot());
+                if(snapshotError != null) {
+                    this.getComponentLogger().warn(AdventureUtil.serialize("Failed to write the player data snapshot on shutdown. Error: " + snapshotError));
+                }
+            } else {
+                this.getComponentLogger().error(AdventureUtil.serialize("Failed to save player data on shutdown. Error: " + saveError));
+            }
+        }
+
+        // A running purge stops after its current batch. Wait for it so the storage isn't closed underneath it.
+        String purgeError = awaitOnShutdown(purge);
+        if(purgeError != null) {
+            this.getComponentLogger().warn(AdventureUtil.serialize("Failed to stop the purge of expired player data on shutdown. Error: " + purgeError));
         }
+
+        if(playerDataStorage != null) playerDataStorage.close();
     }
 
     /**
@@ -135,6 +184,76 @@ public final class NewPlayerPerks extends JavaPlugin {
         localeManager.reload();
         perksManager.disableAllPerks(true);
         playerDataManager.reload().thenAccept(v -> perksManager.enableAllPerks());
+        taskManager.startPurgeTask();
+        countdownManager.startCountdownTask();
+    }
+
+    /**
+     * Waits for a task started on shutdown, for at most {@link #SHUTDOWN_TIMEOUT_SECONDS} seconds.
+     * @param future The {@link CompletableFuture} of the task.
+     * @return The error message or null if the task completed normally.
+     */
+    private @Nullable String awaitOnShutdown(@NotNull CompletableFuture<?> future) {
+        try {
+            future.get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        } catch (TimeoutException e) {
+            return "Timed out after " + SHUTDOWN_TIMEOUT_SECONDS + " seconds.";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted while waiting.";
+        }
+    }
+
+    /**
+     * Creates the {@link PlayerDataStorage} for the storage type configured in settings.yml.
+     * The storage is wrapped with deadlines, retries and a circuit breaker so a slow database can't leave futures that never complete.
+     * The MEMORY and LOG storages open no database, so they aren't wrapped.
+     * @return A {@link PlayerDataStorage}.
+     */
+    private @NotNull PlayerDataStorage createPlayerDataStorage() {
+        StorageType storageType = settingsManager.getStorageType();
+        if(storageType == StorageType.MEMORY) return createMemoryPlayerDataStorage();
+        if(storageType == StorageType.LOG) {
+            Settings.Storage.Log log = settingsManager.getLog();
+            return new LogPlayerDataStorage(this.getComponentLogger(), this.getDataFolder().toPath().resolve("playerdata-log"), log.flushWindowMillis(), log.compactionThreshold());
+        }
+
+        SqlDialect sqlDialect = SqlDialect.fromStorageType(storageType, settingsManager.getStorage().compatibilityMode());
+
+        ConnectionManager connectionManager = new ConnectionManager(this);
+        Settings.Storage.GroupCommit groupCommit = settingsManager.getGroupCommit();
+        QueueManager queueManager = new QueueManager(connectionManager, groupCommit.windowMillis(), groupCommit.maxBatchSize(),
+                settingsManager.getLaneLimits(), settingsManager.isVirtualThreads(), settingsManager.getPoolSize(), () -> !this.getServer().isPrimaryThread());
+        DatabaseManager databaseManager = new DatabaseManager(this, connectionManager, queueManager, sqlDialect);
+
+        return new ResilientPlayerDataStorage(this.getComponentLogger(), new SqlPlayerDataStorage(databaseManager), settingsManager.getResilience());
+    }
+
+    /**
+     * Creates the {@link MemoryPlayerDataStorage}, with a periodic dump if a dump interval is configured in settings.yml.
+     * @return A {@link MemoryPlayerDataStorage}.
+     */
+    private @NotNull MemoryPlayerDataStorage createMemoryPlayerDataStorage() {
+        String dumpInterval = settingsManager.getMemory().dumpInterval();
+        if(dumpInterval == null || dumpInterval.isBlank()) return new MemoryPlayerDataStorage(this.getComponentLogger(), null, 0);
+
+        long dumpIntervalMillis;
+        try {
+            dumpIntervalMillis = TimeUtil.stringToMillis(dumpInterval);
+        } catch (RuntimeException e) {
+            this.getComponentLogger().error(AdventureUtil.serialize("Invalid memory dump interval in settings.yml, player data will only be kept in memory. Error: " + e.getMessage()));
+            return new MemoryPlayerDataStorage(this.getComponentLogger(), null, 0);
+        }
+
+        if(dumpIntervalMillis <= 0) {
+            this.getComponentLogger().error(AdventureUtil.serialize("Invalid memory dump interval in settings.yml, player data will only be kept in memory."));
+            return new MemoryPlayerDataStorage(this.getComponentLogger(), null, 0);
+        }
+
+        return new MemoryPlayerDataStorage(this.getComponentLogger(), this.getDataFolder().toPath().resolve("playerdata.dump"), dumpIntervalMillis);
     }
 
     /**
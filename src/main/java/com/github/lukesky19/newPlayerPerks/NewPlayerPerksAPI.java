@@ -17,13 +17,17 @@
 */
 package com.github.lukesky19.newPlayerPerks;
 
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
 import com.github.lukesky19.newPlayerPerks.data.Settings;
 import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class acts as the API for NewPlayerPerks.
@@ -63,7 +67,38 @@ public class NewPlayerPerksAPI {
      * @return true if enabled, otherwise false.
      */
     public boolean hasPerksEnabled(@NotNull UUID uuid) {
-        return playerDataManager.getActivePerksMap().containsKey(uuid);
+        return playerDataManager.hasActivePerks(uuid);
+    }
+
+    /**
+     * Counts all players, online or offline, whose perks have not expired yet.
+     * @return A {@link CompletableFuture} containing the number of players.
+     */
+    public @NotNull CompletableFuture<Integer> countPlayersWithPerks() {
+        return playerDataManager.countPlayersWithPerks();
+    }
+
+    /**
+     * Get a page of players, online or offline, whose perks expire within the number of milliseconds provided, ordered by expiry time.
+     * To get the next page, pass the last {@link PlayerExpiry} of the previous page as {@code after}.
+     * @param millis The number of milliseconds from now.
+     * @param after The last {@link PlayerExpiry} of the previous page or null for the first page.
+     * @param limit The maximum number of entries to return.
+     * @return A {@link CompletableFuture} containing a {@link List} of {@link PlayerExpiry}.
+     */
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringWithin(long millis, @Nullable PlayerExpiry after, int limit) {
+        return playerDataManager.getPlayersExpiringWithin(millis, after, limit);
+    }
+
+    /**
+     * Extends or shortens the perks of a player, online or offline, who has perks.
+     * The stored time is changed atomically, so concurrent changes to the same player are never lost. Must be called on the main thread.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to extend the player's perks by. Negative to shorten them.
+     * @return A {@link CompletableFuture} containing true if the player had perks, otherwise false.
+     */
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        return playerDataManager.extendPerks(uuid, millis);
     }
 
     /**
@@ -73,6 +73,9 @@ public class NewPlayersPerksCommand {
         RemoveCommand removeCommand = new RemoveCommand(newPlayerPerks, localeManager, perksManager);
         EnableCommand enableCommand = new EnableCommand(newPlayerPerks, settingsManager, localeManager, playerDataManager, perksManager);
         DisableCommand disableCommand = new DisableCommand(newPlayerPerks, settingsManager, localeManager, playerDataManager, perksManager);
+        ExtendCommand extendCommand = new ExtendCommand(newPlayerPerks, localeManager, playerDataManager);
+        BatchCommand batchCommand = new BatchCommand(newPlayerPerks, settingsManager, localeManager, perksManager);
+        InfoCommand infoCommand = new InfoCommand(newPlayerPerks, settingsManager, localeManager, playerDataManager);
         HelpCommand helpCommand = new HelpCommand(newPlayerPerks, localeManager);
 
         builder.then(reloadCommand.createCommand());
@@ -80,6 +83,9 @@ public class NewPlayersPerksCommand {
         builder.then(removeCommand.createCommand());
         builder.then(enableCommand.createCommand());
         builder.then(disableCommand.createCommand());
+        builder.then(extendCommand.createCommand());
+        builder.then(batchCommand.createCommand());
+        builder.then(infoCommand.createCommand());
         builder.then(helpCommand.createCommand());
 
         return builder.build();
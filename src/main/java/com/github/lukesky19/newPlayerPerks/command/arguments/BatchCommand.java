@@ -0,0 +1,242 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.command.arguments;
+
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.BatchResult;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
+import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.CommandMessages;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
+import io.papermc.paper.command.brigadier.argument.resolvers.selector.PlayerSelectorArgumentResolver;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * This class is used to create the batch command argument.
+ * It adds or removes perks for every player matched by a selector or listed in a file in the plugin's batches folder.
+ */
+public class BatchCommand {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull PerksManager perksManager;
+
+    /**
+     * The UUIDs read from a batch file.
+     * @param uuids The {@link List} of {@link UUID}s read.
+     * @param invalid The number of lines that weren't a valid {@link UUID}.
+     */
+    private record BatchFile(@NotNull List<UUID> uuids, int invalid) {}
+
+    /**
+     * Constructor
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param perksManager A {@link PerksManager} instance.
+     */
+    public BatchCommand(
+            @NotNull NewPlayerPerks newPlayerPerks,
+            @NotNull SettingsManager settingsManager,
+            @NotNull LocaleManager localeManager,
+            @NotNull PerksManager perksManager) {
+        this.newPlayerPerks = newPlayerPerks;
+        this.logger = newPlayerPerks.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.localeManager = localeManager;
+        this.perksManager = perksManager;
+    }
+
+    /**
+     * Creates the {@link LiteralCommandNode} of type {@link CommandSourceStack} for the batch command.
+     * @return A {@link LiteralCommandNode} of type {@link CommandSourceStack} for the batch command.
+     */
+    public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
+        return Commands.literal("batch")
+            .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.batch"))
+            .then(createAction("add", true))
+            .then(createAction("remove", false))
+            .build();
+    }
+
+    /**
+     * Creates the add or remove argument of the batch command.
+     * @param name The name of the argument.
+     * @param add true to add perks, false to remove them.
+     * @return A {@link LiteralArgumentBuilder} of type {@link CommandSourceStack} for the argument.
+     */
+    private @NotNull LiteralArgumentBuilder<CommandSourceStack> createAction(@NotNull String name, boolean add) {
+        return Commands.literal(name)
+            .then(Commands.literal("players")
+                .then(Commands.argument("targets", ArgumentTypes.players())
+                    .executes(ctx -> {
+                        CommandSender sender = ctx.getSource().getSender();
+                        if(!checkSettings(sender, add)) return 0;
+
+                        PlayerSelectorArgumentResolver targetResolver = ctx.getArgument("targets", PlayerSelectorArgumentResolver.class);
+                        List<UUID> uuids = targetResolver.resolve(ctx.getSource()).stream().map(Player::getUniqueId).toList();
+
+                        reportResult(sender, add, startBatch(uuids, add));
+                        return 1;
+                    })))
+            .then(Commands.literal("file")
+                .then(Commands.argument("file_name", StringArgumentType.string())
+                    .executes(ctx -> {
+                        CommandSender sender = ctx.getSource().getSender();
+                        LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
+                        if(!checkSettings(sender, add)) return 0;
+
+                        // Only files inside the batches folder can be read.
+                        Path folder = newPlayerPerks.getDataFolder().toPath().resolve("batches").toAbsolutePath().normalize();
+                        Path file = folder.resolve(StringArgumentType.getString(ctx, "file_name")).normalize();
+                        if(!file.startsWith(folder) || file.equals(folder)) {
+                            CommandMessages.send(logger, sender, templates.batchFileError(), templates.console().batchFileError(), Map.of());
+                            return 0;
+                        }
+
+                        // The file is read off the main thread, then the batch is started back on it.
+                        Executor mainThreadExecutor = newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks);
+                        CompletableFuture<BatchFile> batchFile = CompletableFuture.supplyAsync(() -> readBatchFile(file));
+                        CompletableFuture<BatchResult> future = batchFile
+                                .thenComposeAsync(read -> startBatch(read.uuids(), add), mainThreadExecutor)
+                                .thenCombine(batchFile, (result, read) ->
+                                        new BatchResult(result.players() + read.invalid(), result.online(), result.failed() + read.invalid()));
+
+                        reportResult(sender, add, future);
+                        return 1;
+                    })));
+    }
+
+    /**
+     * Checks that the settings are loaded and sends the settings error if they aren't.
+     * @param sender The {@link CommandSender} who ran the command.
+     * @param add true if perks are being added, which also requires the period to be set.
+     * @return true if the batch can be started, otherwise false.
+     */
+    private boolean checkSettings(@NotNull CommandSender sender, boolean add) {
+        if(settingsManager.getSettings() != null && (!add || settingsManager.getPeriod() != null)) return true;
+
+        LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
+        CommandMessages.send(logger, sender, templates.settingsError(), templates.console().settingsError(), Map.of());
+        return false;
+    }
+
+    /**
+     * Starts adding or removing perks for a batch of players.
+     * @param uuids The {@link Collection} of player {@link UUID}s.
+     * @param add true to add perks, false to remove them.
+     * @return A {@link CompletableFuture} containing the {@link BatchResult}.
+     */
+    private @NotNull CompletableFuture<BatchResult> startBatch(@NotNull Collection<UUID> uuids, boolean add) {
+        return add ? perksManager.applyPerks(uuids) : perksManager.removePerks(uuids);
+    }
+
+    /**
+     * Reports the totals of a batch to the sender once it finished.
+     * @param sender The {@link CommandSender} who ran the command.
+     * @param add true if perks were added, false if they were removed.
+     * @param future The {@link CompletableFuture} containing the {@link BatchResult}.
+     */
+    private void reportResult(@NotNull CommandSender sender, boolean add, @NotNull CompletableFuture<BatchResult> future) {
+        LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
+
+        // The batch may complete off the main thread, so the result is reported back on it.
+        Executor mainThreadExecutor = newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks);
+        future.whenCompleteAsync((result, throwable) -> {
+            if(throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                if(cause instanceof UncheckedIOException) {
+                    logger.error(AdventureUtil.serialize("Failed to read a batch file. Error: " + cause.getMessage()));
+                    CommandMessages.send(logger, sender, templates.batchFileError(), templates.console().batchFileError(), Map.of());
+                } else {
+                    logger.error(AdventureUtil.serialize("Failed to " + (add ? "add perks to" : "remove perks from") + " a batch of players. Error: " + cause.getMessage()));
+                    CommandMessages.send(logger, sender, templates.storageError(), templates.console().storageError(), Map.of());
+                }
+                return;
+            }
+
+            Map<String, Component> placeholders = Map.of(
+                    "players", Component.text(result.players()),
+                    "online", Component.text(result.online()),
+                    "failed", Component.text(result.failed()));
+
+            if(add) {
+                CommandMessages.send(logger, sender, templates.batchAddedPerks(), templates.console().batchAddedPerks(), placeholders);
+            } else {
+                CommandMessages.send(logger, sender, templates.batchRemovedPerks(), templates.console().batchRemovedPerks(), placeholders);
+            }
+        }, mainThreadExecutor);
+    }
+
+    /**
+     * Reads the player {@link UUID}s from a batch file, one per line. Blank lines and lines starting with # are skipped.
+     * @param file The {@link Path} of the file.
+     * @return The {@link BatchFile} read.
+     * @throws UncheckedIOException if the file couldn't be read.
+     */
+    private @NotNull BatchFile readBatchFile(@NotNull Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<UUID> uuids = new ArrayList<>(lines.size());
+        int invalid = 0;
+        for(String line : lines) {
+            String trimmed = line.trim();
+            if(trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            try {
+                uuids.add(UUID.fromString(trimmed));
+            } catch (IllegalArgumentException e) {
+                logger.warn(AdventureUtil.serialize("Skipping invalid UUID " + trimmed + " in batch file " + file.getFileName() + "."));
+                invalid++;
+            }
+        }
+
+        return new BatchFile(uuids, invalid);
+    }
+}
@@ -18,26 +18,24 @@
 package com.github.lukesky19.newPlayerPerks.command.arguments;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.Locale;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
 import com.github.lukesky19.newPlayerPerks.data.PlayerData;
 import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.github.lukesky19.newPlayerPerks.util.PerksResult;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
-import com.github.lukesky19.skylib.api.time.TimeUtil;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.time.ZoneId;
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -79,8 +77,8 @@ public class DisableCommand {
         return Commands.literal("disable")
             .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.disable") && ctx.getSender() instanceof Player)
             .executes(ctx -> {
-                Locale locale = localeManager.getLocale();
                 Player player = (Player) ctx.getSource().getSender();
+                LocaleTemplates templates = localeManager.getTemplates(player);
                 UUID uuid = player.getUniqueId();
                 if(settingsManager.getPeriod() == null) {
                     logger.error(AdventureUtil.serialize("Unable to disable perks for player " + player.getName() + " due to an invalid period in settings.yml."));
@@ -88,7 +86,7 @@ public class DisableCommand {
                 }
                 PlayerData playerData = playerDataManager.getPlayerData(uuid);
                 if(playerData == null) {
-                    player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.playerDataError()));
+                    player.sendMessage(templates.playerDataError().render());
                     logger.error(AdventureUtil.serialize("Unable to disable perks for player " + player.getName() + " due to no player data found for that player."));
                     return 0;
                 }
@@ -98,30 +96,30 @@ public class DisableCommand {
                 PerksResult perksResult = perksManager.disablePerks(player, uuid, true);
                 switch(perksResult) {
                     case SUCCESS -> {
-                        List<TagResolver.Single> placeholders = List.of(
-                                Placeholder.parsed("expire_time", TimeUtil.millisToTimeStamp((playerData.getJoinTime() + settingsManager.getPeriod()), ZoneId.of("America/New_York"), "MM-dd-yyyy HH:mm:ss z")),
-                                Placeholder.parsed("remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis())));
+                        Map<String, Component> placeholders = Map.of(
+                                "expire_time", Component.text(localeManager.getTimestamp(playerData.getJoinTime() + settingsManager.getPeriod(), player)),
+                                "remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis(), player));
 
-                        for (String msg : locale.perksDisabledMessages()) {
-                            player.sendMessage(AdventureUtil.serialize(locale.prefix() + msg, placeholders));
+                        for(MessageTemplate template : templates.perksDisabledMessages()) {
+                            player.sendMessage(template.render(placeholders));
                         }
                     }
 
                     case EXPIRED ->
-                            player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.disablePerksExpired()));
+                            player.sendMessage(templates.disablePerksExpired().render());
 
                     case SETTINGS_ERROR -> {
-                        player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.playerDataError()));
+                        player.sendMessage(templates.playerDataError().render());
                         logger.error(AdventureUtil.serialize("Unable to disable perks for player " + player.getName() + " due to invalid plugin settings."));
                     }
 
                     case NO_PLAYER_DATA -> {
-                        player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.playerDataError()));
+                        player.sendMessage(templates.playerDataError().render());
                         logger.error(AdventureUtil.serialize("Unable to disable perks for player " + player.getName() + " due to no player data found for that player."));
                     }
 
                     case USER_ERROR -> {
-                        player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.userError()));
+                        player.sendMessage(templates.userError().render());
                         logger.error(AdventureUtil.serialize("Unable to disable perks for player " + player.getName() + " due to no LuckPerms' User found for that player."));
                     }
                 }
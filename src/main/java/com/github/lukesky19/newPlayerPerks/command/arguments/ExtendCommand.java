@@ -0,0 +1,144 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.command.arguments;
+
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
+import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
+import com.github.lukesky19.newPlayerPerks.util.CommandMessages;
+import com.github.lukesky19.newPlayerPerks.util.PlayerResolver;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skylib.api.time.TimeUtil;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * This class is used to create the extend command argument.
+ * The target may be offline and is found with the {@link PlayerResolver}.
+ */
+public class ExtendCommand {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull PlayerDataManager playerDataManager;
+
+    /**
+     * Constructor
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param playerDataManager A {@link PlayerDataManager} instance.
+     */
+    public ExtendCommand(
+            @NotNull NewPlayerPerks newPlayerPerks,
+            @NotNull LocaleManager localeManager,
+            @NotNull PlayerDataManager playerDataManager) {
+        this.newPlayerPerks = newPlayerPerks;
+        this.logger = newPlayerPerks.getComponentLogger();
+        this.localeManager = localeManager;
+        this.playerDataManager = playerDataManager;
+    }
+
+    /**
+     * Creates the {@link LiteralCommandNode} of type {@link CommandSourceStack} for the extend command.
+     * A duration starting with a minus sign shortens the player's perks instead.
+     * @return A {@link LiteralCommandNode} of type {@link CommandSourceStack} for the extend command.
+     */
+    public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
+        return Commands.literal("extend")
+            .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.extend"))
+            .then(Commands.argument("player", StringArgumentType.word())
+                .suggests((ctx, builder) -> PlayerResolver.suggestOnlinePlayers(newPlayerPerks.getServer(), builder))
+                .then(Commands.argument("duration", StringArgumentType.word())
+                    .executes(ctx -> {
+                        CommandSender sender = ctx.getSource().getSender();
+                        LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
+                        String playerName = StringArgumentType.getString(ctx, "player");
+                        String duration = StringArgumentType.getString(ctx, "duration");
+
+                        long millis = parseDuration(duration);
+                        if(millis == 0) {
+                            CommandMessages.send(logger, sender, templates.durationError(), templates.console().durationError(), Map.of());
+                            return 0;
+                        }
+
+                        OfflinePlayer target = PlayerResolver.resolve(newPlayerPerks.getServer(), playerName);
+                        if(target == null) {
+                            CommandMessages.send(logger, sender, templates.playerDataError(), templates.console().playerDataError(), Map.of());
+                            return 0;
+                        }
+
+                        String targetName = target.getName() != null ? target.getName() : playerName;
+                        Map<String, Component> placeholders = Map.of(
+                                "player_name", Component.text(targetName),
+                                "duration", localeManager.getTimeMessage(Math.abs(millis), sender instanceof Player player ? player : null));
+
+                        // The storage completes off the main thread, so the result is reported back on it.
+                        Executor mainThreadExecutor = newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks);
+                        playerDataManager.extendPerks(target.getUniqueId(), millis).whenCompleteAsync((extended, throwable) -> {
+                            if(throwable != null) {
+                                logger.error(AdventureUtil.serialize("Failed to extend the perks of " + targetName + ". Error: " + throwable.getMessage()));
+                                CommandMessages.send(logger, sender, templates.storageError(), templates.console().storageError(), Map.of());
+                                return;
+                            }
+
+                            if(!extended) {
+                                CommandMessages.send(logger, sender, templates.playerDataError(), templates.console().playerDataError(), Map.of());
+                                return;
+                            }
+
+                            if(millis > 0) {
+                                CommandMessages.send(logger, sender, templates.extendedPerks(), templates.console().extendedPerks(), placeholders);
+                            } else {
+                                CommandMessages.send(logger, sender, templates.shortenedPerks(), templates.console().shortenedPerks(), placeholders);
+                            }
+                        }, mainThreadExecutor);
+
+                        return 1;
+                    }))).build();
+    }
+
+    /**
+     * Parses the duration argument into milliseconds.
+     * @param duration The duration, e.g., 1h30m. Starts with a minus sign to shorten perks.
+     * @return The number of milliseconds or 0 if the duration is invalid.
+     */
+    private long parseDuration(@NotNull String duration) {
+        boolean shorten = duration.startsWith("-");
+
+        try {
+            long millis = TimeUtil.stringToMillis(shorten ? duration.substring(1) : duration);
+            if(millis <= 0) return 0;
+
+            return shorten ? -millis : millis;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -18,9 +18,8 @@
 package com.github.lukesky19.newPlayerPerks.command.arguments;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.Locale;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
-import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
@@ -28,6 +27,8 @@ import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+
 /**
  * This class is used to create the help command argument.
  */
@@ -53,15 +54,13 @@ public class HelpCommand {
         return Commands.literal("help")
                 .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.help"))
                 .executes(ctx -> {
-                    Locale locale = localeManager.getLocale();
-
                     if(ctx.getSource().getSender() instanceof Player player) {
-                        for(String msg : locale.help()) {
-                            player.sendMessage(AdventureUtil.serialize(player, msg));
+                        for(MessageTemplate template : localeManager.getTemplates(player).help()) {
+                            player.sendMessage(template.render(player, Map.of()));
                         }
                     } else {
-                        for(String msg : locale.help()) {
-                            logger.info(AdventureUtil.serialize(msg));
+                        for(MessageTemplate template : localeManager.getTemplates().help()) {
+                            logger.info(template.render());
                         }
                     }
 
@@ -0,0 +1,130 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.command.arguments;
+
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
+import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.CommandMessages;
+import com.github.lukesky19.newPlayerPerks.util.PlayerResolver;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * This class is used to create the info command argument.
+ * The target may be offline and is found with the {@link PlayerResolver}.
+ */
+public class InfoCommand {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull PlayerDataManager playerDataManager;
+
+    /**
+     * Constructor
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param playerDataManager A {@link PlayerDataManager} instance.
+     */
+    public InfoCommand(
+            @NotNull NewPlayerPerks newPlayerPerks,
+            @NotNull SettingsManager settingsManager,
+            @NotNull LocaleManager localeManager,
+            @NotNull PlayerDataManager playerDataManager) {
+        this.newPlayerPerks = newPlayerPerks;
+        this.logger = newPlayerPerks.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.localeManager = localeManager;
+        this.playerDataManager = playerDataManager;
+    }
+
+    /**
+     * Creates the {@link LiteralCommandNode} of type {@link CommandSourceStack} for the info command.
+     * @return A {@link LiteralCommandNode} of type {@link CommandSourceStack} for the info command.
+     */
+    public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
+        return Commands.literal("info")
+            .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.info"))
+            .then(Commands.argument("player", StringArgumentType.word())
+                .suggests((ctx, builder) -> PlayerResolver.suggestOnlinePlayers(newPlayerPerks.getServer(), builder))
+                .executes(ctx -> {
+                    CommandSender sender = ctx.getSource().getSender();
+                    Player senderPlayer = sender instanceof Player player ? player : null;
+                    LocaleTemplates templates = localeManager.getTemplates(senderPlayer);
+                    String playerName = StringArgumentType.getString(ctx, "player");
+
+                    Long period = settingsManager.getPeriod();
+                    if(period == null) {
+                        CommandMessages.send(logger, sender, templates.settingsError(), templates.console().settingsError(), Map.of());
+                        return 0;
+                    }
+
+                    OfflinePlayer target = PlayerResolver.resolve(newPlayerPerks.getServer(), playerName);
+                    if(target == null) {
+                        CommandMessages.send(logger, sender, templates.playerDataError(), templates.console().playerDataError(), Map.of());
+                        return 0;
+                    }
+
+                    String targetName = target.getName() != null ? target.getName() : playerName;
+
+                    // Offline player data is loaded off the main thread, so the result is reported back on it.
+                    playerDataManager.getOfflinePlayerData(target.getUniqueId()).whenCompleteAsync((playerData, throwable) -> {
+                        if(throwable != null) {
+                            logger.error(AdventureUtil.serialize("Failed to load the player data of " + targetName + ". Error: " + throwable.getMessage()));
+                            CommandMessages.send(logger, sender, templates.storageError(), templates.console().storageError(), Map.of());
+                            return;
+                        }
+
+                        if(playerData == null) {
+                            CommandMessages.send(logger, sender, templates.playerDataError(), templates.console().playerDataError(), Map.of());
+                            return;
+                        }
+
+                        long expireTime = playerData.getJoinTime() + period;
+                        long remainingTime = expireTime - System.currentTimeMillis();
+                        Map<String, Component> placeholders = Map.of(
+                                "player_name", Component.text(targetName),
+                                "expire_time", Component.text(localeManager.getTimestamp(expireTime, senderPlayer)),
+                                "remaining_time", localeManager.getTimeMessage(Math.max(remainingTime, 0), senderPlayer));
+
+                        if(remainingTime > 0) {
+                            CommandMessages.send(logger, sender, templates.perksInfo(), templates.console().perksInfo(), placeholders);
+                        } else {
+                            CommandMessages.send(logger, sender, templates.perksInfoExpired(), templates.console().perksInfoExpired(), placeholders);
+                        }
+                    }, newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks));
+
+                    return 1;
+                })).build();
+    }
+}
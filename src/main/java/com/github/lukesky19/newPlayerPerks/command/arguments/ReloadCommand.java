@@ -18,13 +18,14 @@
 package com.github.lukesky19.newPlayerPerks.command.arguments;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.Locale;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
-import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -62,11 +63,12 @@ public class ReloadCommand {
         LiteralArgumentBuilder<CommandSourceStack> builder = Commands.literal("reload")
                 .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.reload"))
                 .executes(ctx -> {
-                    Locale locale = localeManager.getLocale();
+                    CommandSender sender = ctx.getSource().getSender();
+                    LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
 
                     newPlayerPerks.reload();
 
-                    ctx.getSource().getSender().sendMessage(AdventureUtil.serialize(locale.prefix() + locale.reload()));
+                    sender.sendMessage(templates.reload().render());
 
                     return 1;
                 });
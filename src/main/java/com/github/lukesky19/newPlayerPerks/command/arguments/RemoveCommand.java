@@ -18,30 +18,35 @@
 package com.github.lukesky19.newPlayerPerks.command.arguments;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.Locale;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
 import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
+import com.github.lukesky19.newPlayerPerks.util.CommandMessages;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.github.lukesky19.newPlayerPerks.util.PerksResult;
+import com.github.lukesky19.newPlayerPerks.util.PlayerResolver;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
-import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
-import io.papermc.paper.command.brigadier.argument.resolvers.selector.PlayerSelectorArgumentResolver;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * This class is used to create the remove command argument.
+ * The target may be offline and is found with the {@link PlayerResolver}. Offline targets are handled asynchronously.
  */
 public class RemoveCommand {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
     private final @NotNull ComponentLogger logger;
     private final @NotNull LocaleManager localeManager;
     private final @NotNull PerksManager perksManager;
@@ -56,6 +61,7 @@ public class RemoveCommand {
             @NotNull NewPlayerPerks newPlayerPerks,
             @NotNull LocaleManager localeManager,
             @NotNull PerksManager perksManager) {
+        this.newPlayerPerks = newPlayerPerks;
         this.logger = newPlayerPerks.getComponentLogger();
         this.localeManager = localeManager;
         this.perksManager = perksManager;
@@ -68,64 +74,72 @@ public class RemoveCommand {
     public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
         return Commands.literal("remove")
             .requires(ctx -> ctx.getSender().hasPermission("newplayerperks.commands.newplayerperks.remove"))
-            .then(Commands.argument("player", ArgumentTypes.player())
+            .then(Commands.argument("player", StringArgumentType.word())
+                .suggests((ctx, builder) -> PlayerResolver.suggestOnlinePlayers(newPlayerPerks.getServer(), builder))
                 .executes(ctx -> {
-                    Locale locale = localeManager.getLocale();
                     CommandSender sender = ctx.getSource().getSender();
-                    PlayerSelectorArgumentResolver targetResolver = ctx.getArgument("player", PlayerSelectorArgumentResolver.class);
-                    Player targetPlayer = targetResolver.resolve(ctx.getSource()).getFirst();
-                    UUID targetPlayerId = targetPlayer.getUniqueId();
-
-                    List<TagResolver.Single> placeholders = List.of(Placeholder.parsed("player_name", targetPlayer.getName()));
-
-                    PerksResult perksResult = perksManager.removePerks(targetPlayer, targetPlayerId);
-                    switch(perksResult) {
-                        case SUCCESS -> {
-                            if(sender instanceof Player) {
-                                sender.sendMessage(AdventureUtil.serialize(targetPlayer, locale.prefix() + locale.removedPerks(), placeholders));
-                            } else {
-                                logger.info(AdventureUtil.serialize(targetPlayer, locale.removedPerks(), placeholders));
-                            }
-
-                            for(String msg : locale.perksRemovedMessages()) {
-                                targetPlayer.sendMessage(AdventureUtil.serialize(locale.prefix() + msg));
-                            }
-                        }
+                    LocaleTemplates templates = localeManager.getTemplates(sender instanceof Player player ? player : null);
+                    String playerName = StringArgumentType.getString(ctx, "player");
 
-                        case EXPIRED -> {
-                            if(sender instanceof Player) {
-                                sender.sendMessage(AdventureUtil.serialize(targetPlayer, locale.prefix() + locale.expiredError()));
-                            } else {
-                                logger.info(AdventureUtil.serialize(targetPlayer, locale.expiredError()));
-                            }
-                        }
+                    OfflinePlayer target = PlayerResolver.resolve(newPlayerPerks.getServer(), playerName);
+                    if(target == null) {
+                        sendResult(sender, templates, null, playerName, PerksResult.NO_PLAYER_DATA);
+                        return 0;
+                    }
 
-                        case SETTINGS_ERROR -> {
-                            if(sender instanceof Player) {
-                                sender.sendMessage(AdventureUtil.serialize(targetPlayer, locale.prefix() + locale.settingsError()));
-                            } else {
-                                logger.info(AdventureUtil.serialize(targetPlayer, locale.settingsError()));
-                            }
-                        }
+                    UUID targetPlayerId = target.getUniqueId();
+                    String targetName = target.getName() != null ? target.getName() : playerName;
 
-                        case NO_PLAYER_DATA -> {
-                            if(sender instanceof Player) {
-                                sender.sendMessage(AdventureUtil.serialize(targetPlayer, locale.prefix() + locale.playerDataError()));
-                            } else {
-                                logger.info(AdventureUtil.serialize(targetPlayer, locale.playerDataError()));
-                            }
-                        }
+                    Player targetPlayer = target.getPlayer();
+                    if(targetPlayer != null) {
+                        sendResult(sender, templates, targetPlayer, targetName, perksManager.removePerks(targetPlayer, targetPlayerId));
+                        return 1;
+                    }
 
-                        case USER_ERROR -> {
-                            if(sender instanceof Player) {
-                                sender.sendMessage(AdventureUtil.serialize(targetPlayer, locale.prefix() + locale.userError()));
-                            } else {
-                                logger.info(AdventureUtil.serialize(targetPlayer, locale.userError()));
-                            }
+                    perksManager.removeOfflinePerks(targetPlayerId).whenCompleteAsync((perksResult, throwable) -> {
+                        if(throwable != null) {
+                            logger.error(AdventureUtil.serialize("Failed to remove perks from " + targetName + ". Error: " + throwable.getMessage()));
+                            CommandMessages.send(logger, sender, templates.storageError(), templates.console().storageError(), null, Map.of());
+                            return;
                         }
-                    }
+
+                        // The player may have joined while their perks were removed.
+                        sendResult(sender, templates, newPlayerPerks.getServer().getPlayer(targetPlayerId), targetName, perksResult);
+                    }, newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks));
 
                     return 1;
                 })).build();
     }
+
+    /**
+     * Sends the message for the {@link PerksResult} provided to the sender, and the perks removed messages to the target if they are online.
+     * @param sender The {@link CommandSender} who ran the command.
+     * @param templates The sender's {@link LocaleTemplates}.
+     * @param targetPlayer The target {@link Player} or null if they are offline.
+     * @param targetName The target's name.
+     * @param perksResult The {@link PerksResult}.
+     */
+    private void sendResult(@NotNull CommandSender sender, @NotNull LocaleTemplates templates, @Nullable Player targetPlayer, @NotNull String targetName, @NotNull PerksResult perksResult) {
+        Map<String, Component> placeholders = Map.of("player_name", Component.text(targetName));
+
+        switch(perksResult) {
+            case SUCCESS -> {
+                CommandMessages.send(logger, sender, templates.removedPerks(), templates.console().removedPerks(), targetPlayer, placeholders);
+
+                if(targetPlayer != null) {
+                    for(MessageTemplate template : localeManager.getTemplates(targetPlayer).perksRemovedMessages()) {
+                        targetPlayer.sendMessage(template.render());
+                    }
+                }
+            }
+
+            case EXPIRED -> CommandMessages.send(logger, sender, templates.expiredError(), templates.console().expiredError(), targetPlayer, Map.of());
+
+            case SETTINGS_ERROR -> CommandMessages.send(logger, sender, templates.settingsError(), templates.console().settingsError(), targetPlayer, Map.of());
+
+            case NO_PLAYER_DATA -> CommandMessages.send(logger, sender, templates.playerDataError(), templates.console().playerDataError(), targetPlayer, Map.of());
+
+            case USER_ERROR -> CommandMessages.send(logger, sender, templates.userError(), templates.console().userError(), targetPlayer, Map.of());
+        }
+    }
 }
@@ -0,0 +1,26 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.data;
+
+/**
+ * This record contains the totals of adding or removing perks for many players at once.
+ * @param players The number of players whose player data was saved.
+ * @param online The number of online players whose perks were enabled or disabled right away.
+ * @param failed The number of players who couldn't be processed, e.g., because their LuckPerms' User couldn't be loaded.
+ */
+public record BatchResult(int players, int online, int failed) {}
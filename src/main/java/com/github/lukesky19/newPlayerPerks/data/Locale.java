@@ -43,6 +43,17 @@ import java.util.List;
  * @param perksRemovedMessages The messages sent to the player who had perks removed from them.
  * @param perksDisabledMessages The messages sent to the player who disabled their perks.
  * @param perksExpiredMessages The messages sent to the player who had perks expire.
+ * @param countdown The message displayed to players with perks showing how long they have left.
+ * @param perksWarningMessages The messages sent to the player when their perks are about to expire.
+ * @param extendedPerks The message sent to the player who extended another player's perks.
+ * @param shortenedPerks The message sent to the player who shortened another player's perks.
+ * @param durationError The message sent when a request fails due to an invalid duration.
+ * @param storageError The message sent when a request fails because player data couldn't be saved.
+ * @param batchAddedPerks The message sent to the player who added perks to a batch of players, with the batch's totals.
+ * @param batchRemovedPerks The message sent to the player who removed perks from a batch of players, with the batch's totals.
+ * @param batchFileError The message sent when a request fails because a batch file couldn't be read.
+ * @param perksInfo The message sent to the player who looked up a player's perks, if the perks haven't expired.
+ * @param perksInfoExpired The message sent to the player who looked up a player's perks, if the perks have expired.
  * @param timeMessage The {@link TimeMessage} config to produce a formatted timestamp message.
  */
 @ConfigSerializable
@@ -65,6 +76,17 @@ public record Locale(
         @NotNull List<String> perksRemovedMessages,
         @NotNull List<String> perksDisabledMessages,
         @NotNull List<String> perksExpiredMessages,
+        @Nullable String countdown,
+        @Nullable List<String> perksWarningMessages,
+        @Nullable String extendedPerks,
+        @Nullable String shortenedPerks,
+        @Nullable String durationError,
+        @Nullable String storageError,
+        @Nullable String batchAddedPerks,
+        @Nullable String batchRemovedPerks,
+        @Nullable String batchFileError,
+        @Nullable String perksInfo,
+        @Nullable String perksInfoExpired,
         @NotNull TimeMessage timeMessage) {
     /**
      * This record contains the configuration to create a formatted timestamp message.
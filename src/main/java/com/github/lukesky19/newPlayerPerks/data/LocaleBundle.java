@@ -0,0 +1,32 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.data;
+
+import com.github.lukesky19.newPlayerPerks.util.DurationFormatter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This record contains a {@link Locale} along with the messages and time message parsed from it.
+ * @param locale The {@link Locale}.
+ * @param templates The {@link LocaleTemplates} parsed from the {@link Locale}.
+ * @param durationFormatter The {@link DurationFormatter} parsed from the {@link Locale}'s {@link Locale.TimeMessage}.
+ */
+public record LocaleBundle(
+        @NotNull Locale locale,
+        @NotNull LocaleTemplates templates,
+        @NotNull DurationFormatter durationFormatter) {}
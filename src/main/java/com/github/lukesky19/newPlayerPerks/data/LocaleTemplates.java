@@ -0,0 +1,120 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.data;
+
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This record contains the plugin's {@link Locale} parsed into {@link MessageTemplate}s.
+ * All messages except the help messages include the locale's prefix.
+ * @param help The {@link List} of {@link MessageTemplate}s to send for the plugin's help message.
+ * @param reload The message sent when the plugin is reloaded.
+ * @param addedPerks The message sent to the player who added perks to another player.
+ * @param removedPerks The message sent to the player who removed perks from another player.
+ * @param playerDataError The message sent when a request fails due to no player data found.
+ * @param userError The message sent when a request fails due to no LuckPerms' User found.
+ * @param settingsError The message sent when a request fails due to a settings error.
+ * @param expiredError The message sent when a request fails due to perks being expired.
+ * @param enablePerksExpired The message sent when a player tries to enable their perks that have already expired.
+ * @param disablePerksExpired The message sent when a player tries to disable their perks that have already expired.
+ * @param disablePerksReload The message sent when a player has their perks disabled due to a plugin reload.
+ * @param perksAddedMessages The messages sent to the player who had perks applied to them.
+ * @param perksEnabledMessages The messages sent to the player who enabled their perks.
+ * @param perksRemovedMessages The messages sent to the player who had perks removed from them.
+ * @param perksDisabledMessages The messages sent to the player who disabled their perks.
+ * @param perksExpiredMessages The messages sent to the player who had perks expire.
+ * @param countdown The message displayed to players with perks showing how long they have left. Doesn't include the locale's prefix.
+ * @param perksWarningMessages The messages sent to the player when their perks are about to expire.
+ * @param extendedPerks The message sent to the player who extended another player's perks.
+ * @param shortenedPerks The message sent to the player who shortened another player's perks.
+ * @param durationError The message sent when a request fails due to an invalid duration.
+ * @param storageError The message sent when a request fails because player data couldn't be saved.
+ * @param batchAddedPerks The message sent to the player who added perks to a batch of players, with the batch's totals.
+ * @param batchRemovedPerks The message sent to the player who removed perks from a batch of players, with the batch's totals.
+ * @param batchFileError The message sent when a request fails because a batch file couldn't be read.
+ * @param perksInfo The message sent to the player who looked up a player's perks, if the perks haven't expired.
+ * @param perksInfoExpired The message sent to the player who looked up a player's perks, if the perks have expired.
+ * @param console The {@link Console} messages logged when a command is run from the console.
+ */
+public record LocaleTemplates(
+        @NotNull List<MessageTemplate> help,
+        @NotNull MessageTemplate reload,
+        @NotNull MessageTemplate addedPerks,
+        @NotNull MessageTemplate removedPerks,
+        @NotNull MessageTemplate playerDataError,
+        @NotNull MessageTemplate userError,
+        @NotNull MessageTemplate settingsError,
+        @NotNull MessageTemplate expiredError,
+        @NotNull MessageTemplate enablePerksExpired,
+        @NotNull MessageTemplate disablePerksExpired,
+        @NotNull MessageTemplate disablePerksReload,
+        @NotNull List<MessageTemplate> perksAddedMessages,
+        @NotNull List<MessageTemplate> perksEnabledMessages,
+        @NotNull List<MessageTemplate> perksRemovedMessages,
+        @NotNull List<MessageTemplate> perksDisabledMessages,
+        @NotNull List<MessageTemplate> perksExpiredMessages,
+        @NotNull MessageTemplate countdown,
+        @NotNull List<MessageTemplate> perksWarningMessages,
+        @NotNull MessageTemplate extendedPerks,
+        @NotNull MessageTemplate shortenedPerks,
+        @NotNull MessageTemplate durationError,
+        @NotNull MessageTemplate storageError,
+        @NotNull MessageTemplate batchAddedPerks,
+        @NotNull MessageTemplate batchRemovedPerks,
+        @NotNull MessageTemplate batchFileError,
+        @NotNull MessageTemplate perksInfo,
+        @NotNull MessageTemplate perksInfoExpired,
+        @NotNull Console console) {
+    /**
+     * This record contains the messages logged to the console, which don't include the locale's prefix.
+     * @param addedPerks The message logged when perks were added to a player.
+     * @param removedPerks The message logged when perks were removed from a player.
+     * @param playerDataError The message logged when a request fails due to no player data found.
+     * @param userError The message logged when a request fails due to no LuckPerms' User found.
+     * @param settingsError The message logged when a request fails due to a settings error.
+     * @param expiredError The message logged when a request fails due to perks being expired.
+     * @param extendedPerks The message logged when a player's perks were extended.
+     * @param shortenedPerks The message logged when a player's perks were shortened.
+     * @param durationError The message logged when a request fails due to an invalid duration.
+     * @param storageError The message logged when a request fails because player data couldn't be saved.
+     * @param batchAddedPerks The message logged when perks were added to a batch of players, with the batch's totals.
+     * @param batchRemovedPerks The message logged when perks were removed from a batch of players, with the batch's totals.
+     * @param batchFileError The message logged when a request fails because a batch file couldn't be read.
+     * @param perksInfo The message logged when a player's perks were looked up, if the perks haven't expired.
+     * @param perksInfoExpired The message logged when a player's perks were looked up, if the perks have expired.
+     */
+    public record Console(
+            @NotNull MessageTemplate addedPerks,
+            @NotNull MessageTemplate removedPerks,
+            @NotNull MessageTemplate playerDataError,
+            @NotNull MessageTemplate userError,
+            @NotNull MessageTemplate settingsError,
+            @NotNull MessageTemplate expiredError,
+            @NotNull MessageTemplate extendedPerks,
+            @NotNull MessageTemplate shortenedPerks,
+            @NotNull MessageTemplate durationError,
+            @NotNull MessageTemplate storageError,
+            @NotNull MessageTemplate batchAddedPerks,
+            @NotNull MessageTemplate batchRemovedPerks,
+            @NotNull MessageTemplate batchFileError,
+            @NotNull MessageTemplate perksInfo,
+            @NotNull MessageTemplate perksInfoExpired) {}
+}
@@ -20,11 +20,18 @@ package com.github.lukesky19.newPlayerPerks.data;
 import com.github.lukesky19.skylib.libs.configurate.objectmapping.ConfigSerializable;
 
 /**
- * Contains the player's join time.
+ * Contains the player's join time and, if the period only counts online time, how much of it the player used.
  */
 @ConfigSerializable
 public class PlayerData {
+    /**
+     * The playtime of a player whose playtime is not tracked, because the period counts real time.
+     * Tracked playtime can be negative if the player's perks were extended past the period.
+     */
+    public static final long PLAYTIME_NOT_TRACKED = Long.MIN_VALUE;
+
     private long joinTime = 0;
+    private long playtime = PLAYTIME_NOT_TRACKED;
 
     /**
      * Constructor
@@ -40,6 +47,16 @@ public class PlayerData {
         this.joinTime = joinTime;
     }
 
+    /**
+     * Constructor
+     * @param joinTime The player's join time.
+     * @param playtime The number of milliseconds of the period the player used while online or {@link #PLAYTIME_NOT_TRACKED}.
+     */
+    public PlayerData(long joinTime, long playtime) {
+        this.joinTime = joinTime;
+        this.playtime = playtime;
+    }
+
     /**
      * Set the player's join time.
      * @param joinTime The join time to set.
@@ -55,4 +72,37 @@ public class PlayerData {
     public long getJoinTime() {
         return joinTime;
     }
+
+    /**
+     * Set the number of milliseconds of the period the player used while online.
+     * @param playtime The playtime to set or {@link #PLAYTIME_NOT_TRACKED}.
+     */
+    public void setPlaytime(long playtime) {
+        this.playtime = playtime;
+    }
+
+    /**
+     * Get the number of milliseconds of the period the player used while online.
+     * @return The player's playtime or {@link #PLAYTIME_NOT_TRACKED}.
+     */
+    public long getPlaytime() {
+        return playtime;
+    }
+
+    /**
+     * Checks if the player's playtime is tracked.
+     * @return true if the playtime is tracked, otherwise false.
+     */
+    public boolean isPlaytimeTracked() {
+        return playtime != PLAYTIME_NOT_TRACKED;
+    }
+
+    /**
+     * Checks if this is default player data, i.e., the player was never given perks.
+     * Default player data is not stored.
+     * @return true if the join time is not set, otherwise false.
+     */
+    public boolean isDefault() {
+        return joinTime <= 0;
+    }
 }
@@ -0,0 +1,25 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.data;
+
+/**
+ * This record contains the result of purging expired player data.
+ * @param rowsRemoved The number of players whose data was deleted.
+ * @param bytesReclaimed The number of bytes the storage shrunk by afterwards. 0 if the storage doesn't shrink.
+ */
+public record PurgeResult(long rowsRemoved, long bytesReclaimed) {}
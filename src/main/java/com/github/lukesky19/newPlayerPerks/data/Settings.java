@@ -20,10 +20,13 @@ package com.github.lukesky19.newPlayerPerks.data;
 import com.github.lukesky19.skylib.libs.configurate.objectmapping.ConfigSerializable;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+
 /**
  * This record contains the plugin's settings.
  * @param configVersion The config version of the file.
  * @param locale The locale configuration to use.
+ * @param clientLocales Should players see messages from the locale file matching their client's language, if there is one?
  * @param invulnerable Should new players be invulnerable?
  * @param fly Legacy fly setting. Exists for migration purposes.
  * @param essentialsFly Should new players have access to /fly?
@@ -32,11 +35,17 @@ import org.jetbrains.annotations.Nullable;
  * @param keepExp Should new players have access to keep exp?
  * @param voidTeleport Should new players be teleported to their island when they fall off?
  * @param period The period that new perks last for.
+ * @param periodMode How the period counts down. Either REAL_TIME or PLAYTIME.
+ * @param timestamp The {@link Timestamp} configuration for how times such as when perks expire are displayed.
+ * @param countdown The {@link Countdown} configuration for displaying the time players have left on their perks.
+ * @param warnings How long before their perks expire players are warned, e.g., 1h or 10m.
+ * @param storage The {@link Storage} configuration that decides where player data is stored.
  */
 @ConfigSerializable
 public record Settings(
         @Nullable String configVersion,
         @Nullable String locale,
+        @Nullable Boolean clientLocales,
         boolean invulnerable,
         @Nullable Boolean fly,
         boolean essentialsFly,
@@ -44,4 +53,145 @@ public record Settings(
         boolean keepInventory,
         boolean keepExp,
         boolean voidTeleport,
-        @Nullable String period) {}
+        @Nullable String period,
+        @Nullable String periodMode,
+        @Nullable Timestamp timestamp,
+        @Nullable Countdown countdown,
+        @Nullable List<String> warnings,
+        @Nullable Storage storage) {
+    /**
+     * This record contains the configuration for how times such as when perks expire are displayed.
+     * @param timeZone The time zone to display times in, e.g., America/New_York.
+     * @param format The {@link java.time.format.DateTimeFormatter} pattern to display times with.
+     * @param useClientLocale Should times be displayed using each player's client language, e.g., for month and time zone names?
+     * @param timeZoneMetaKey The LuckPerms meta key that holds a player's own time zone. Empty to always use the configured time zone.
+     */
+    @ConfigSerializable
+    public record Timestamp(
+            @Nullable String timeZone,
+            @Nullable String format,
+            @Nullable Boolean useClientLocale,
+            @Nullable String timeZoneMetaKey) {}
+
+    /**
+     * This record contains the configuration for displaying the time players have left on their perks.
+     * @param enabled Should the time players have left be displayed?
+     * @param display Where to display the time left. Either ACTION_BAR or BOSS_BAR.
+     * @param updateTicks How many ticks to wait between updates.
+     */
+    @ConfigSerializable
+    public record Countdown(@Nullable Boolean enabled, @Nullable String display, @Nullable Integer updateTicks) {}
+
+    /**
+     * This record contains the configuration for where player data is stored.
+     * Changes to this configuration require a server restart.
+     * @param type The storage type. One of SQLITE, H2, MYSQL, MARIADB, or POSTGRESQL.
+     * @param host The host name of the database server. Only used for MYSQL, MARIADB, and POSTGRESQL.
+     * @param port The port of the database server. Only used for MYSQL, MARIADB, and POSTGRESQL.
+     * @param database The name of the database. Only used for MYSQL, MARIADB, and POSTGRESQL.
+     * @param username The username to connect to the database server with.
+     * @param password The password to connect to the database server with.
+     * @param poolSize The maximum number of connections to keep open to the database.
+     * @param compatibilityMode The compatibility mode to run H2 in. Either MySQL, MariaDB, PostgreSQL or null.
+     * @param groupCommit The {@link GroupCommit} configuration for single player writes.
+     * @param lanes The {@link Lanes} configuration for the database work queues.
+     * @param virtualThreads Should database work run on virtual threads instead of a small pool of platform threads?
+     * @param resilience The {@link Resilience} configuration for deadlines, retries and the circuit breaker.
+     * @param retention The {@link Retention} configuration for purging the data of players whose perks expired long ago.
+     * @param memory The {@link Memory} configuration. Only used for MEMORY.
+     * @param log The {@link Log} configuration. Only used for LOG.
+     * @param snapshot Should a snapshot of loaded player data be written on shutdown and used to load players on the next start? Only used for SQLITE and H2.
+     */
+    @ConfigSerializable
+    public record Storage(
+            @Nullable String type,
+            @Nullable String host,
+            @Nullable Integer port,
+            @Nullable String database,
+            @Nullable String username,
+            @Nullable String password,
+            @Nullable Integer poolSize,
+            @Nullable String compatibilityMode,
+            @Nullable GroupCommit groupCommit,
+            @Nullable Lanes lanes,
+            @Nullable Boolean virtualThreads,
+            @Nullable Resilience resilience,
+            @Nullable Retention retention,
+            @Nullable Memory memory,
+            @Nullable Log log,
+            @Nullable Boolean snapshot) {
+        /**
+         * This record contains the configuration for merging single player writes into shared transactions.
+         * @param windowMillis How many milliseconds to wait for more writes after the first one is queued.
+         * @param maxBatchSize The maximum number of writes to merge into one transaction. 1 disables group commit.
+         */
+        @ConfigSerializable
+        public record GroupCommit(@Nullable Integer windowMillis, @Nullable Integer maxBatchSize) {}
+
+        /**
+         * This record contains the configuration of each database work queue.
+         * @param interactive The {@link Lane} configuration for reads a player is waiting on.
+         * @param write The {@link Lane} configuration for single player writes.
+         * @param bulk The {@link Lane} configuration for bulk saves, migrations and other background work.
+         */
+        @ConfigSerializable
+        public record Lanes(@Nullable Lane interactive, @Nullable Lane write, @Nullable Lane bulk) {}
+
+        /**
+         * This record contains the configuration of one database work queue.
+         * @param maxDepth The maximum number of queued tasks.
+         * @param overflowPolicy What to do when the queue is full. One of REJECT, DISCARD_OLDEST, or BLOCK.
+         */
+        @ConfigSerializable
+        public record Lane(@Nullable Integer maxDepth, @Nullable String overflowPolicy) {}
+
+        /**
+         * This record contains the configuration for how player data operations handle a slow or failing database.
+         * @param timeoutMillis The deadline in milliseconds for loading, saving, or querying a single player.
+         * @param bulkTimeoutMillis The deadline in milliseconds for bulk saves and expiry time recalculation.
+         * @param maxAttempts The maximum number of times an operation is tried before it fails.
+         * @param backoffMillis The base delay in milliseconds before a retry. Doubles every attempt and is randomized.
+         * @param failureThreshold The number of consecutive failures that opens the circuit breaker.
+         * @param cooldownMillis How many milliseconds the circuit breaker stays open before a trial operation is let through.
+         */
+        @ConfigSerializable
+        public record Resilience(
+                @Nullable Long timeoutMillis,
+                @Nullable Long bulkTimeoutMillis,
+                @Nullable Integer maxAttempts,
+                @Nullable Long backoffMillis,
+                @Nullable Integer failureThreshold,
+                @Nullable Long cooldownMillis) {}
+
+        /**
+         * This record contains the configuration of the in-memory storage.
+         * @param dumpInterval How often to dump player data to a file, e.g., 10m. Empty to only keep player data in memory.
+         */
+        @ConfigSerializable
+        public record Memory(@Nullable String dumpInterval) {}
+
+        /**
+         * This record contains the configuration of the log storage.
+         * @param flushWindowMillis How many milliseconds to wait for more saves after the first one is queued, so they are forced to disk together.
+         * @param compactionThreshold The share of overwritten records, between 0 and 1, that triggers a compaction.
+         */
+        @ConfigSerializable
+        public record Log(@Nullable Integer flushWindowMillis, @Nullable Double compactionThreshold) {}
+
+        /**
+         * This record contains the configuration for purging the data of players whose perks expired long ago.
+         * @param enabled Should expired player data be purged?
+         * @param keepExpiredFor How long to keep a player's data after their perks expired, e.g., 30d.
+         * @param interval How often to purge expired player data, e.g., 24h.
+         * @param batchSize The maximum number of rows to delete per transaction.
+         * @param batchDelayMillis How many milliseconds to wait between transactions and while players are being loaded or saved.
+         */
+        @ConfigSerializable
+        public record Retention(
+                @Nullable Boolean enabled,
+                @Nullable String keepExpiredFor,
+                @Nullable String interval,
+                @Nullable Integer batchSize,
+                @Nullable Long batchDelayMillis) {}
+    }
+}
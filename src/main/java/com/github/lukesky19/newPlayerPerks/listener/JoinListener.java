@@ -22,12 +22,11 @@ import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.github.lukesky19.newPlayerPerks.util.PerksResult;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
-import com.github.lukesky19.skylib.api.time.TimeUtil;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -35,14 +34,14 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.time.ZoneId;
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * This class listens to when a player joins. It creates and loads player data as needed and applies perks if required.
  */
 public class JoinListener implements Listener {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
     private final @NotNull ComponentLogger logger;
     private final @NotNull SettingsManager settingsManager;
     private final @NotNull LocaleManager localeManager;
@@ -63,6 +62,7 @@ public class JoinListener implements Listener {
             @NotNull LocaleManager localeManager,
             @NotNull PlayerDataManager playerDataManager,
             @NotNull PerksManager perksManager) {
+        this.newPlayerPerks = newPlayerPerks;
         this.logger = newPlayerPerks.getComponentLogger();
         this.settingsManager = settingsManager;
         this.localeManager = localeManager;
@@ -85,17 +85,21 @@ public class JoinListener implements Listener {
             return;
         }
 
-        playerDataManager.loadPlayerData(uuid).thenAccept(playerData -> {
+        // The load completes off the main thread, so perks are enabled back on it.
+        playerDataManager.loadPlayerData(uuid).thenAcceptAsync(playerData -> {
+            // The player may have quit while their data was loading.
+            if(!player.isConnected()) return;
+
             PerksResult perksResult = perksManager.enablePerks(player, uuid);
 
             switch(perksResult) {
                 case SUCCESS -> {
-                    List<TagResolver.Single> placeholders = List.of(
-                            Placeholder.parsed("expire_time", TimeUtil.millisToTimeStamp((playerData.getJoinTime() + settingsManager.getPeriod()), ZoneId.of("America/New_York"), "MM-dd-yyyy HH:mm:ss z")),
-                            Placeholder.parsed("remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis())));
+                    Map<String, Component> placeholders = Map.of(
+                            "expire_time", Component.text(localeManager.getTimestamp(playerData.getJoinTime() + settingsManager.getPeriod(), player)),
+                            "remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis(), player));
 
-                    for(String msg : localeManager.getLocale().perksEnabledMessages()) {
-                        player.sendMessage(AdventureUtil.serialize(player, localeManager.getLocale().prefix() + msg, placeholders));
+                    for(MessageTemplate template : localeManager.getTemplates(player).perksEnabledMessages()) {
+                        player.sendMessage(template.render(player, placeholders));
                     }
                 }
 
@@ -107,6 +111,6 @@ public class JoinListener implements Listener {
 
                 default -> {}
             }
-        });
+        }, newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks));
     }
 }
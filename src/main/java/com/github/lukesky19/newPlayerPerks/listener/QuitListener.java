@@ -19,6 +19,7 @@ package com.github.lukesky19.newPlayerPerks.listener;
 
 import com.github.lukesky19.newPlayerPerks.manager.PerksManager;
 import com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -34,17 +35,21 @@ import java.util.UUID;
 public class QuitListener implements Listener {
     private final @NotNull PlayerDataManager playerDataManager;
     private final @NotNull PerksManager perksManager;
+    private final @NotNull LocaleManager localeManager;
 
     /**
      * Constructor
      * @param playerDataManager A {@link PlayerDataManager} instance.
      * @param perksManager A {@link PerksManager} instance.
+     * @param localeManager A {@link LocaleManager} instance.
      */
     public QuitListener(
             @NotNull PlayerDataManager playerDataManager,
-            @NotNull PerksManager perksManager) {
+            @NotNull PerksManager perksManager,
+            @NotNull LocaleManager localeManager) {
         this.playerDataManager = playerDataManager;
         this.perksManager = perksManager;
+        this.localeManager = localeManager;
     }
 
     /**
@@ -59,5 +64,6 @@ public class QuitListener implements Listener {
         perksManager.disablePerks(playerQuitEvent.getPlayer(), playerQuitEvent.getPlayer().getUniqueId(), true);
 
         playerDataManager.unloadPlayerData(uuid);
+        localeManager.clearBundle(uuid);
     }
 }
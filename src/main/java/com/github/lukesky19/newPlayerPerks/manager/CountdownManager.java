@@ -0,0 +1,198 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager;
+
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.LocaleBundle;
+import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
+import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.CountdownDisplay;
+import com.github.lukesky19.newPlayerPerks.util.PlayerJoinTimeTable;
+import net.kyori.adventure.bossbar.BossBar;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * This class manages the task that displays how long players with perks have left.
+ * One task renders the countdown for every player with active perks, so players without perks cost nothing.
+ * Players with the same time left and locale share the same rendered {@link Component}.
+ */
+public class CountdownManager {
+    private final @NotNull NewPlayerPerks newPlayerPerks;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull PlayerDataManager playerDataManager;
+    private final @NotNull Map<UUID, BossBar> bossBars = new HashMap<>();
+    private final @NotNull Map<LocaleBundle, Map<Long, Component>> messages = new IdentityHashMap<>();
+    private @NotNull CountdownDisplay display = CountdownDisplay.ACTION_BAR;
+    private long messagesSecond = -1L;
+    private @Nullable BukkitTask countdownTask;
+
+    /**
+     * Constructor
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param playerDataManager A {@link PlayerDataManager} instance.
+     */
+    public CountdownManager(
+            @NotNull NewPlayerPerks newPlayerPerks,
+            @NotNull SettingsManager settingsManager,
+            @NotNull LocaleManager localeManager,
+            @NotNull PlayerDataManager playerDataManager) {
+        this.newPlayerPerks = newPlayerPerks;
+        this.settingsManager = settingsManager;
+        this.localeManager = localeManager;
+        this.playerDataManager = playerDataManager;
+    }
+
+    /**
+     * Start the {@link BukkitTask} that displays the countdown, stopping the previous one if it is running.
+     * The countdown configuration is read from settings.yml each time this is called.
+     */
+    public void startCountdownTask() {
+        stopCountdownTask();
+
+        Settings.Countdown countdown = settingsManager.getCountdown();
+        if(!Boolean.TRUE.equals(countdown.enabled())) return;
+
+        display = settingsManager.getCountdownDisplay();
+        long updateTicks = Objects.requireNonNull(countdown.updateTicks());
+
+        countdownTask = newPlayerPerks.getServer().getScheduler().runTaskTimer(newPlayerPerks, this::updateCountdowns, updateTicks, updateTicks);
+    }
+
+    /**
+     * Stop the {@link BukkitTask} that displays the countdown and hide any boss bars being shown.
+     */
+    public void stopCountdownTask() {
+        if(countdownTask != null) {
+            if(!countdownTask.isCancelled()) countdownTask.cancel();
+            countdownTask = null;
+        }
+
+        Server server = newPlayerPerks.getServer();
+        for(Map.Entry<UUID, BossBar> entry : bossBars.entrySet()) {
+            Player player = server.getPlayer(entry.getKey());
+            if(player != null) player.hideBossBar(entry.getValue());
+        }
+
+        bossBars.clear();
+        messages.clear();
+        messagesSecond = -1L;
+    }
+
+    /**
+     * Displays the time left to every online player with active perks.
+     */
+    private void updateCountdowns() {
+        Long period = settingsManager.getPeriod();
+        if(period == null || period <= 0) return;
+
+        long now = System.currentTimeMillis();
+        // Rendered messages are only shared within the same second, so the cache never holds more than one message per player.
+        if(now / 1000L != messagesSecond) {
+            messages.clear();
+            messagesSecond = now / 1000L;
+        }
+
+        Server server = newPlayerPerks.getServer();
+        for(UUID uuid : playerDataManager.getActivePerksPlayers()) {
+            Player player = server.getPlayer(uuid);
+            if(player == null || !player.isOnline()) continue;
+
+            long joinTime = playerDataManager.getJoinTime(uuid);
+            if(joinTime == PlayerJoinTimeTable.MISSING) continue;
+
+            long remaining = joinTime + period - now;
+            // Expired perks are removed by the task that checks perks.
+            if(remaining <= 0) continue;
+
+            Component message = getMessage(localeManager.getBundle(player), remaining / 1000L);
+            switch(display) {
+                case ACTION_BAR -> player.sendActionBar(message);
+
+                case BOSS_BAR -> showBossBar(player, uuid, message, Math.min(1.0F, (float) remaining / period));
+            }
+        }
+
+        if(display == CountdownDisplay.BOSS_BAR) hideStaleBossBars();
+    }
+
+    /**
+     * Gets the countdown message for a number of seconds left, rendering it if no other player needed it this second.
+     * @param bundle The {@link LocaleBundle} of the player.
+     * @param secondsLeft The number of seconds left.
+     * @return The countdown message.
+     */
+    private @NotNull Component getMessage(@NotNull LocaleBundle bundle, long secondsLeft) {
+        return messages.computeIfAbsent(bundle, key -> new HashMap<>())
+                .computeIfAbsent(secondsLeft, key -> bundle.templates().countdown().render(
+                        Map.of("remaining_time", bundle.durationFormatter().format(secondsLeft * 1000L))));
+    }
+
+    /**
+     * Shows or updates a player's countdown boss bar.
+     * @param player The {@link Player}.
+     * @param uuid The {@link UUID} of the player.
+     * @param message The countdown message.
+     * @param progress How much of the player's perk period is left, between 0 and 1.
+     */
+    private void showBossBar(@NotNull Player player, @NotNull UUID uuid, @NotNull Component message, float progress) {
+        BossBar bossBar = bossBars.get(uuid);
+        if(bossBar == null) {
+            bossBar = BossBar.bossBar(message, progress, BossBar.Color.GREEN, BossBar.Overlay.PROGRESS);
+            bossBars.put(uuid, bossBar);
+            player.showBossBar(bossBar);
+            return;
+        }
+
+        bossBar.name(message);
+        bossBar.progress(progress);
+    }
+
+    /**
+     * Hides the boss bars of players that quit or no longer have active perks.
+     */
+    private void hideStaleBossBars() {
+        Server server = newPlayerPerks.getServer();
+        Iterator<Map.Entry<UUID, BossBar>> iterator = bossBars.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<UUID, BossBar> entry = iterator.next();
+            UUID uuid = entry.getKey();
+            Player player = server.getPlayer(uuid);
+
+            if(player != null && player.isOnline() && playerDataManager.hasActivePerks(uuid)) continue;
+
+            if(player != null) player.hideBossBar(entry.getValue());
+            iterator.remove();
+        }
+    }
+}
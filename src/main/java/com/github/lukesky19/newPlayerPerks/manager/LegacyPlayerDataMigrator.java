@@ -0,0 +1,285 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager;
+
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.manager.storage.PlayerDataStorage;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
+import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class migrates the legacy playerdata/*.yml files of 1.x installs to the {@link PlayerDataStorage}.
+ * Files are streamed from the directory and parsed in parallel on a bounded executor. Parsed data is saved in bulk batches,
+ * and a file is only deleted after its batch was saved, so a restart mid-migration resumes with the files that are left.
+ * Files that can't be migrated are moved to playerdata/failed/ instead of stopping the migration.
+ * An instance migrates the files once.
+ */
+public class LegacyPlayerDataMigrator {
+    private static final int BATCH_SIZE = 500;
+    private static final int PROGRESS_INTERVAL = 5000;
+
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull PlayerDataStorage playerDataStorage;
+    private final @NotNull Path playerDataPath;
+    private final @NotNull Path failedPath;
+    private final int parserThreads;
+
+    // Only used by the migration thread.
+    private final @NotNull Batch batch = new Batch();
+    private long start;
+    private int processed;
+    private int migrated;
+    private int failed;
+
+    /**
+     * Constructor
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
+     * @param playerDataStorage The {@link PlayerDataStorage} to migrate the legacy data to.
+     */
+    public LegacyPlayerDataMigrator(@NotNull NewPlayerPerks newPlayerPerks, @NotNull PlayerDataStorage playerDataStorage) {
+        this.logger = newPlayerPerks.getComponentLogger();
+        this.playerDataStorage = playerDataStorage;
+        this.playerDataPath = Path.of(newPlayerPerks.getDataFolder() + File.separator + "playerdata");
+        this.failedPath = playerDataPath.resolve("failed");
+        this.parserThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Migrates all legacy player data files that are left in the playerdata directory.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete. Completes exceptionally if a batch couldn't be saved.
+     */
+    public @NotNull CompletableFuture<Void> migrate() {
+        // If the path is not a directory or doesn't exist, don't migrate any data.
+        if(!Files.isDirectory(playerDataPath)) return CompletableFuture.completedFuture(null);
+
+        return CompletableFuture.runAsync(this::runMigration, runnable -> Thread.ofPlatform().name("NewPlayerPerks-LegacyMigration").daemon(true).start(runnable));
+    }
+
+    /**
+     * Streams the legacy files to the parser threads and saves the parsed data in batches.
+     * Runs on its own thread, as it waits for each batch to be saved before parsing more files.
+     */
+    private void runMigration() {
+        start = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, Thread.ofPlatform().name("NewPlayerPerks-LegacyParser-", 0).daemon(true).factory());
+        // Limits how many parsed files can wait to be saved, so a large backlog is never held in memory at once.
+        Semaphore inFlight = new Semaphore(BATCH_SIZE * 2);
+        LinkedBlockingQueue<ParsedFile> parsedFiles = new LinkedBlockingQueue<>();
+        int submitted = 0;
+
+        try {
+            try(DirectoryStream<Path> paths = Files.newDirectoryStream(playerDataPath, "*.yml")) {
+                for(Path path : paths) {
+                    if(!Files.isRegularFile(path)) continue;
+
+                    // Permits are released as parsed files are handled, so handle results instead of waiting for a permit.
+                    while(!inFlight.tryAcquire()) {
+                        handle(parsedFiles.take());
+                        inFlight.release();
+                    }
+
+                    parsers.execute(() -> parsedFiles.add(parse(path)));
+                    submitted++;
+                }
+            }
+
+            while(processed < submitted) {
+                handle(parsedFiles.take());
+                inFlight.release();
+            }
+
+            save();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        deleteDirectoryIfEmpty();
+
+        if(processed == 0) return;
+
+        double seconds = Math.max(0.001, (System.nanoTime() - start) / 1_000_000_000.0);
+        logger.info(AdventureUtil.serialize(String.format("Migrated %d legacy player data files in %.2fs (%.0f files/s). %d files failed and were moved to %s.",
+                migrated, seconds, processed / seconds, failed, failedPath)));
+    }
+
+    /**
+     * Adds a parsed file to the current batch, or isolates it if it failed, and saves the batch once it is full.
+     * @param parsedFile The {@link ParsedFile} to handle.
+     */
+    private void handle(@NotNull ParsedFile parsedFile) {
+        processed++;
+
+        if(parsedFile.error() != null) {
+            failed++;
+            isolate(parsedFile);
+        } else {
+            batch.add(parsedFile);
+            if(batch.size() >= BATCH_SIZE) save();
+        }
+
+        if(processed % PROGRESS_INTERVAL == 0) logProgress();
+    }
+
+    /**
+     * Parses a legacy player data file. Never throws, so one bad file can't stop the migration.
+     * @param path The {@link Path} of the file.
+     * @return The {@link ParsedFile}.
+     */
+    private @NotNull ParsedFile parse(@NotNull Path path) {
+        String nameWithoutExtension = path.getFileName().toString().replaceAll("\\.yml$", "");
+
+        try {
+            UUID uuid = UUID.fromString(nameWithoutExtension);
+            PlayerData playerData = ConfigurationUtility.getYamlConfigurationLoader(path).load().get(PlayerData.class);
+
+            return new ParsedFile(path, uuid, playerData != null ? playerData : new PlayerData(), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedFile(path, null, null, "The file name is not a UUID.");
+        } catch (ConfigurateException | RuntimeException e) {
+            return new ParsedFile(path, null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the current batch in one bulk transaction and deletes its files once it was saved.
+     */
+    private void save() {
+        if(batch.size() == 0) return;
+
+        // Throws if the batch couldn't be saved. The files are kept so the next start resumes from them.
+        playerDataStorage.savePlayerData(batch.playerDataMap).join();
+
+        for(Path path : batch.paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn(AdventureUtil.serialize("Failed to delete legacy player data for file: " + path + ". Error: " + e.getMessage()));
+            }
+        }
+
+        migrated += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * Moves a file that couldn't be migrated to the failed directory so it isn't read again on the next start.
+     * @param parsedFile The {@link ParsedFile} that failed.
+     */
+    private void isolate(@NotNull ParsedFile parsedFile) {
+        logger.warn(AdventureUtil.serialize("Failed to migrate legacy player data for file: " + parsedFile.path() + ". Error: " + parsedFile.error()));
+
+        try {
+            Files.createDirectories(failedPath);
+            Files.move(parsedFile.path(), failedPath.resolve(parsedFile.path().getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to move legacy player data file " + parsedFile.path() + " to " + failedPath + ". Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Logs how many files have been processed and the current throughput.
+     */
+    private void logProgress() {
+        double seconds = Math.max(0.001, (System.nanoTime() - start) / 1_000_000_000.0);
+        logger.info(AdventureUtil.serialize(String.format("Migrating legacy player data: %d files processed (%.0f files/s).", processed, processed / seconds)));
+    }
+
+    /**
+     * Deletes the playerdata directory if every file was migrated.
+     */
+    private void deleteDirectoryIfEmpty() {
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(playerDataPath)) {
+            if(!paths.iterator().hasNext()) Files.delete(playerDataPath);
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize(e.getMessage()));
+        }
+    }
+
+    /**
+     * The result of parsing one legacy file.
+     * @param path The {@link Path} of the file.
+     * @param uuid The {@link UUID} of the player or null if parsing failed.
+     * @param playerData The {@link PlayerData} or null if parsing failed.
+     * @param error The reason parsing failed or null if it succeeded.
+     */
+    private record ParsedFile(@NotNull Path path, @Nullable UUID uuid, @Nullable PlayerData playerData, @Nullable String error) {}
+
+    /**
+     * A batch of parsed files waiting to be saved.
+     */
+    private static final class Batch {
+        private final @NotNull Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+        private final @NotNull List<Path> paths = new ArrayList<>();
+
+        /**
+         * Adds a parsed file to the batch.
+         * @param parsedFile The {@link ParsedFile}. Must have been parsed successfully.
+         */
+        private void add(@NotNull ParsedFile parsedFile) {
+            if(parsedFile.uuid() == null || parsedFile.playerData() == null) return;
+
+            playerDataMap.put(parsedFile.uuid(), parsedFile.playerData());
+            paths.add(parsedFile.path());
+        }
+
+        /**
+         * Get the number of files in the batch.
+         * @return The number of files.
+         */
+        private int size() {
+            return paths.size();
+        }
+
+        /**
+         * Removes every file from the batch.
+         */
+        private void clear() {
+            playerDataMap.clear();
+            paths.clear();
+        }
+    }
+}
@@ -18,17 +18,17 @@
 package com.github.lukesky19.newPlayerPerks.manager;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.Locale;
+import com.github.lukesky19.newPlayerPerks.data.BatchResult;
 import com.github.lukesky19.newPlayerPerks.data.PlayerData;
 import com.github.lukesky19.newPlayerPerks.data.Settings;
 import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.github.lukesky19.newPlayerPerks.util.PerksResult;
+import com.github.lukesky19.newPlayerPerks.util.PlayerJoinTimeTable;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
-import com.github.lukesky19.skylib.api.time.TimeUtil;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import net.luckperms.api.model.data.NodeMap;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.model.user.UserManager;
@@ -37,14 +37,23 @@ import org.bukkit.Server;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * This class manages perks that are applied or removed from players.
  */
 public class PerksManager {
+    // How many online players a batch enables or disables the perks of each tick.
+    private static final int BATCH_PLAYERS_PER_TICK = 20;
+
     private final @NotNull NewPlayerPerks newPlayerPerks;
     private final @NotNull ComponentLogger logger;
     private final @NotNull SettingsManager settingsManager;
@@ -81,10 +90,10 @@ public class PerksManager {
             return false;
         }
 
-        PlayerData playerData = playerDataManager.getPlayerData(uuid);
-        if(playerData == null) return false;
+        long joinTime = playerDataManager.getJoinTime(uuid);
+        if(joinTime == PlayerJoinTimeTable.MISSING) return false;
 
-        return System.currentTimeMillis() < (playerData.getJoinTime() + settingsManager.getPeriod());
+        return System.currentTimeMillis() < (joinTime + settingsManager.getPeriod());
     }
 
     /**
@@ -111,9 +120,12 @@ public class PerksManager {
         if(user == null) return PerksResult.USER_ERROR;
         NodeMap userData = user.data();
 
-        setPerks(settings, userManager, player, user, userData);
+        setPerks(settings, player, userData);
+
+        // Save modified User
+        userManager.saveUser(user);
 
-        playerDataManager.addToActivePerksMap(uuid);
+        playerDataManager.addToActivePerks(uuid);
 
         return PerksResult.SUCCESS;
     }
@@ -145,9 +157,12 @@ public class PerksManager {
         if(user == null) return PerksResult.USER_ERROR;
         NodeMap userData = user.data();
 
-        unsetPerks(settings, userManager, player, user, userData);
+        unsetPerks(settings, player, userData);
+
+        // Save modified User
+        userManager.saveUser(user);
 
-        playerDataManager.removeFromActivePerksMap(uuid);
+        playerDataManager.removeFromActivePerks(uuid);
 
         return PerksResult.SUCCESS;
     }
@@ -177,12 +192,12 @@ public class PerksManager {
      * Removes configured perks from the player provided.
      * @param player The {@link Player}.
      * @param uuid The {@link UUID} of the player.
-     * @return A {@link PerksResult}.
+     * @return A {@link PerksResult}. {@link PerksResult#NO_PLAYER_DATA} if the player never had perks.
      */
     public @NotNull PerksResult removePerks(@NotNull Player player, @NotNull UUID uuid) {
         // Get PlayerData
         PlayerData playerData = playerDataManager.getPlayerData(uuid);
-        if(playerData == null) return PerksResult.NO_PLAYER_DATA;
+        if(playerData == null || playerData.isDefault()) return PerksResult.NO_PLAYER_DATA;
 
         // Set join time to the current system time
         playerData.setJoinTime(0);
@@ -192,6 +207,109 @@ public class PerksManager {
         return disablePerks(player, uuid, false);
     }
 
+    /**
+     * Add perks to a player who is offline by storing the current time as their join time. Their perks are enabled when they join.
+     * If the player joins while the join time is being stored, perks are applied to them as an online player afterward.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing a {@link PerksResult}. Completes on the main thread unless it fails.
+     */
+    public @NotNull CompletableFuture<PerksResult> applyOfflinePerks(@NotNull UUID uuid) {
+        if(settingsManager.getSettings() == null || settingsManager.getPeriod() == null) return CompletableFuture.completedFuture(PerksResult.SETTINGS_ERROR);
+
+        return playerDataManager.saveOfflinePlayerData(uuid, new PlayerData(System.currentTimeMillis()))
+                .thenApplyAsync(v -> {
+                    // The player may have loaded their previous player data before the new join time was stored.
+                    Player player = newPlayerPerks.getServer().getPlayer(uuid);
+                    if(player != null && playerDataManager.getJoinTime(uuid) != PlayerJoinTimeTable.MISSING) return applyPerks(player, uuid);
+
+                    return PerksResult.SUCCESS;
+                }, getMainThreadExecutor());
+    }
+
+    /**
+     * Removes perks from a player who is offline. Their player data is deleted and the perks' permissions are removed from their LuckPerms {@link User},
+     * which is loaded and saved asynchronously. If the player joins in the meantime, perks are removed from them as an online player afterward.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing a {@link PerksResult}. {@link PerksResult#NO_PLAYER_DATA} if the player never had perks,
+     * or {@link PerksResult#USER_ERROR} if the player data was deleted but the LuckPerms {@link User} couldn't be loaded or saved.
+     * Completes on the main thread. Completes exceptionally if the player data couldn't be read or deleted.
+     */
+    public @NotNull CompletableFuture<PerksResult> removeOfflinePerks(@NotNull UUID uuid) {
+        Settings settings = settingsManager.getSettings();
+        if(settings == null) return CompletableFuture.completedFuture(PerksResult.SETTINGS_ERROR);
+
+        UserManager userManager = newPlayerPerks.getLuckPermsAPI().getUserManager();
+
+        return playerDataManager.getOfflinePlayerData(uuid).thenComposeAsync(playerData -> {
+            if(playerData == null) return CompletableFuture.completedFuture(PerksResult.NO_PLAYER_DATA);
+
+            CompletableFuture<Void> playerDataFuture = playerDataManager.saveOfflinePlayerData(uuid, new PlayerData());
+            // A LuckPerms failure doesn't stop the player data from being deleted, so it is reported on its own.
+            CompletableFuture<Boolean> userFuture = userManager.loadUser(uuid).thenCompose(user -> {
+                removePermissions(settings, user.data());
+
+                return userManager.saveUser(user);
+            }).handle((v, throwable) -> {
+                if(throwable == null) return true;
+
+                logger.error(AdventureUtil.serialize("Failed to remove the perks' permissions from the LuckPerms user " + uuid + ". Error: " + throwable.getMessage()));
+                return false;
+            });
+
+            return playerDataFuture.thenCombine(userFuture, (v, userSaved) -> userSaved)
+                    .thenApplyAsync(userSaved -> {
+                        // The player may have joined and loaded their player data before it was deleted. Their perks are removed again,
+                        // but the result of the offline removal is the one reported.
+                        Player player = newPlayerPerks.getServer().getPlayer(uuid);
+                        long joinTime = playerDataManager.getJoinTime(uuid);
+                        if(player != null && joinTime != PlayerJoinTimeTable.MISSING && joinTime > 0) removePerks(player, uuid);
+
+                        return userSaved ? PerksResult.SUCCESS : PerksResult.USER_ERROR;
+                    }, getMainThreadExecutor());
+        }, getMainThreadExecutor());
+    }
+
+    /**
+     * Add perks to many players at once, online or offline. Their join times are saved with a single bulk write.
+     * Online players then have their perks enabled over the following ticks, and each changed LuckPerms' {@link User} is saved once at the end.
+     * Offline players have their perks enabled when they join.
+     * @param uuids The {@link UUID}s of the players. Duplicates are only processed once.
+     * @return A {@link CompletableFuture} containing the {@link BatchResult}. Completes once every {@link User} was saved.
+     */
+    public @NotNull CompletableFuture<BatchResult> applyPerks(@NotNull Collection<UUID> uuids) {
+        Settings settings = settingsManager.getSettings();
+        if(settings == null || settingsManager.getPeriod() == null) return CompletableFuture.completedFuture(new BatchResult(0, 0, uuids.size()));
+
+        List<UUID> players = List.copyOf(new LinkedHashSet<>(uuids));
+        long joinTime = System.currentTimeMillis();
+
+        Map<UUID, PlayerData> playerDataMap = new HashMap<>(players.size());
+        players.forEach(uuid -> playerDataMap.put(uuid, new PlayerData(joinTime)));
+
+        return playerDataManager.savePlayerData(playerDataMap)
+                .thenComposeAsync(v -> new BatchTask(settings, players, joinTime, true).start(), getMainThreadExecutor());
+    }
+
+    /**
+     * Removes perks from many players at once, online or offline. Their player data is deleted with a single bulk write.
+     * Online players whose perks are active then have their perks disabled over the following ticks. The perks' permissions are removed from the LuckPerms' {@link User}
+     * of every player, and each {@link User} is saved once at the end.
+     * @param uuids The {@link UUID}s of the players. Duplicates are only processed once.
+     * @return A {@link CompletableFuture} containing the {@link BatchResult}. Completes once every {@link User} was saved.
+     */
+    public @NotNull CompletableFuture<BatchResult> removePerks(@NotNull Collection<UUID> uuids) {
+        Settings settings = settingsManager.getSettings();
+        if(settings == null) return CompletableFuture.completedFuture(new BatchResult(0, 0, uuids.size()));
+
+        List<UUID> players = List.copyOf(new LinkedHashSet<>(uuids));
+
+        Map<UUID, PlayerData> playerDataMap = new HashMap<>(players.size());
+        players.forEach(uuid -> playerDataMap.put(uuid, new PlayerData()));
+
+        return playerDataManager.savePlayerData(playerDataMap)
+                .thenComposeAsync(v -> new BatchTask(settings, players, 0, false).start(), getMainThreadExecutor());
+    }
+
     /**
      * Enables perks for all perks that should have perks enabled based on their join time.
      */
@@ -203,19 +321,22 @@ public class PerksManager {
 
         Server server = newPlayerPerks.getServer();
 
-        playerDataManager.getPlayerDataMap().forEach((uuid, playerData) -> {
+        playerDataManager.getLoadedPlayers().forEach(uuid -> {
             Player player = server.getPlayer(uuid);
             if(player != null && player.isOnline() && player.isConnected()) {
+                PlayerData playerData = playerDataManager.getPlayerData(uuid);
+                if(playerData == null) return;
+
                 PerksResult perksResult = enablePerks(player, uuid);
 
                 switch(perksResult) {
                     case SUCCESS -> {
-                        List<TagResolver.Single> placeholders = List.of(
-                                Placeholder.parsed("expire_time", TimeUtil.millisToTimeStamp((playerData.getJoinTime() + settingsManager.getPeriod()), ZoneId.of("America/New_York"), "MM-dd-yyyy HH:mm:ss z")),
-                                Placeholder.parsed("remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis())));
+                        Map<String, Component> placeholders = Map.of(
+                                "expire_time", Component.text(localeManager.getTimestamp(playerData.getJoinTime() + settingsManager.getPeriod(), player)),
+                                "remaining_time", localeManager.getTimeMessage((playerData.getJoinTime() + settingsManager.getPeriod()) - System.currentTimeMillis(), player));
 
-                        for(String msg : localeManager.getLocale().perksEnabledMessages()) {
-                            player.sendMessage(AdventureUtil.serialize(player, localeManager.getLocale().prefix() + msg, placeholders));
+                        for(MessageTemplate template : localeManager.getTemplates(player).perksEnabledMessages()) {
+                            player.sendMessage(template.render(player, placeholders));
                         }
                     }
 
@@ -237,30 +358,27 @@ public class PerksManager {
      * @param onReload Are perks being removed due to a reload?
      */
     public void disableAllPerks(boolean onReload) {
-        Locale locale = localeManager.getLocale();
         Server server = newPlayerPerks.getServer();
 
-        playerDataManager.getActivePerksMap()
-            .forEach((uuid, playerData) -> {
+        playerDataManager.getActivePerksPlayers()
+            .forEach(uuid -> {
                 Player player = server.getPlayer(uuid);
                 if(player != null && player.isOnline() && player.isConnected()) {
                     disablePerks(player, uuid, false);
 
-                    if(onReload) player.sendMessage(locale.prefix() + locale.disablePerksReload());
+                    if(onReload) player.sendMessage(localeManager.getTemplates(player).disablePerksReload().render());
                 }
             });
     }
 
 
     /**
-     * Set the perks based on the plugin's settings.
+     * Set the perks based on the plugin's settings. The {@link User} must be saved afterward.
      * @param settings The plugin's {@link Settings}.
-     * @param userManager LuckPerm's {@link UserManager}.
      * @param player The {@link Player} to apply perks to.
-     * @param user The LuckPerm's {@link User} to apply perks to.
      * @param userData The user's data from LuckPerms, See {@link User#data()}.
      */
-    private void setPerks(@NotNull Settings settings, @NotNull UserManager userManager, @NotNull Player player, @NotNull User user, @NotNull NodeMap userData) {
+    private void setPerks(@NotNull Settings settings, @NotNull Player player, @NotNull NodeMap userData) {
         // Invulnerable
         if(settings.invulnerable()) {
             player.setInvulnerable(true);
@@ -288,38 +406,44 @@ public class PerksManager {
             PermissionNode voidTele = PermissionNode.builder("bskyblock.voidteleport").value(true).build();
             userData.add(voidTele);
         }
-
-        // Save modified User
-        userManager.saveUser(user);
     }
 
     /**
-     * Remove the perks based on the plugin's settings.
+     * Remove the perks based on the plugin's settings. The {@link User} must be saved afterward.
      * @param settings The plugin's {@link Settings}.
-     * @param userManager LuckPerm's {@link UserManager}.
      * @param player The {@link Player} to remove perks from.
-     * @param user The LuckPerm's {@link User} to remove perks from.
      * @param userData The user's data from LuckPerms, See {@link User#data()}.
      */
-    private void unsetPerks(@NotNull Settings settings, @NotNull UserManager userManager, @NotNull Player player, @NotNull User user, @NotNull NodeMap userData) {
+    private void unsetPerks(@NotNull Settings settings, @NotNull Player player, @NotNull NodeMap userData) {
         // Invulnerable
         if(settings.invulnerable()) {
             player.setInvulnerable(false);
         }
 
+        // Fly
+        if(settings.essentialsFly() || settings.islandFly()) {
+            player.setAllowFlight(false);
+            player.setFlying(false);
+        }
+
+        removePermissions(settings, userData);
+    }
+
+    /**
+     * Remove the permissions the perks give based on the plugin's settings. The {@link User} must be saved afterward.
+     * @param settings The plugin's {@link Settings}.
+     * @param userData The user's data from LuckPerms, See {@link User#data()}.
+     */
+    private void removePermissions(@NotNull Settings settings, @NotNull NodeMap userData) {
         // Fly
         if(settings.essentialsFly()) {
             PermissionNode eFly = PermissionNode.builder("essentials.fly").build();
             userData.remove(eFly);
-            player.setAllowFlight(false);
-            player.setFlying(false);
         }
 
         if(settings.islandFly()) {
             PermissionNode iFly = PermissionNode.builder("bskyblock.island.fly").build();
             userData.remove(iFly);
-            player.setAllowFlight(false);
-            player.setFlying(false);
         }
 
         // Void Teleport
@@ -327,8 +451,201 @@ public class PerksManager {
             PermissionNode voidTele = PermissionNode.builder("bskyblock.voidteleport").build();
             userData.remove(voidTele);
         }
+    }
 
-        // Save modified User
-        userManager.saveUser(user);
+    /**
+     * This class enables or disables the perks of the online players in a batch, a few players per tick, so a large batch doesn't stall the server.
+     * The LuckPerms' {@link User}s that were changed are saved once every player was processed, including players whose data or {@link User} was still loading.
+     */
+    private class BatchTask implements Runnable {
+        private final @NotNull Settings settings;
+        private final @NotNull List<UUID> uuids;
+        private final long joinTime;
+        private final boolean enable;
+        private final @NotNull UserManager userManager = newPlayerPerks.getLuckPermsAPI().getUserManager();
+        private final @NotNull List<User> changedUsers = new ArrayList<>();
+        private final @NotNull List<UUID> offlinePlayers = new ArrayList<>();
+        private final @NotNull List<CompletableFuture<Void>> deferredPlayers = new ArrayList<>();
+        private final @NotNull CompletableFuture<BatchResult> future = new CompletableFuture<>();
+        private int index = 0;
+        private int online = 0;
+        private int failed = 0;
+
+        /**
+         * Constructor
+         * @param settings The plugin's {@link Settings}.
+         * @param uuids The {@link UUID}s of the players in the batch, without duplicates.
+         * @param joinTime The join time saved for every player in the batch.
+         * @param enable true to enable perks, false to disable them.
+         */
+        private BatchTask(@NotNull Settings settings, @NotNull List<UUID> uuids, long joinTime, boolean enable) {
+            this.settings = settings;
+            this.uuids = uuids;
+            this.joinTime = joinTime;
+            this.enable = enable;
+        }
+
+        /**
+         * Processes the first players on the current tick, which must be the main thread.
+         * @return A {@link CompletableFuture} containing the {@link BatchResult}.
+         */
+        private @NotNull CompletableFuture<BatchResult> start() {
+            run();
+
+            return future;
+        }
+
+        @Override
+        public void run() {
+            // An exception must complete the batch, otherwise the sender would never get a result.
+            try {
+                int end = Math.min(index + BATCH_PLAYERS_PER_TICK, uuids.size());
+                for(; index < end; index++) {
+                    process(uuids.get(index));
+                }
+
+                if(index < uuids.size()) {
+                    newPlayerPerks.getServer().getScheduler().runTaskLater(newPlayerPerks, this, 1L);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+
+            CompletableFuture.allOf(deferredPlayers.toArray(new CompletableFuture[0])).thenCompose(v -> saveUsers()).whenComplete((v, throwable) -> {
+                if(throwable != null) {
+                    future.completeExceptionally(throwable);
+                    return;
+                }
+
+                future.complete(new BatchResult(uuids.size(), online, failed));
+            });
+        }
+
+        /**
+         * Enables or disables the perks of a single player if they are online.
+         * A player whose data is still loading may have read it before the batch was saved, so they are processed once it loaded.
+         * @param uuid The {@link UUID} of the player.
+         */
+        private void process(@NotNull UUID uuid) {
+            Player player = newPlayerPerks.getServer().getPlayer(uuid);
+            if(player == null || !player.isConnected()) {
+                offlinePlayers.add(uuid);
+                return;
+            }
+
+            CompletableFuture<Void> processed;
+            if(playerDataManager.getJoinTime(uuid) != PlayerJoinTimeTable.MISSING) {
+                processed = processLoaded(uuid);
+            } else {
+                CompletableFuture<PlayerData> pendingLoad = playerDataManager.getPendingLoad(uuid);
+                if(pendingLoad == null) {
+                    offlinePlayers.add(uuid);
+                    return;
+                }
+
+                processed = pendingLoad.thenComposeAsync(playerData -> processLoaded(uuid), getMainThreadExecutor());
+            }
+
+            if(!processed.isDone()) deferredPlayers.add(processed);
+        }
+
+        /**
+         * Enables or disables the perks of a single player whose data is loaded. Must be called on the main thread.
+         * The cached join time is replaced with the batch's first, as the player's data may have been loaded before the batch was saved.
+         * @param uuid The {@link UUID} of the player.
+         * @return A {@link CompletableFuture} of type {@link Void} when the player was processed.
+         */
+        private @NotNull CompletableFuture<Void> processLoaded(@NotNull UUID uuid) {
+            Player player = newPlayerPerks.getServer().getPlayer(uuid);
+            if(player == null || !player.isConnected() || !playerDataManager.updateCachedJoinTime(uuid, joinTime)) {
+                offlinePlayers.add(uuid);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Disabling perks that aren't active would take away invulnerability or flight the player has for another reason.
+            if(!enable && !playerDataManager.hasActivePerks(uuid)) return CompletableFuture.completedFuture(null);
+
+            User user = userManager.getUser(uuid);
+            if(user != null) {
+                changePerks(player, uuid, user);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // LuckPerms hasn't loaded the player's User yet, so it is loaded before their perks are changed.
+            return userManager.loadUser(uuid).handleAsync((loadedUser, throwable) -> {
+                if(throwable != null) {
+                    logger.error(AdventureUtil.serialize("Failed to load the LuckPerms user " + uuid + " to change their perks. Error: " + throwable.getMessage()));
+                    failed++;
+                    return null;
+                }
+
+                Player loadedPlayer = newPlayerPerks.getServer().getPlayer(uuid);
+                if(loadedPlayer != null && loadedPlayer.isConnected()) {
+                    changePerks(loadedPlayer, uuid, loadedUser);
+                } else {
+                    offlinePlayers.add(uuid);
+                }
+
+                return null;
+            }, getMainThreadExecutor());
+        }
+
+        /**
+         * Enables or disables the perks of an online player and sends them the matching messages.
+         * @param player The {@link Player}.
+         * @param uuid The {@link UUID} of the player.
+         * @param user The player's LuckPerms' {@link User}, which is saved once every player was processed.
+         */
+        private void changePerks(@NotNull Player player, @NotNull UUID uuid, @NotNull User user) {
+            if(enable) {
+                setPerks(settings, player, user.data());
+                playerDataManager.addToActivePerks(uuid);
+
+                for(MessageTemplate template : localeManager.getTemplates(player).perksAddedMessages()) {
+                    player.sendMessage(template.render());
+                }
+            } else {
+                unsetPerks(settings, player, user.data());
+                playerDataManager.removeFromActivePerks(uuid);
+
+                for(MessageTemplate template : localeManager.getTemplates(player).perksRemovedMessages()) {
+                    player.sendMessage(template.render());
+                }
+            }
+
+            changedUsers.add(user);
+            online++;
+        }
+
+        /**
+         * Saves every changed {@link User} once. When disabling perks, the permissions are also removed from the {@link User}s of offline players,
+         * which are loaded asynchronously.
+         * @return A {@link CompletableFuture} of type {@link Void} when every {@link User} was saved.
+         */
+        private @NotNull CompletableFuture<Void> saveUsers() {
+            List<CompletableFuture<Void>> saves = new ArrayList<>(changedUsers.size() + offlinePlayers.size());
+            changedUsers.forEach(user -> saves.add(userManager.saveUser(user)));
+
+            // Offline players only have perks enabled once they join, so they have no permissions to add.
+            if(!enable) {
+                offlinePlayers.forEach(uuid -> saves.add(userManager.loadUser(uuid).thenCompose(user -> {
+                    removePermissions(settings, user.data());
+
+                    return userManager.saveUser(user);
+                })));
+            }
+
+            return CompletableFuture.allOf(saves.toArray(new CompletableFuture[0]));
+        }
+    }
+
+    /**
+     * Get the {@link Executor} that runs tasks on the main thread.
+     * @return The {@link Executor}.
+     */
+    private @NotNull Executor getMainThreadExecutor() {
+        return newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks);
     }
 }
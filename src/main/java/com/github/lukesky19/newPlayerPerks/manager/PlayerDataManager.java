@@ -19,101 +19,211 @@ package com.github.lukesky19.newPlayerPerks.manager;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
 import com.github.lukesky19.newPlayerPerks.data.PlayerData;
-import com.github.lukesky19.newPlayerPerks.manager.database.DatabaseManager;
-import com.github.lukesky19.newPlayerPerks.manager.database.tables.PlayerDataTable;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.manager.storage.PlayerDataSnapshot;
+import com.github.lukesky19.newPlayerPerks.manager.storage.PlayerDataStorage;
+import com.github.lukesky19.newPlayerPerks.util.ExpirySchedule;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import com.github.lukesky19.newPlayerPerks.util.PlayerJoinTimeTable;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
-import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
-import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
-import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 /**
  * This class manages access to player data.
+ * If the period only counts while players are online, the join time of a loaded player is moved forward by the time they spent offline.
+ * Their perks then still expire at the join time plus the period, and the playtime is only calculated when their data is saved.
  */
 public class PlayerDataManager {
     private final @NotNull NewPlayerPerks newPlayerPerks;
-    private final @NotNull DatabaseManager databaseManager;
-
-    private final @NotNull Map<UUID, PlayerData> playerDataMap = new HashMap<>();
-    private final @NotNull Map<UUID, PlayerData> activePerksPlayerDataMap = new HashMap<>();
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull PlayerDataStorage playerDataStorage;
+
+    // Loaded players' join times, and which of them have their perks active.
+    private final @NotNull PlayerJoinTimeTable playerJoinTimes = new PlayerJoinTimeTable();
+    // Playtime saved when players quit, until the save completes. A player who rejoins right away must not load their previous playtime.
+    private final @NotNull Map<UUID, PlayerData> quitPlayerData = new ConcurrentHashMap<>();
+    // When the perks of loaded players with active perks expire, and when they are warned beforehand.
+    private final @NotNull ExpirySchedule expirySchedule = new ExpirySchedule();
+    // Changes every time a player's data starts loading, so a change made while it loaded can tell the loaded data may be out of date.
+    private final @NotNull AtomicLong loadSequence = new AtomicLong();
+    private final @NotNull Map<UUID, Long> playerLoadSequences = new ConcurrentHashMap<>();
+    // Loads from the storage that haven't completed yet.
+    private final @NotNull Map<UUID, CompletableFuture<PlayerData>> pendingLoads = new ConcurrentHashMap<>();
+
+    private final @NotNull Path snapshotPath;
+    private volatile @Nullable PlayerDataSnapshot snapshot;
+    // Players who were loaded or saved this run. Their snapshot record is out of date or was already used.
+    private final @NotNull Set<UUID> snapshotUsed = ConcurrentHashMap.newKeySet();
+    private boolean generationAdvanced = false;
 
     /**
      * Constructor
      * @param newPlayerPerks A {@link NewPlayerPerks} instance.
-     * @param databaseManager A {@link DatabaseManager} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param playerDataStorage The {@link PlayerDataStorage} player data is loaded from and saved to.
      */
     public PlayerDataManager(
             @NotNull NewPlayerPerks newPlayerPerks,
-            @NotNull DatabaseManager databaseManager) {
+            @NotNull SettingsManager settingsManager,
+            @NotNull PlayerDataStorage playerDataStorage) {
         this.newPlayerPerks = newPlayerPerks;
-        this.databaseManager = databaseManager;
+        this.settingsManager = settingsManager;
+        this.playerDataStorage = playerDataStorage;
+        this.snapshotPath = Path.of(newPlayerPerks.getDataFolder() + File.separator + "playerdata.snapshot");
     }
 
     /**
      * Get the {@link PlayerData} for the {@link UUID} provided.
+     * The {@link PlayerData} is a copy, so changes must be saved with {@link #savePlayerData(UUID, PlayerData)}.
      * @param uuid The {@link UUID} for the player.
      * @return The {@link PlayerData}. May be null.
      */
     public @Nullable PlayerData getPlayerData(@NotNull UUID uuid) {
-        return playerDataMap.get(uuid);
+        long joinTime = playerJoinTimes.getJoinTime(uuid);
+
+        return joinTime != PlayerJoinTimeTable.MISSING ? new PlayerData(joinTime) : null;
     }
 
     /**
-     * Get the {@link Map} mapping {@link UUID}s to {@link PlayerData}.
-     * @return The {@link Map} mapping {@link UUID}s to {@link PlayerData}.
+     * Get the join time of a loaded player without creating a {@link PlayerData}.
+     * @param uuid The {@link UUID} for the player.
+     * @return The join time or {@link PlayerJoinTimeTable#MISSING} if the player's data isn't loaded.
      */
-    public @NotNull Map<UUID, PlayerData> getPlayerDataMap() {
-        return playerDataMap;
+    public long getJoinTime(@NotNull UUID uuid) {
+        return playerJoinTimes.getJoinTime(uuid);
+    }
+
+    /**
+     * Get the {@link UUID}s of all players whose data is loaded.
+     * @return A new {@link List} of {@link UUID}s.
+     */
+    public @NotNull List<UUID> getLoadedPlayers() {
+        return playerJoinTimes.getUuids(false);
     }
 
     /**
-     * Stores the player's player data in the active perks map.
-     * The active perks map is iterated over to check if their perks have expired to remove them.
+     * Marks the player's perks as active.
+     * Players with active perks are added to the {@link ExpirySchedule} to be warned and have their perks removed once they expire.
      * @param uuid The {@link UUID} of the player.
      */
-    public void addToActivePerksMap(@NotNull UUID uuid) {
-        PlayerData playerData = playerDataMap.get(uuid);
-        if(playerData == null) return;
+    public void addToActivePerks(@NotNull UUID uuid) {
+        playerJoinTimes.setPerksActive(uuid, true);
 
-        activePerksPlayerDataMap.put(uuid, playerData);
+        scheduleExpiry(uuid);
     }
 
     /**
-     * Remove the player's player data from the active perks map.
+     * Marks the player's perks as no longer active.
      * @param uuid The {@link UUID} of the player.
      */
-    public void removeFromActivePerksMap(@NotNull UUID uuid) {
-        activePerksPlayerDataMap.remove(uuid);
+    public void removeFromActivePerks(@NotNull UUID uuid) {
+        playerJoinTimes.setPerksActive(uuid, false);
+
+        expirySchedule.unschedule(uuid);
+    }
+
+    /**
+     * Removes and returns the earliest expiry or warning that is due.
+     * @param now The current epoch millisecond.
+     * @return The due {@link ExpirySchedule.Event} or null if nothing is due.
+     */
+    public @Nullable ExpirySchedule.Event pollDueExpiry(long now) {
+        return expirySchedule.pollDue(now);
+    }
+
+    /**
+     * Checks if the player's perks are active.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the player's perks are active, otherwise false.
+     */
+    public boolean hasActivePerks(@NotNull UUID uuid) {
+        return playerJoinTimes.isPerksActive(uuid);
+    }
+
+    /**
+     * Get the {@link UUID}s of all players whose perks are active.
+     * @return A new {@link List} of {@link UUID}s, which is safe to iterate while perks are being disabled.
+     */
+    public @NotNull List<UUID> getActivePerksPlayers() {
+        return playerJoinTimes.getUuids(true);
+    }
+
+    /**
+     * Counts the players whose perks have not expired yet, whether they are online or not.
+     * @return A {@link CompletableFuture} containing the number of players.
+     */
+    public @NotNull CompletableFuture<Integer> countPlayersWithPerks() {
+        return playerDataStorage.countPlayersExpiringBetween(System.currentTimeMillis(), Long.MAX_VALUE);
     }
 
     /**
-     * Get the {@link Map} mapping {@link UUID}s to {@link PlayerData} that have perks enabled.
-     * @return The {@link Map} mapping {@link UUID}s to {@link PlayerData} that have perks enabled.
+     * Get a page of players whose perks expire within the number of milliseconds provided, ordered by expiry time.
+     * @param millis The number of milliseconds from now.
+     * @param after The last {@link PlayerExpiry} of the previous page or null for the first page.
+     * @param limit The maximum number of entries to return.
+     * @return A {@link CompletableFuture} containing a {@link List} of {@link PlayerExpiry}.
      */
-    public @NotNull Map<UUID, PlayerData> getActivePerksMap() {
-        return activePerksPlayerDataMap;
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringWithin(long millis, @Nullable PlayerExpiry after, int limit) {
+        long now = System.currentTimeMillis();
+
+        return playerDataStorage.getPlayersExpiringBetween(now, now + millis, after, limit);
     }
 
     /**
-     * Reload player data.
+     * Deletes the stored data of players whose perks expired longer ago than the retention provided.
+     * Players who are online keep their cached data.
+     * @param retentionMillis How many milliseconds to keep a player's data after their perks expired.
+     * @param batchSize The maximum number of players to delete at once.
+     * @param batchDelayMillis How many milliseconds to wait between batches.
+     * @param stopRequested Checked between batches. Once it returns true, the purge stops early.
+     * @return A {@link CompletableFuture} containing the {@link PurgeResult}.
+     */
+    public @NotNull CompletableFuture<PurgeResult> purgeExpiredPlayerData(long retentionMillis, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        // The snapshot still contains players the purge deletes.
+        snapshot = null;
+
+        return playerDataStorage.purgeExpired(System.currentTimeMillis() - retentionMillis, batchSize, batchDelayMillis, stopRequested);
+    }
+
+    /**
+     * Reload player data. Waits for the {@link PlayerDataStorage} to be initialized first.
+     * If the period or the period mode in settings.yml changed, the stored expiry times are recalculated.
+     * On the first reload, the warm-start snapshot is opened if it is up-to-date.
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
     public @NotNull CompletableFuture<Void> reload() {
-        return savePlayerData().thenCompose(v1 -> {
-            playerDataMap.clear();
-            activePerksPlayerDataMap.clear();
+        Long period = settingsManager.getPeriod();
+        CompletableFuture<Void> periodFuture = period != null ? playerDataStorage.updatePeriod(period, settingsManager.getPeriodMode()) : playerDataStorage.initialize();
 
-            return migrateLegacyPlayerData().thenCompose(v2 -> loadPlayerData());
+        boolean openSnapshot = !generationAdvanced;
+        generationAdvanced = true;
+
+        if(settingsManager.getPeriodMode() == PeriodMode.PLAYTIME && !playerDataStorage.isPlaytimeSupported()) {
+            newPlayerPerks.getComponentLogger().error(AdventureUtil.serialize("The PLAYTIME period mode requires SQLITE, H2, MYSQL, MARIADB, or POSTGRESQL storage. The period will count down in real time instead."));
+        }
+
+        return periodFuture.thenCompose(v0 -> savePlayerData()).thenCompose(v1 -> {
+            playerJoinTimes.clear();
+            expirySchedule.clear();
+
+            return migrateLegacyPlayerData()
+                    .thenCompose(v2 -> openSnapshot ? openSnapshot() : CompletableFuture.completedFuture(null))
+                    .thenCompose(v3 -> loadPlayerData());
         });
     }
 
@@ -123,7 +233,8 @@ public class PlayerDataManager {
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
     public @NotNull CompletableFuture<Void> loadPlayerData() {
-        playerDataMap.clear();
+        playerJoinTimes.clear();
+        expirySchedule.clear();
 
         List<CompletableFuture<PlayerData>> futuresList = new ArrayList<>();
         newPlayerPerks.getServer().getOnlinePlayers().forEach(player ->
@@ -133,45 +244,100 @@ public class PlayerDataManager {
     }
 
     /**
-     * Get the {@link PlayerData} from the database. If no data exists, then a new {@link PlayerData} record will be created.
-     * If the plugin's settings are invalid, the returned {@link PlayerData} will be null.
+     * Get the {@link PlayerData} from the snapshot or the database. If no data exists, default {@link PlayerData} is cached without being saved.
+     * The snapshot is only used for a player's first load after the plugin was enabled.
+     * If the database can't be reached, the cached {@link PlayerData} is used, or default {@link PlayerData} if none is cached.
+     * Default {@link PlayerData} used as a fallback is not cached or saved, so it can never overwrite the player's stored data.
      * @param uuid The {@link UUID} of the player.
      * @return A {@link CompletableFuture} containing {@link PlayerData}.
      */
     public @NotNull CompletableFuture<@NotNull PlayerData> loadPlayerData(@NotNull UUID uuid) {
         ComponentLogger logger = newPlayerPerks.getComponentLogger();
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+        playerLoadSequences.put(uuid, loadSequence.incrementAndGet());
 
-        return playerDataTable.loadPlayerData(uuid).thenApply(playerData -> {
-            if(playerData == null) {
-                PlayerData newPlayerData = new PlayerData();
+        PlayerData storedPlayerData = quitPlayerData.get(uuid);
+        if(storedPlayerData == null) storedPlayerData = getSnapshotPlayerData(uuid);
+        if(storedPlayerData != null) {
+            PlayerData playerData = fromStoredPlayerData(storedPlayerData, System.currentTimeMillis());
+            playerJoinTimes.put(uuid, playerData.getJoinTime());
+
+            return CompletableFuture.completedFuture(playerData);
+        }
 
-                playerDataMap.put(uuid, newPlayerData);
+        CompletableFuture<PlayerData> loadFuture = playerDataStorage.loadPlayerData(uuid).thenApply(storedData -> {
+            if(storedData == null) {
+                // A missing row means the player never had perks. A row is only written once perks are applied.
+                PlayerData newPlayerData = new PlayerData();
 
-                playerDataTable.savePlayerData(uuid, newPlayerData);
+                playerJoinTimes.put(uuid, newPlayerData.getJoinTime());
 
                 return newPlayerData;
             }
 
-            playerDataMap.put(uuid, playerData);
+            PlayerData playerData = fromStoredPlayerData(storedData, System.currentTimeMillis());
+            playerJoinTimes.put(uuid, playerData.getJoinTime());
 
             return playerData;
         }).exceptionally(throwable -> {
-            if(throwable != null) {
-                logger.error(AdventureUtil.serialize("Loading of player data failed: " + throwable.getMessage()));
+            PlayerData cachedPlayerData = getPlayerData(uuid);
+            if(cachedPlayerData != null) {
+                logger.warn(AdventureUtil.serialize("Loading of player data failed, cached player data will be used instead: " + throwable.getMessage()));
+                return cachedPlayerData;
             }
 
-            return null;
+            logger.error(AdventureUtil.serialize("Loading of player data failed, default player data will be used instead: " + throwable.getMessage()));
+            return new PlayerData();
         });
+
+        pendingLoads.put(uuid, loadFuture);
+        loadFuture.whenComplete((playerData, throwable) -> pendingLoads.remove(uuid, loadFuture));
+
+        return loadFuture;
+    }
+
+    /**
+     * Get the load of a player's data that is still in progress.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing the loaded {@link PlayerData} or null if the player's data isn't being loaded.
+     */
+    public @Nullable CompletableFuture<PlayerData> getPendingLoad(@NotNull UUID uuid) {
+        return pendingLoads.get(uuid);
+    }
+
+    /**
+     * Get the {@link PlayerData} of a player whose data may not be loaded, without caching it.
+     * The cached {@link PlayerData} is used if the player is loaded, otherwise the stored {@link PlayerData} is read asynchronously.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing the {@link PlayerData} or null if the player has no perks stored.
+     */
+    public @NotNull CompletableFuture<@Nullable PlayerData> getOfflinePlayerData(@NotNull UUID uuid) {
+        PlayerData cachedPlayerData = getPlayerData(uuid);
+        if(cachedPlayerData != null) return CompletableFuture.completedFuture(cachedPlayerData.isDefault() ? null : cachedPlayerData);
+
+        PlayerData pendingPlayerData = quitPlayerData.get(uuid);
+        if(pendingPlayerData != null) return CompletableFuture.completedFuture(fromStoredPlayerData(pendingPlayerData, System.currentTimeMillis()));
+
+        return playerDataStorage.loadPlayerData(uuid).thenApply(storedData -> storedData != null && !storedData.isDefault() ? fromStoredPlayerData(storedData, System.currentTimeMillis()) : null);
     }
 
     /**
      * Unload the player data for the {@link UUID} provided.
+     * If the period only counts while players are online, the playtime of the player's session is saved first.
      * @param uuid The {@link UUID} of the player.
      */
     public void unloadPlayerData(@NotNull UUID uuid) {
-        activePerksPlayerDataMap.remove(uuid);
-        playerDataMap.remove(uuid);
+        long joinTime = playerJoinTimes.getJoinTime(uuid);
+        if(isPlaytimePeriod() && joinTime != PlayerJoinTimeTable.MISSING && joinTime > 0) {
+            PlayerData storedPlayerData = toStoredPlayerData(joinTime, System.currentTimeMillis());
+
+            quitPlayerData.put(uuid, storedPlayerData);
+            snapshotUsed.add(uuid);
+            playerDataStorage.savePlayerData(uuid, storedPlayerData).thenRun(() -> quitPlayerData.remove(uuid, storedPlayerData));
+        }
+
+        playerJoinTimes.remove(uuid);
+        playerLoadSequences.remove(uuid);
+        expirySchedule.unschedule(uuid);
     }
 
     /**
@@ -180,10 +346,113 @@ public class PlayerDataManager {
      * @param playerData The {@link PlayerData}.
      */
     public void savePlayerData(@NotNull UUID uuid, PlayerData playerData) {
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
-        playerDataTable.savePlayerData(uuid, playerData);
+        snapshotUsed.add(uuid);
+        quitPlayerData.remove(uuid);
+        playerDataStorage.savePlayerData(uuid, toStoredPlayerData(playerData.getJoinTime(), System.currentTimeMillis()));
+
+        playerJoinTimes.put(uuid, playerData.getJoinTime());
+        // The expiry time changed, so the player's warnings and expiry are moved.
+        if(playerJoinTimes.isPerksActive(uuid)) scheduleExpiry(uuid);
+    }
+
+    /**
+     * Save the {@link PlayerData} of a player whose data isn't loaded, without caching it.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData}.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    public @NotNull CompletableFuture<Void> saveOfflinePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        snapshotUsed.add(uuid);
+        quitPlayerData.remove(uuid);
+
+        return playerDataStorage.savePlayerData(uuid, toStoredPlayerData(playerData.getJoinTime(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Extends or shortens the perks of a player, online or offline, who has perks.
+     * The stored join time is moved in a single atomic change first. Only once it succeeded are the player's cached join time and expiry moved, on the main thread.
+     * Must be called on the main thread. The perks of a player whose perks already expired are not enabled again.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to extend the player's perks by. Negative to shorten them.
+     * @return A {@link CompletableFuture} containing true if the player had perks stored, otherwise false.
+     */
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        // The player's snapshot record no longer matches the stored data.
+        snapshotUsed.add(uuid);
+        Long playerLoadSequence = playerLoadSequences.get(uuid);
+
+        Executor mainThreadExecutor = newPlayerPerks.getServer().getScheduler().getMainThreadExecutor(newPlayerPerks);
+        return playerDataStorage.extendPerks(uuid, millis).thenComposeAsync(extended -> {
+            if(!extended) return CompletableFuture.completedFuture(false);
+
+            // A player who rejoins before their quit save completes loads the pending data, so it is moved the same way as the stored data.
+            PlayerData pendingPlayerData = quitPlayerData.get(uuid);
+            if(pendingPlayerData != null) {
+                pendingPlayerData.setJoinTime(pendingPlayerData.getJoinTime() + millis);
+                if(pendingPlayerData.isPlaytimeTracked()) pendingPlayerData.setPlaytime(pendingPlayerData.getPlaytime() - millis);
+            }
+
+            CompletableFuture<PlayerData> pendingLoad = pendingLoads.get(uuid);
+            if(pendingLoad == null && Objects.equals(playerLoadSequence, playerLoadSequences.get(uuid))) {
+                long joinTime = playerJoinTimes.getJoinTime(uuid);
+                if(joinTime != PlayerJoinTimeTable.MISSING && joinTime > 0) {
+                    playerJoinTimes.put(uuid, joinTime + millis);
+                    if(playerJoinTimes.isPerksActive(uuid)) scheduleExpiry(uuid);
+                }
+
+                return CompletableFuture.completedFuture(true);
+            }
+
+            // The player's data was loaded while the stored join time was moved, so it may or may not contain the change. It is loaded again.
+            CompletableFuture<?> previousLoad = pendingLoad != null ? pendingLoad : CompletableFuture.completedFuture(null);
+            return previousLoad.handleAsync((playerData, throwable) -> playerJoinTimes.contains(uuid), mainThreadExecutor)
+                    .thenCompose(loaded -> loaded ? loadPlayerData(uuid) : CompletableFuture.completedFuture(null))
+                    .thenApplyAsync(playerData -> {
+                        if(playerJoinTimes.isPerksActive(uuid)) scheduleExpiry(uuid);
+                        return true;
+                    }, mainThreadExecutor);
+        }, mainThreadExecutor);
+    }
+
+    /**
+     * Save the {@link PlayerData} of many players, loaded or not, with a single bulk write.
+     * The cached join times of loaded players are updated right away.
+     * @param playerDataMap The {@link Map} mapping {@link UUID}s to {@link PlayerData} to save.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        long now = System.currentTimeMillis();
+
+        Map<UUID, PlayerData> storedPlayerData = new HashMap<>(playerDataMap.size());
+        playerDataMap.forEach((uuid, playerData) -> {
+            snapshotUsed.add(uuid);
+            quitPlayerData.remove(uuid);
+            storedPlayerData.put(uuid, toStoredPlayerData(playerData.getJoinTime(), now));
+
+            updateCachedJoinTime(uuid, playerData.getJoinTime());
+        });
 
-        playerDataMap.put(uuid, playerData);
+        return playerDataStorage.savePlayerData(storedPlayerData);
+    }
+
+    /**
+     * Replaces the cached join time of a loaded player with one that was already saved, e.g., with {@link #savePlayerData(Map)}.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The saved join time.
+     * @return true if the player's data is loaded, otherwise false.
+     */
+    public boolean updateCachedJoinTime(@NotNull UUID uuid, long joinTime) {
+        if(playerJoinTimes.getJoinTime(uuid) == PlayerJoinTimeTable.MISSING) return false;
+
+        playerJoinTimes.put(uuid, joinTime);
+        // Players whose perks were removed must not expire before their perks are disabled.
+        if(joinTime <= 0) {
+            expirySchedule.unschedule(uuid);
+        } else if(playerJoinTimes.isPerksActive(uuid)) {
+            scheduleExpiry(uuid);
+        }
+
+        return true;
     }
 
     /**
@@ -191,73 +460,142 @@ public class PlayerDataManager {
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
     public @NotNull CompletableFuture<Void> savePlayerData() {
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+        return playerDataStorage.savePlayerData(getStoredPlayerData());
+    }
+
+    /**
+     * Writes a snapshot of all loaded player data, which the next start loads players from without a database query.
+     * Should only be called once the loaded player data was saved, as the snapshot is taken at a new storage generation.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    public @NotNull CompletableFuture<Void> writeSnapshot() {
+        if(!settingsManager.isSnapshotEnabled()) return CompletableFuture.completedFuture(null);
+
+        snapshot = null;
+
+        Map<UUID, PlayerData> snapshotPlayerData = getStoredPlayerData();
 
-        return playerDataTable.savePlayerData(playerDataMap);
+        return playerDataStorage.advanceGeneration().thenAccept(generation -> {
+            try {
+                PlayerDataSnapshot.write(snapshotPath, generation, snapshotPlayerData);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
     /**
-     * Loads and migrates all legacy player data and saves the updated player data to the database.
+     * Migrates all legacy player data files to the database using the {@link LegacyPlayerDataMigrator}.
+     * A failed migration is logged and the remaining files are migrated on the next start.
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
     public @NotNull CompletableFuture<Void> migrateLegacyPlayerData() {
         ComponentLogger logger = newPlayerPerks.getComponentLogger();
 
-        try {
-            PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
-
-            Path playerDataPath = Path.of(newPlayerPerks.getDataFolder() + File.separator + "playerdata");
-            // If the path is not a directory, don't migrate any data.
-            if (!Files.isDirectory(playerDataPath)) return CompletableFuture.completedFuture(null);
-
-            // Don't migrate player data if the path's directory doesn't exist.
-            if (!Files.exists(playerDataPath)) return CompletableFuture.completedFuture(null);
-
-            List<CompletableFuture<Void>> futureList = new ArrayList<>();
-
-            try (Stream<Path> paths = Files.walk(playerDataPath)) {
-                paths.filter(Files::isRegularFile)
-                        .forEach(path -> {
-                            String fileName = path.toFile().getName();
-                            String nameWithoutExtension = fileName.replaceAll("\\.yml$", "");
-                            UUID uuid = UUID.fromString(nameWithoutExtension);
-
-                            @NotNull YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
-                            try {
-                                PlayerData playerData = loader.load().get(PlayerData.class);
-                                if (playerData != null) {
-                                    futureList.add(playerDataTable.savePlayerData(uuid, playerData));
-                                }
-
-                                try {
-                                    Files.delete(path);
-                                } catch (IOException e) {
-                                    logger.warn(AdventureUtil.serialize("Failed to delete legacy player data for file: " + path.toFile() + ". Error: " + e.getMessage()));
-                                }
-                            } catch (ConfigurateException e) {
-                                logger.warn(AdventureUtil.serialize("Failed to migrate legacy player data for file: " + path.toFile() + ". Error: " + e.getMessage()));
-                            }
-                        });
-            } catch (IOException e) {
-                logger.warn(AdventureUtil.serialize("Failed to migrate legacy player data. Error: " + e.getMessage()));
-                return CompletableFuture.completedFuture(null);
-            }
+        return new LegacyPlayerDataMigrator(newPlayerPerks, playerDataStorage).migrate().exceptionally(throwable -> {
+            Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+            logger.error(AdventureUtil.serialize("Failed to migrate legacy player data. The remaining files will be migrated on the next start. Error: " + cause.getMessage()));
+            return null;
+        });
+    }
 
-            // If the player data folder is empty, delete the directory
-            try (Stream<Path> paths = Files.list(playerDataPath)) {
-                int count = paths.toList().size();
-                if (count == 0) {
-                    Files.delete(playerDataPath);
-                }
+    /**
+     * Advances the storage generation and opens the snapshot if it was taken at the previous generation.
+     * The generation is advanced even if the snapshot is disabled, so a snapshot written before is never used after the player data changed.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    private @NotNull CompletableFuture<Void> openSnapshot() {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+
+        return playerDataStorage.advanceGeneration().thenAccept(generation -> {
+            if(!settingsManager.isSnapshotEnabled()) return;
+
+            try {
+                PlayerDataSnapshot openedSnapshot = PlayerDataSnapshot.open(snapshotPath, generation - 1);
+                if(openedSnapshot == null) return;
+
+                snapshot = openedSnapshot;
+                logger.info(AdventureUtil.serialize("Loaded a snapshot of " + openedSnapshot.size() + " players' data."));
             } catch (IOException e) {
-                logger.error(AdventureUtil.serialize(e.getMessage()));
-                return CompletableFuture.completedFuture(null);
+                logger.warn(AdventureUtil.serialize("Failed to read the player data snapshot, player data will be loaded from the database. Error: " + e.getMessage()));
             }
+        }).exceptionally(throwable -> {
+            logger.warn(AdventureUtil.serialize("Failed to check the player data snapshot, player data will be loaded from the database. Error: " + throwable.getMessage()));
+            return null;
+        });
+    }
 
-            return CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0]));
-        } catch (RuntimeException e) {
-            logger.error(AdventureUtil.serialize(e.getMessage()));
-            return CompletableFuture.completedFuture(null);
-        }
+    /**
+     * Checks if the period only counts while players are online. Falls back to real time if the storage can't store playtime.
+     * @return true if the period only counts while players are online, otherwise false.
+     */
+    private boolean isPlaytimePeriod() {
+        return settingsManager.getPeriodMode() == PeriodMode.PLAYTIME && playerDataStorage.isPlaytimeSupported();
+    }
+
+    /**
+     * Converts {@link PlayerData} as it is stored into {@link PlayerData} of a loaded player.
+     * If the period only counts while players are online, the join time is moved so that the player's playtime has passed since then.
+     * Player data stored while the period counted real time has no playtime, so the time since the player joined is used as their playtime.
+     * @param storedPlayerData The stored {@link PlayerData}.
+     * @param now The current epoch millisecond.
+     * @return The {@link PlayerData} of the loaded player.
+     */
+    private @NotNull PlayerData fromStoredPlayerData(@NotNull PlayerData storedPlayerData, long now) {
+        if(!isPlaytimePeriod() || storedPlayerData.isDefault() || !storedPlayerData.isPlaytimeTracked()) return new PlayerData(storedPlayerData.getJoinTime());
+
+        return new PlayerData(now - storedPlayerData.getPlaytime());
+    }
+
+    /**
+     * Converts the join time of a loaded player into {@link PlayerData} to store.
+     * If the period only counts while players are online, the time since the join time is stored as the player's playtime.
+     * @param joinTime The join time of the loaded player.
+     * @param now The current epoch millisecond.
+     * @return The {@link PlayerData} to store.
+     */
+    private @NotNull PlayerData toStoredPlayerData(long joinTime, long now) {
+        if(!isPlaytimePeriod() || joinTime <= 0) return new PlayerData(joinTime);
+
+        return new PlayerData(joinTime, now - joinTime);
+    }
+
+    /**
+     * Get the {@link PlayerData} to store for all loaded players.
+     * @return A {@link Map} mapping {@link UUID}s to {@link PlayerData} to store.
+     */
+    private @NotNull Map<UUID, PlayerData> getStoredPlayerData() {
+        Map<UUID, PlayerData> playerDataMap = playerJoinTimes.toMap();
+        if(!isPlaytimePeriod()) return playerDataMap;
+
+        long now = System.currentTimeMillis();
+        playerDataMap.replaceAll((uuid, playerData) -> toStoredPlayerData(playerData.getJoinTime(), now));
+
+        return playerDataMap;
+    }
+
+    /**
+     * Adds the player's expiry and warnings to the {@link ExpirySchedule}, replacing any they had before.
+     * Warnings whose time already passed are not added, so a player is never warned twice for the same threshold.
+     * @param uuid The {@link UUID} of the player.
+     */
+    private void scheduleExpiry(@NotNull UUID uuid) {
+        Long period = settingsManager.getPeriod();
+        long joinTime = playerJoinTimes.getJoinTime(uuid);
+        if(period == null || joinTime == PlayerJoinTimeTable.MISSING) return;
+
+        expirySchedule.schedule(uuid, joinTime + period, settingsManager.getWarningMillis(), System.currentTimeMillis());
+    }
+
+    /**
+     * Get the {@link PlayerData} for the {@link UUID} provided from the snapshot, if this is the player's first load since the plugin was enabled.
+     * @param uuid The {@link UUID} of the player.
+     * @return The {@link PlayerData} or null if the database must be used.
+     */
+    private @Nullable PlayerData getSnapshotPlayerData(@NotNull UUID uuid) {
+        PlayerDataSnapshot snapshot = this.snapshot;
+        if(!snapshotUsed.add(uuid) || snapshot == null) return null;
+
+        return snapshot.getPlayerData(uuid);
     }
 }
@@ -18,45 +18,60 @@
 package com.github.lukesky19.newPlayerPerks.manager;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
-import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
+import com.github.lukesky19.newPlayerPerks.manager.config.LocaleManager;
 import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.util.ExpirySchedule;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skylib.api.time.TimeUtil;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * This class manages the task that checks if perks need to be disabled for a player.
+ * This class manages the task that checks if perks need to be disabled for a player and the task that purges expired player data.
  */
 public class TaskManager {
     private final @NotNull NewPlayerPerks newPlayerPerks;
     private final @NotNull ComponentLogger logger;
     private final @NotNull SettingsManager settingsManager;
+    private final @NotNull LocaleManager localeManager;
     private final @NotNull PlayerDataManager playerDataManager;
     private final @NotNull PerksManager perksManager;
     private @Nullable BukkitTask checkPerksTask;
+    private @Nullable BukkitTask purgeTask;
+    private final @NotNull AtomicBoolean purgeRunning = new AtomicBoolean(false);
+    private volatile @NotNull CompletableFuture<Void> runningPurge = CompletableFuture.completedFuture(null);
+    private volatile boolean purgeStopRequested = false;
 
     /**
      * Constructor
      * @param newPlayerPerks A {@link NewPlayerPerks} instance.
      * @param settingsManager A {@link SettingsManager} instance.
+     * @param localeManager A {@link LocaleManager} instance.
      * @param playerDataManager A {@link PlayerDataManager} instance.
      * @param perksManager A {@link PerksManager} instance.
      */
     public TaskManager(
             @NotNull NewPlayerPerks newPlayerPerks,
             @NotNull SettingsManager settingsManager,
+            @NotNull LocaleManager localeManager,
             @NotNull PlayerDataManager playerDataManager,
             @NotNull PerksManager perksManager) {
         this.newPlayerPerks = newPlayerPerks;
         this.logger = newPlayerPerks.getComponentLogger();
         this.settingsManager = settingsManager;
+        this.localeManager = localeManager;
         this.playerDataManager = playerDataManager;
         this.perksManager = perksManager;
     }
@@ -69,7 +84,8 @@ public class TaskManager {
     }
 
     /**
-     * Checks whether players with perks need them removed or not.
+     * Warns players whose perks are about to expire and removes perks that expired.
+     * Only the events at the front of the {@link ExpirySchedule} that are due are handled, so players whose perks aren't close to expiring are never checked.
      */
     private void checkPerks() {
         if(settingsManager.getPeriod() == null) {
@@ -77,23 +93,43 @@ public class TaskManager {
             return;
         }
 
-        Iterator<Map.Entry<UUID, PlayerData>> iterator = playerDataManager.getActivePerksMap().entrySet().iterator();
-        while(iterator.hasNext()) {
-            Map.Entry<UUID, PlayerData> entry = iterator.next();
-            UUID uuid = entry.getKey();
-            Player player = newPlayerPerks.getServer().getPlayer(uuid);
+        long now = System.currentTimeMillis();
+        ExpirySchedule.Event event;
+        while((event = playerDataManager.pollDueExpiry(now)) != null) {
+            Player player = newPlayerPerks.getServer().getPlayer(event.uuid());
             if(player == null || !player.isOnline() || !player.isConnected()) continue;
-            PlayerData playerData = entry.getValue();
 
-            if(System.currentTimeMillis() > (playerData.getJoinTime() + settingsManager.getPeriod())) {
-                iterator.remove();
+            LocaleTemplates templates = localeManager.getTemplates(player);
+            if(event.warning() == ExpirySchedule.EXPIRY) {
+                playerDataManager.removeFromActivePerks(event.uuid());
+                perksManager.disablePerks(player, event.uuid(), false);
 
-                playerDataManager.removeFromActivePerksMap(uuid);
-                perksManager.disablePerks(player, uuid, false);
+                sendMessages(player, templates.perksExpiredMessages(), event.expiresAt(), 0);
+            } else {
+                sendMessages(player, templates.perksWarningMessages(), event.expiresAt(), event.expiresAt() - event.time());
             }
         }
     }
 
+    /**
+     * Sends messages to a player with the time their perks expire at and the time they have left.
+     * @param player The {@link Player} to send the messages to.
+     * @param messages The {@link List} of {@link MessageTemplate}s to send.
+     * @param expiresAt The epoch millisecond the player's perks expire at.
+     * @param remainingMillis The number of milliseconds the player has left on their perks.
+     */
+    private void sendMessages(@NotNull Player player, @NotNull List<MessageTemplate> messages, long expiresAt, long remainingMillis) {
+        if(messages.isEmpty()) return;
+
+        Map<String, Component> placeholders = Map.of(
+                "expire_time", Component.text(localeManager.getTimestamp(expiresAt, player)),
+                "remaining_time", localeManager.getTimeMessage(remainingMillis, player));
+
+        for(MessageTemplate template : messages) {
+            player.sendMessage(template.render(player, placeholders));
+        }
+    }
+
     /**
      * Stop the {@link BukkitTask} that checks perks.
      */
@@ -107,4 +143,85 @@ public class TaskManager {
         checkPerksTask.cancel();
         checkPerksTask = null;
     }
+
+    /**
+     * Start the {@link BukkitTask} that purges expired player data, stopping the previous one if it is running.
+     * The retention configuration is read from settings.yml each time this is called.
+     */
+    public void startPurgeTask() {
+        stopPurgeTask();
+        purgeStopRequested = false;
+
+        Settings.Storage.Retention retention = settingsManager.getRetention();
+        if(!Boolean.TRUE.equals(retention.enabled())) return;
+
+        long retentionMillis;
+        long intervalMillis;
+        try {
+            retentionMillis = TimeUtil.stringToMillis(retention.keepExpiredFor());
+            intervalMillis = TimeUtil.stringToMillis(retention.interval());
+        } catch (RuntimeException e) {
+            logger.error(AdventureUtil.serialize("Unable to purge expired player data due to an invalid retention configuration in settings.yml. Error: " + e.getMessage()));
+            return;
+        }
+
+        if(intervalMillis <= 0) {
+            logger.error(AdventureUtil.serialize("Unable to purge expired player data due to an invalid retention interval in settings.yml."));
+            return;
+        }
+
+        long intervalTicks = Math.max(20L, intervalMillis / 50L);
+        // Wait a few minutes after startup so the purge doesn't compete with the first players joining.
+        long delayTicks = Math.min(intervalTicks, 6000L);
+
+        purgeTask = newPlayerPerks.getServer().getScheduler().runTaskTimer(newPlayerPerks,
+                () -> purgeExpiredPlayerData(retentionMillis, retention.batchSize(), retention.batchDelayMillis()), delayTicks, intervalTicks);
+    }
+
+    /**
+     * Stop the {@link BukkitTask} that purges expired player data. A purge that is already running is allowed to finish.
+     */
+    public void stopPurgeTask() {
+        if(purgeTask == null) return;
+
+        if(!purgeTask.isCancelled()) purgeTask.cancel();
+        purgeTask = null;
+    }
+
+    /**
+     * Stop the {@link BukkitTask} that purges expired player data and ask a purge that is already running to stop after its current batch.
+     * @return A {@link CompletableFuture} that completes once the running purge, if any, has stopped.
+     */
+    public @NotNull CompletableFuture<Void> stopPurge() {
+        stopPurgeTask();
+        purgeStopRequested = true;
+
+        return runningPurge;
+    }
+
+    /**
+     * Purges expired player data and logs the result. Does nothing if the previous purge is still running.
+     * @param retentionMillis How many milliseconds to keep a player's data after their perks expired.
+     * @param batchSize The maximum number of players to delete at once.
+     * @param batchDelayMillis How many milliseconds to wait between batches.
+     */
+    private void purgeExpiredPlayerData(long retentionMillis, int batchSize, long batchDelayMillis) {
+        if(!purgeRunning.compareAndSet(false, true)) return;
+        long start = System.currentTimeMillis();
+
+        runningPurge = playerDataManager.purgeExpiredPlayerData(retentionMillis, batchSize, batchDelayMillis, () -> purgeStopRequested).handle((purgeResult, throwable) -> {
+            purgeRunning.set(false);
+
+            if(throwable != null) {
+                logger.error(AdventureUtil.serialize("Failed to purge expired player data. Error: " + throwable.getMessage()));
+                return null;
+            }
+
+            if(purgeResult.rowsRemoved() == 0) return null;
+
+            logger.info(AdventureUtil.serialize("Purged the data of " + purgeResult.rowsRemoved() + " players whose perks expired, reclaiming "
+                    + purgeResult.bytesReclaimed() + " bytes in " + (System.currentTimeMillis() - start) + "ms."));
+            return null;
+        });
+    }
 }
@@ -19,33 +19,45 @@ package com.github.lukesky19.newPlayerPerks.manager.config;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
 import com.github.lukesky19.newPlayerPerks.data.Locale;
+import com.github.lukesky19.newPlayerPerks.data.LocaleBundle;
+import com.github.lukesky19.newPlayerPerks.data.LocaleTemplates;
 import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.util.DurationFormatter;
+import com.github.lukesky19.newPlayerPerks.util.MessageTemplate;
+import com.github.lukesky19.newPlayerPerks.util.TimestampFormatter;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
-import com.github.lukesky19.skylib.api.time.Time;
-import com.github.lukesky19.skylib.api.time.TimeUtil;
 import com.github.lukesky19.skylib.libs.configurate.CommentedConfigurationNode;
 import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
 import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * This class manages the plugin's locale configuration.
  */
 public class LocaleManager {
+    private static final @NotNull List<String> PLACEHOLDERS = List.of("player_name", "expire_time", "remaining_time", "duration", "players", "online", "failed");
     private final @NotNull NewPlayerPerks newPlayerPerks;
     private final @NotNull SettingsManager settingsManager;
     private final @NotNull Locale DEFAULT_LOCALE = new Locale(
-            "1.1.0.0",
+            "1.2.0.0",
             "<aqua><bold>NewPlayerPerks</bold></aqua><gray> ▪ </gray>",
             List.of(
                     "<aqua>NewPlayerPerks is developed by <white><bold>lukeskywlker19</bold></white>.</aqua>",
@@ -54,10 +66,14 @@ public class LocaleManager {
                     "<green><bold>List of Commands:</bold></green>",
                     "<white>/</white><aqua>newplayerperks</aqua> <yellow>help</yellow>",
                     "<white>/</white><aqua>newplayerperks</aqua> <yellow>enable</yellow>",
-                    "<white>/</white><aqua>skyprestige</aqua> <yellow>disable</yellow>",
-                    "<white>/</white><aqua>skyprestige</aqua> <yellow>reload</yellow>",
-                    "<white>/</white><aqua>skyprestige</aqua> <yellow>add <player_name></yellow>",
-                    "<white>/</white><aqua>skyprestige</aqua> <yellow>remove <player_name></yellow>"),
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>disable</yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>reload</yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>add <player_name></yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>remove <player_name></yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>extend <player_name> <duration></yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>info <player_name></yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>batch <add|remove> players <targets></yellow>",
+                    "<white>/</white><aqua>newplayerperks</aqua> <yellow>batch <add|remove> file <file_name></yellow>"),
             "<green>Configuration files have been reloaded.</green>",
             "<green>Perks have been successfully added to this player.</green>",
             "<green>Perks have been successfully removed from this player.</green>",
@@ -81,6 +97,18 @@ public class LocaleManager {
             List.of(
                     "<red>Your invulnerability, keep inventory, void teleport perks have expired!</red>",
                     "<red>You can now take damage, die, and you won't be teleported to your island if you fall into the void!</red>"),
+            "<gray>Your perks expire in</gray> <remaining_time>",
+            List.of(
+                    "<yellow>Your perks expire in <remaining_time> at <expire_time>.</yellow>"),
+            "<green>The perks of player <player_name> have been extended by <duration>.</green>",
+            "<green>The perks of player <player_name> have been shortened by <duration>.</green>",
+            "<red>Unable to process your request due to an invalid duration.</red>",
+            "<red>Unable to process your request because player data couldn't be saved. Try again later.</red>",
+            "<green>Perks have been added to <players> players. <online> online players had their perks enabled right away and <failed> failed.</green>",
+            "<green>Perks have been removed from <players> players. <online> online players had their perks disabled right away and <failed> failed.</green>",
+            "<red>Unable to process your request because the batch file couldn't be read.</red>",
+            "<green>The perks of player <player_name> expire at <expire_time>. Remaining time: <remaining_time></green>",
+            "<yellow>The perks of player <player_name> expired at <expire_time>.</yellow>",
             new Locale.TimeMessage(
                     "",
                     "<yellow><years></yellow> year(s)",
@@ -92,6 +120,9 @@ public class LocaleManager {
                     "<yellow><seconds></yellow> second(s)",
                     "."));
     private @Nullable Locale locale;
+    private @NotNull LocaleBundle defaultBundle;
+    private @NotNull Map<String, LocaleBundle> bundles = Map.of();
+    private final @NotNull ConcurrentHashMap<UUID, LocaleBundle> playerBundles = new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -101,6 +132,7 @@ public class LocaleManager {
     public LocaleManager(@NotNull NewPlayerPerks newPlayerPerks, @NotNull SettingsManager settingsManager) {
         this.newPlayerPerks = newPlayerPerks;
         this.settingsManager = settingsManager;
+        this.defaultBundle = compileBundle(DEFAULT_LOCALE);
     }
 
     /**
@@ -114,9 +146,130 @@ public class LocaleManager {
     }
 
     /**
-     * Reloads the plugin's locale.
+     * Get the plugin's {@link LocaleTemplates}, which are parsed from the {@link Locale} returned by {@link #getLocale()} on reload.
+     * @return The {@link LocaleTemplates}.
+     */
+    public @NotNull LocaleTemplates getTemplates() {
+        return defaultBundle.templates();
+    }
+
+    /**
+     * Get the {@link LocaleTemplates} to send a player messages with.
+     * @param player The {@link Player} or null for the console.
+     * @return The {@link LocaleTemplates}.
+     */
+    public @NotNull LocaleTemplates getTemplates(@Nullable Player player) {
+        return getBundle(player).templates();
+    }
+
+    /**
+     * Get the {@link LocaleBundle} for a player.
+     * If client locales are enabled, the player's client locale is resolved to a bundle the first time and cached until they quit or the plugin is reloaded.
+     * The bundle matching the client's language and country is used first, then one matching only its language, then the locale configured in settings.yml.
+     * @param player The {@link Player} or null for the console.
+     * @return The {@link LocaleBundle}.
+     */
+    public @NotNull LocaleBundle getBundle(@Nullable Player player) {
+        if(player == null || bundles.isEmpty()) return defaultBundle;
+        // Not cached for players that already quit, as nothing would remove the entry.
+        if(!player.isOnline()) return resolveBundle(player.locale());
+
+        return playerBundles.computeIfAbsent(player.getUniqueId(), uuid -> resolveBundle(player.locale()));
+    }
+
+    /**
+     * Forgets the {@link LocaleBundle} cached for a player.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public void clearBundle(@NotNull UUID uuid) {
+        playerBundles.remove(uuid);
+    }
+
+    /**
+     * Reloads the plugin's locales and parses their messages into {@link MessageTemplate}s and a {@link DurationFormatter}.
      */
     public void reload() {
+        loadLocale();
+
+        defaultBundle = compileBundle(getLocale());
+        bundles = settingsManager.isClientLocales() ? loadBundles() : Map.of();
+        playerBundles.clear();
+    }
+
+    /**
+     * Resolves a client's locale to a {@link LocaleBundle}, falling back from the exact locale to the language to the default bundle.
+     * @param clientLocale The client's {@link java.util.Locale}.
+     * @return The {@link LocaleBundle}.
+     */
+    private @NotNull LocaleBundle resolveBundle(@NotNull java.util.Locale clientLocale) {
+        LocaleBundle bundle = bundles.get(clientLocale.toString().toLowerCase(java.util.Locale.ROOT));
+        if(bundle != null) return bundle;
+
+        return bundles.getOrDefault(clientLocale.getLanguage().toLowerCase(java.util.Locale.ROOT), defaultBundle);
+    }
+
+    /**
+     * Loads every locale file in the locale folder into a {@link LocaleBundle}.
+     * Each bundle is mapped by its file name, e.g., de_de, and by its language, e.g., de, preferring the locale configured in settings.yml for its language.
+     * @return A {@link Map} mapping lowercase locale names and languages to {@link LocaleBundle}s.
+     */
+    private @NotNull Map<String, LocaleBundle> loadBundles() {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+        Path folder = newPlayerPerks.getDataFolder().toPath().resolve("locale");
+        Settings settings = settingsManager.getSettings();
+        String configuredName = settings != null && settings.locale() != null ? settings.locale().toLowerCase(java.util.Locale.ROOT) : null;
+
+        List<Path> paths;
+        try(Stream<Path> stream = Files.list(folder)) {
+            paths = stream.filter(path -> path.getFileName().toString().endsWith(".yml")).sorted().toList();
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to list the locale files. Only the locale configured in settings.yml will be used. Error: " + e.getMessage()));
+            return Map.of();
+        }
+
+        Map<String, LocaleBundle> bundles = new HashMap<>();
+        if(configuredName != null) {
+            bundles.put(configuredName, defaultBundle);
+            bundles.put(getLanguage(configuredName), defaultBundle);
+        }
+
+        for(Path path : paths) {
+            String fileName = path.getFileName().toString();
+            String name = fileName.substring(0, fileName.length() - ".yml".length()).toLowerCase(java.util.Locale.ROOT);
+            if(name.equals(configuredName)) continue;
+
+            Locale locale = loadLocaleFile(path);
+            if(locale == null) continue;
+
+            bundles.put(name, compileBundle(locale));
+        }
+
+        for(Path path : paths) {
+            String fileName = path.getFileName().toString();
+            String name = fileName.substring(0, fileName.length() - ".yml".length()).toLowerCase(java.util.Locale.ROOT);
+            LocaleBundle bundle = bundles.get(name);
+            if(bundle != null) bundles.putIfAbsent(getLanguage(name), bundle);
+        }
+
+        return Map.copyOf(bundles);
+    }
+
+    /**
+     * Gets the language of a lowercase locale name, e.g., de for de_de.
+     * @param name The lowercase locale name.
+     * @return The language.
+     */
+    private @NotNull String getLanguage(@NotNull String name) {
+        int separator = name.indexOf('_');
+        if(separator == -1) separator = name.indexOf('-');
+
+        return separator == -1 ? name : name.substring(0, separator);
+    }
+
+    /**
+     * Loads the plugin's locale from the locale file configured in settings.yml.
+     */
+    private void loadLocale() {
         ComponentLogger logger = newPlayerPerks.getComponentLogger();
         locale = null;
 
@@ -139,39 +292,126 @@ public class LocaleManager {
                         + File.separator
                         + settings.locale()
                         + ".yml");
+        locale = loadLocaleFile(path);
+    }
+
+    /**
+     * Loads a locale file, migrating it if needed.
+     * @param path The {@link Path} of the locale file.
+     * @return The {@link Locale} or null if it failed to load.
+     */
+    private @Nullable Locale loadLocaleFile(@NotNull Path path) {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
         YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
 
+        Locale locale;
         try {
             locale = loader.load().get(Locale.class);
         } catch (ConfigurateException e) {
-            logger.error(AdventureUtil.serialize("Failed to load the locale configuration. Error: " + e.getMessage()));
-            return;
+            logger.error(AdventureUtil.serialize("Failed to load the locale configuration " + path.getFileName() + ". Error: " + e.getMessage()));
+            return null;
         }
+        if(locale == null) return null;
 
-        migrateLocale();
+        return migrateLocale(path, locale);
     }
 
-    private void saveLocale() {
-        if(locale == null) return;
-        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+    /**
+     * Parses a {@link Locale} into a {@link LocaleBundle}.
+     * @param locale The {@link Locale} to parse.
+     * @return The {@link LocaleBundle}.
+     */
+    private @NotNull LocaleBundle compileBundle(@NotNull Locale locale) {
+        return new LocaleBundle(locale, compileTemplates(locale), DurationFormatter.compile(locale.timeMessage()));
+    }
 
-        Settings settings = settingsManager.getSettings();
-        if(settings == null) {
-            logger.error(AdventureUtil.serialize("Unable to save the plugin's locale due to invalid plugin settings. The default locale will be used."));
-            return;
-        }
-        if(settings.locale() == null) {
-            logger.error(AdventureUtil.serialize("Unable to save the plugin's locale due to a locale not being configured in settings.yml. The default locale will be used."));
-            return;
+    /**
+     * Parses each message in a {@link Locale} into a {@link MessageTemplate}.
+     * @param locale The {@link Locale} to parse.
+     * @return The {@link LocaleTemplates}.
+     */
+    private @NotNull LocaleTemplates compileTemplates(@NotNull Locale locale) {
+        String prefix = locale.prefix();
+
+        return new LocaleTemplates(
+                compileAll("", locale.help()),
+                compile(prefix, locale.reload()),
+                compile(prefix, locale.addedPerks()),
+                compile(prefix, locale.removedPerks()),
+                compile(prefix, locale.playerDataError()),
+                compile(prefix, locale.userError()),
+                compile(prefix, locale.settingsError()),
+                compile(prefix, locale.expiredError()),
+                compile(prefix, locale.enablePerksExpired()),
+                compile(prefix, locale.disablePerksExpired()),
+                compile(prefix, locale.disablePerksReload()),
+                compileAll(prefix, locale.perksAddedMessages()),
+                compileAll(prefix, locale.perksEnabledMessages()),
+                compileAll(prefix, locale.perksRemovedMessages()),
+                compileAll(prefix, locale.perksDisabledMessages()),
+                compileAll(prefix, locale.perksExpiredMessages()),
+                // Locale files written before the countdown was added don't have it.
+                compile("", Objects.requireNonNullElse(locale.countdown(), DEFAULT_LOCALE.countdown())),
+                // Locale files written before warnings were added don't have them.
+                compileAll(prefix, Objects.requireNonNullElse(locale.perksWarningMessages(), Objects.requireNonNull(DEFAULT_LOCALE.perksWarningMessages()))),
+                // Locale files written before the extend command was added don't have its messages.
+                compile(prefix, Objects.requireNonNullElse(locale.extendedPerks(), DEFAULT_LOCALE.extendedPerks())),
+                compile(prefix, Objects.requireNonNullElse(locale.shortenedPerks(), DEFAULT_LOCALE.shortenedPerks())),
+                compile(prefix, Objects.requireNonNullElse(locale.durationError(), DEFAULT_LOCALE.durationError())),
+                compile(prefix, Objects.requireNonNullElse(locale.storageError(), DEFAULT_LOCALE.storageError())),
+                // Locale files written before batches were added don't have their messages.
+                compile(prefix, Objects.requireNonNullElse(locale.batchAddedPerks(), DEFAULT_LOCALE.batchAddedPerks())),
+                compile(prefix, Objects.requireNonNullElse(locale.batchRemovedPerks(), DEFAULT_LOCALE.batchRemovedPerks())),
+                compile(prefix, Objects.requireNonNullElse(locale.batchFileError(), DEFAULT_LOCALE.batchFileError())),
+                // Locale files written before the info command was added don't have its messages.
+                compile(prefix, Objects.requireNonNullElse(locale.perksInfo(), DEFAULT_LOCALE.perksInfo())),
+                compile(prefix, Objects.requireNonNullElse(locale.perksInfoExpired(), DEFAULT_LOCALE.perksInfoExpired())),
+                new LocaleTemplates.Console(
+                        compile("", locale.addedPerks()),
+                        compile("", locale.removedPerks()),
+                        compile("", locale.playerDataError()),
+                        compile("", locale.userError()),
+                        compile("", locale.settingsError()),
+                        compile("", locale.expiredError()),
+                        compile("", Objects.requireNonNullElse(locale.extendedPerks(), DEFAULT_LOCALE.extendedPerks())),
+                        compile("", Objects.requireNonNullElse(locale.shortenedPerks(), DEFAULT_LOCALE.shortenedPerks())),
+                        compile("", Objects.requireNonNullElse(locale.durationError(), DEFAULT_LOCALE.durationError())),
+                        compile("", Objects.requireNonNullElse(locale.storageError(), DEFAULT_LOCALE.storageError())),
+                        compile("", Objects.requireNonNullElse(locale.batchAddedPerks(), DEFAULT_LOCALE.batchAddedPerks())),
+                        compile("", Objects.requireNonNullElse(locale.batchRemovedPerks(), DEFAULT_LOCALE.batchRemovedPerks())),
+                        compile("", Objects.requireNonNullElse(locale.batchFileError(), DEFAULT_LOCALE.batchFileError())),
+                        compile("", Objects.requireNonNullElse(locale.perksInfo(), DEFAULT_LOCALE.perksInfo())),
+                        compile("", Objects.requireNonNullElse(locale.perksInfoExpired(), DEFAULT_LOCALE.perksInfoExpired()))));
+    }
+
+    /**
+     * Parses a single locale message into a {@link MessageTemplate}.
+     * @param prefix The prefix to add before the message.
+     * @param message The message to parse.
+     * @return A {@link MessageTemplate}.
+     */
+    private @NotNull MessageTemplate compile(@Nullable String prefix, @Nullable String message) {
+        return MessageTemplate.compile(Objects.requireNonNullElse(prefix, "") + Objects.requireNonNullElse(message, ""), PLACEHOLDERS);
+    }
+
+    /**
+     * Parses a {@link List} of locale messages into {@link MessageTemplate}s.
+     * @param prefix The prefix to add before each message.
+     * @param messages The messages to parse.
+     * @return An unmodifiable {@link List} of {@link MessageTemplate}s.
+     */
+    private @NotNull List<MessageTemplate> compileAll(@Nullable String prefix, @NotNull List<String> messages) {
+        List<MessageTemplate> templates = new ArrayList<>(messages.size());
+        for(String message : messages) {
+            templates.add(compile(prefix, message));
         }
 
-        Path path = Path.of(
-                newPlayerPerks.getDataFolder()
-                        + File.separator
-                        + "locale"
-                        + File.separator
-                        + settings.locale()
-                        + ".yml");
+        return List.copyOf(templates);
+    }
+
+    private void saveLocale(@NotNull Path path, @NotNull Locale locale) {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+
         YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
         CommentedConfigurationNode node = loader.createNode();
 
@@ -184,31 +424,56 @@ public class LocaleManager {
         }
     }
 
-    private void migrateLocale() {
-        if(locale == null) return;
+    private @NotNull Locale migrateLocale(@NotNull Path path, @NotNull Locale locale) {
         ComponentLogger logger = newPlayerPerks.getComponentLogger();
 
         switch(locale.configVersion()) {
-            case "1.1.0.0" -> {
+            case "1.2.0.0" -> {
                 // Current version, do nothing
             }
 
+            case "1.1.0.0" -> {
+                locale = new Locale(
+                        "1.2.0.0",
+                        locale.prefix(),
+                        locale.help(),
+                        locale.reload(),
+                        locale.addedPerks(),
+                        locale.removedPerks(),
+                        locale.playerDataError(),
+                        locale.userError(),
+                        locale.settingsError(),
+                        locale.expiredError(),
+                        locale.enablePerksExpired(),
+                        locale.disablePerksExpired(),
+                        locale.disablePerksReload(),
+                        locale.perksAddedMessages(),
+                        locale.perksEnabledMessages(),
+                        locale.perksRemovedMessages(),
+                        locale.perksDisabledMessages(),
+                        locale.perksExpiredMessages(),
+                        DEFAULT_LOCALE.countdown(),
+                        DEFAULT_LOCALE.perksWarningMessages(),
+                        DEFAULT_LOCALE.extendedPerks(),
+                        DEFAULT_LOCALE.shortenedPerks(),
+                        DEFAULT_LOCALE.durationError(),
+                        DEFAULT_LOCALE.storageError(),
+                        DEFAULT_LOCALE.batchAddedPerks(),
+                        DEFAULT_LOCALE.batchRemovedPerks(),
+                        DEFAULT_LOCALE.batchFileError(),
+                        DEFAULT_LOCALE.perksInfo(),
+                        DEFAULT_LOCALE.perksInfoExpired(),
+                        locale.timeMessage());
+
+                saveLocale(path, locale);
+            }
+
             // 1.0.0.0
             case null -> {
                 locale = new Locale(
-                        "1.1.0.0",
+                        "1.2.0.0",
                         locale.prefix(),
-                        List.of(
-                                "<aqua>NewPlayerPerks is developed by <white><bold>lukeskywlker19</bold></white>.</aqua>",
-                                "<aqua>Source code is released on GitHub: <click:OPEN_URL:https://github.com/lukesky19><yellow><underlined><bold>https://github.com/lukesky19</bold></underlined></yellow></click></aqua>",
-                                " ",
-                                "<green><bold>List of Commands:</bold></green>",
-                                "<white>/</white><aqua>newplayerperks</aqua> <yellow>help</yellow>",
-                                "<white>/</white><aqua>newplayerperks</aqua> <yellow>enable</yellow>",
-                                "<white>/</white><aqua>skyprestige</aqua> <yellow>disable</yellow>",
-                                "<white>/</white><aqua>skyprestige</aqua> <yellow>reload</yellow>",
-                                "<white>/</white><aqua>skyprestige</aqua> <yellow>add <player_name></yellow>",
-                                "<white>/</white><aqua>skyprestige</aqua> <yellow>remove <player_name></yellow>"),
+                        DEFAULT_LOCALE.help(),
                         locale.reload(),
                         "<green>Perks have been successfully added to player <player_name></green>",
                         "<green>Perks have been successfully removed from player <player_name>.</green>",
@@ -232,6 +497,17 @@ public class LocaleManager {
                         List.of(
                                 "<red>Your invulnerability, keep inventory, void teleport perks have expired!</red>",
                                 "<red>You can now take damage, die, and you won't be teleported to your island if you fall into the void!</red>"),
+                        DEFAULT_LOCALE.countdown(),
+                        DEFAULT_LOCALE.perksWarningMessages(),
+                        DEFAULT_LOCALE.extendedPerks(),
+                        DEFAULT_LOCALE.shortenedPerks(),
+                        DEFAULT_LOCALE.durationError(),
+                        DEFAULT_LOCALE.storageError(),
+                        DEFAULT_LOCALE.batchAddedPerks(),
+                        DEFAULT_LOCALE.batchRemovedPerks(),
+                        DEFAULT_LOCALE.batchFileError(),
+                        DEFAULT_LOCALE.perksInfo(),
+                        DEFAULT_LOCALE.perksInfoExpired(),
                         new Locale.TimeMessage(
                                 "",
                                 "<yellow><years></yellow> year(s)",
@@ -243,11 +519,13 @@ public class LocaleManager {
                                 "<yellow><seconds></yellow> second(s)",
                                 "."));
 
-                saveLocale();
+                saveLocale(path, locale);
             }
 
-            default -> logger.error(AdventureUtil.serialize("Unable to migrate locale configuration due to an unrecognized config version."));
+            default -> logger.error(AdventureUtil.serialize("Unable to migrate locale configuration " + path.getFileName() + " due to an unrecognized config version."));
         }
+
+        return locale;
     }
 
     /**
@@ -261,101 +539,49 @@ public class LocaleManager {
     }
 
     /**
-     * Gets the time message to display.
-     * @param timeMilliseconds The time in milliseconds.
-     * @return A String containing the time message.
+     * Gets the timestamp to display to a player, such as when their perks expire.
+     * The player's own time zone from LuckPerms' meta and their client's language are used if enabled in settings.yml.
+     * @param epochMillis The timestamp in milliseconds since the epoch.
+     * @param player The {@link Player} the timestamp is displayed to, or null to use the configured time zone and default language.
+     * @return The formatted timestamp.
      */
-    @NotNull
-    public String getTimeMessage(long timeMilliseconds) {
-        Locale locale = this.getLocale();
-        Time timeRecord = TimeUtil.millisToTime(timeMilliseconds);
-
-        List<TagResolver.Single> placeholders = List.of(
-                Placeholder.parsed("years", String.valueOf(timeRecord.years())),
-                Placeholder.parsed("months", String.valueOf(timeRecord.months())),
-                Placeholder.parsed("weeks", String.valueOf(timeRecord.weeks())),
-                Placeholder.parsed("days", String.valueOf(timeRecord.days())),
-                Placeholder.parsed("hours", String.valueOf(timeRecord.hours())),
-                Placeholder.parsed("minutes", String.valueOf(timeRecord.minutes())),
-                Placeholder.parsed("seconds", String.valueOf(timeRecord.seconds())));
-
-        StringBuilder stringBuilder = getStringBuilder(locale, timeRecord);
-
-        return MiniMessage.miniMessage().serialize(AdventureUtil.serialize(stringBuilder.toString(), placeholders));
+    public @NotNull String getTimestamp(long epochMillis, @Nullable Player player) {
+        TimestampFormatter timestampFormatter = settingsManager.getTimestampFormatter();
+        if(player == null) return timestampFormatter.format(epochMillis);
+
+        return timestampFormatter.format(epochMillis, getTimeZone(player), player.locale());
     }
 
     /**
-     * Builds the string by populating any non-zero individual time units.
-     * @param locale The plugin's locale
-     * @param timeRecord The record containing the individual time units to display.
-     * @return A populated StringBuilder. May be empty if all time units were 0 and no suffix was configured.
+     * Gets a player's own time zone from LuckPerms' meta.
+     * @param player The {@link Player}.
+     * @return The time zone ID or null if the player has none or the meta key is disabled in settings.yml.
      */
-    private @NotNull StringBuilder getStringBuilder(Locale locale, Time timeRecord) {
-        Locale.TimeMessage timeMessage = locale.timeMessage();
-        StringBuilder stringBuilder = new StringBuilder();
+    private @Nullable String getTimeZone(@NotNull Player player) {
+        String metaKey = settingsManager.getTimestamp().timeZoneMetaKey();
+        if(metaKey == null || metaKey.isEmpty()) return null;
 
-        stringBuilder.append(timeMessage.prefix());
-
-        boolean isFirstUnit = true;
-
-        if(timeRecord.years() > 0) {
-            stringBuilder.append(timeMessage.years());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.months() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.months());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.weeks() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.weeks());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.days() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.days());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.hours() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.hours());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.minutes() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.minutes());
-            isFirstUnit = false;
-        }
-
-        if (timeRecord.seconds() > 0) {
-            if (!isFirstUnit) {
-                stringBuilder.append(" ");
-            }
-            stringBuilder.append(timeMessage.seconds());
-            isFirstUnit = false;
-        }
+        return newPlayerPerks.getLuckPermsAPI().getPlayerAdapter(Player.class).getMetaData(player).getMetaValue(metaKey);
+    }
 
-        if(isFirstUnit) {
-            stringBuilder.append(timeMessage.seconds());
-        }
+    /**
+     * Gets the time message to display.
+     * @param timeMilliseconds The time in milliseconds.
+     * @return A {@link Component} containing the time message.
+     */
+    @NotNull
+    public Component getTimeMessage(long timeMilliseconds) {
+        return defaultBundle.durationFormatter().format(timeMilliseconds);
+    }
 
-        stringBuilder.append(timeMessage.suffix());
-        return stringBuilder;
+    /**
+     * Gets the time message to display to a player, in their {@link LocaleBundle}.
+     * @param timeMilliseconds The time in milliseconds.
+     * @param player The {@link Player} or null for the console.
+     * @return A {@link Component} containing the time message.
+     */
+    @NotNull
+    public Component getTimeMessage(long timeMilliseconds, @Nullable Player player) {
+        return getBundle(player).durationFormatter().format(timeMilliseconds);
     }
 }
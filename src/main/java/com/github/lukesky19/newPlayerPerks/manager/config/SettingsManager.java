@@ -19,6 +19,13 @@ package com.github.lukesky19.newPlayerPerks.manager.config;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
 import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.manager.database.LaneLimit;
+import com.github.lukesky19.newPlayerPerks.manager.database.OverflowPolicy;
+import com.github.lukesky19.newPlayerPerks.manager.database.QueueLane;
+import com.github.lukesky19.newPlayerPerks.manager.storage.StorageType;
+import com.github.lukesky19.newPlayerPerks.util.CountdownDisplay;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import com.github.lukesky19.newPlayerPerks.util.TimestampFormatter;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
 import com.github.lukesky19.skylib.api.time.TimeUtil;
@@ -31,15 +38,43 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeSet;
 
 /**
  * This class manages the plugin's settings.
  */
 public class SettingsManager {
+    private static final @NotNull Settings.Timestamp DEFAULT_TIMESTAMP = new Settings.Timestamp("America/New_York", "MM-dd-yyyy HH:mm:ss z", false, "timezone");
+    private static final @NotNull Settings.Countdown DEFAULT_COUNTDOWN = new Settings.Countdown(false, "ACTION_BAR", 20);
+    private static final @NotNull List<String> DEFAULT_WARNINGS = List.of("1h", "10m", "1m");
+    private static final @NotNull Settings.Storage.GroupCommit DEFAULT_GROUP_COMMIT = new Settings.Storage.GroupCommit(5, 100);
+    private static final @NotNull Settings.Storage.Lanes DEFAULT_LANES = new Settings.Storage.Lanes(
+            new Settings.Storage.Lane(1000, "REJECT"),
+            new Settings.Storage.Lane(10000, "REJECT"),
+            new Settings.Storage.Lane(100, "REJECT"));
+    private static final @NotNull Settings.Storage.Resilience DEFAULT_RESILIENCE = new Settings.Storage.Resilience(5000L, 60000L, 3, 200L, 5, 30000L);
+    private static final @NotNull Settings.Storage.Retention DEFAULT_RETENTION = new Settings.Storage.Retention(false, "30d", "24h", 500, 100L);
+    private static final @NotNull Settings.Storage.Memory DEFAULT_MEMORY = new Settings.Storage.Memory("");
+    private static final @NotNull Settings.Storage.Log DEFAULT_LOG = new Settings.Storage.Log(5, 0.5);
+    private static final @NotNull Settings.Storage DEFAULT_STORAGE = new Settings.Storage("SQLITE", "localhost", 3306, "newplayerperks", "root", "", 10, null, DEFAULT_GROUP_COMMIT, DEFAULT_LANES, false, DEFAULT_RESILIENCE, DEFAULT_RETENTION, DEFAULT_MEMORY, DEFAULT_LOG, true);
     private final @NotNull NewPlayerPerks newPlayerPerks;
     private @Nullable Settings settings;
     private @Nullable Long period;
+    private long @NotNull [] warningMillis = new long[0];
+    private @NotNull PeriodMode periodMode = PeriodMode.REAL_TIME;
+    private @NotNull TimestampFormatter timestampFormatter = new TimestampFormatter(
+            DateTimeFormatter.ofPattern(Objects.requireNonNull(DEFAULT_TIMESTAMP.format())),
+            ZoneId.of(Objects.requireNonNull(DEFAULT_TIMESTAMP.timeZone())),
+            false);
 
     /**
      * Constructor
@@ -65,6 +100,331 @@ public class SettingsManager {
         return period;
     }
 
+    /**
+     * Get how the period that new player perks last for counts down.
+     * If no period mode is configured or the configured mode is invalid, {@link PeriodMode#REAL_TIME} is returned.
+     * @return The {@link PeriodMode}.
+     */
+    public @NotNull PeriodMode getPeriodMode() {
+        return periodMode;
+    }
+
+    /**
+     * Get how many milliseconds before their perks expire players are warned, from the earliest warning to the latest.
+     * The array is shared, so it must not be modified.
+     * @return An array of milliseconds in descending order. Empty if no warnings are configured.
+     */
+    public long @NotNull [] getWarningMillis() {
+        return warningMillis;
+    }
+
+    /**
+     * Checks if players should see messages from the locale file matching their client's language.
+     * @return true if client locales are enabled, otherwise false.
+     */
+    public boolean isClientLocales() {
+        return settings != null && Boolean.TRUE.equals(settings.clientLocales());
+    }
+
+    /**
+     * Get the {@link TimestampFormatter} compiled from the {@link Settings.Timestamp} configuration.
+     * @return The {@link TimestampFormatter}.
+     */
+    public @NotNull TimestampFormatter getTimestampFormatter() {
+        return timestampFormatter;
+    }
+
+    /**
+     * Get the {@link Settings.Timestamp} configuration with any missing values replaced by their defaults.
+     * @return The {@link Settings.Timestamp} configuration.
+     */
+    public @NotNull Settings.Timestamp getTimestamp() {
+        if(settings == null || settings.timestamp() == null) return DEFAULT_TIMESTAMP;
+        Settings.Timestamp timestamp = settings.timestamp();
+
+        return new Settings.Timestamp(
+                timestamp.timeZone() != null && !timestamp.timeZone().isBlank() ? timestamp.timeZone() : DEFAULT_TIMESTAMP.timeZone(),
+                timestamp.format() != null && !timestamp.format().isBlank() ? timestamp.format() : DEFAULT_TIMESTAMP.format(),
+                Objects.requireNonNullElse(timestamp.useClientLocale(), DEFAULT_TIMESTAMP.useClientLocale()),
+                Objects.requireNonNullElse(timestamp.timeZoneMetaKey(), ""));
+    }
+
+    /**
+     * Get the {@link Settings.Countdown} configuration with any missing or invalid values replaced by their defaults.
+     * @return The {@link Settings.Countdown} configuration.
+     */
+    public @NotNull Settings.Countdown getCountdown() {
+        if(settings == null || settings.countdown() == null) return DEFAULT_COUNTDOWN;
+        Settings.Countdown countdown = settings.countdown();
+
+        return new Settings.Countdown(
+                Boolean.TRUE.equals(countdown.enabled()),
+                countdown.display() != null ? countdown.display() : DEFAULT_COUNTDOWN.display(),
+                countdown.updateTicks() != null && countdown.updateTicks() > 0 ? countdown.updateTicks() : DEFAULT_COUNTDOWN.updateTicks());
+    }
+
+    /**
+     * Get the {@link Settings.Storage} configuration or the default configuration if none is configured.
+     * @return The {@link Settings.Storage} configuration.
+     */
+    public @NotNull Settings.Storage getStorage() {
+        if(settings == null || settings.storage() == null) return DEFAULT_STORAGE;
+
+        return settings.storage();
+    }
+
+    /**
+     * Get the maximum number of database connections to keep open.
+     * @return The connection pool size.
+     */
+    public int getPoolSize() {
+        return Math.max(1, Objects.requireNonNullElse(getStorage().poolSize(), 10));
+    }
+
+    /**
+     * Checks if database work should run on virtual threads.
+     * @return true if virtual threads should be used, false if platform threads should be used.
+     */
+    public boolean isVirtualThreads() {
+        return Boolean.TRUE.equals(getStorage().virtualThreads());
+    }
+
+    /**
+     * Checks if the warm-start snapshot of player data should be used.
+     * The snapshot is only used with SQLITE and H2, as a database shared with other servers may change while this server is offline.
+     * @return true if the snapshot should be used, otherwise false.
+     */
+    public boolean isSnapshotEnabled() {
+        StorageType storageType = getStorageType();
+        if(storageType != StorageType.SQLITE && storageType != StorageType.H2) return false;
+
+        return !Boolean.FALSE.equals(getStorage().snapshot());
+    }
+
+    /**
+     * Get the {@link Settings.Storage.GroupCommit} configuration with any missing or invalid values replaced by their defaults.
+     * @return The {@link Settings.Storage.GroupCommit} configuration.
+     */
+    public @NotNull Settings.Storage.GroupCommit getGroupCommit() {
+        Settings.Storage.GroupCommit groupCommit = getStorage().groupCommit();
+        if(groupCommit == null) return DEFAULT_GROUP_COMMIT;
+
+        Integer windowMillis = groupCommit.windowMillis();
+        if(windowMillis == null || windowMillis < 0) windowMillis = DEFAULT_GROUP_COMMIT.windowMillis();
+
+        Integer maxBatchSize = groupCommit.maxBatchSize();
+        if(maxBatchSize == null || maxBatchSize < 1) maxBatchSize = DEFAULT_GROUP_COMMIT.maxBatchSize();
+
+        return new Settings.Storage.GroupCommit(windowMillis, maxBatchSize);
+    }
+
+    /**
+     * Get the {@link Settings.Storage.Resilience} configuration with any missing or invalid values replaced by their defaults.
+     * @return The {@link Settings.Storage.Resilience} configuration.
+     */
+    public @NotNull Settings.Storage.Resilience getResilience() {
+        Settings.Storage.Resilience resilience = getStorage().resilience();
+        if(resilience == null) return DEFAULT_RESILIENCE;
+
+        return new Settings.Storage.Resilience(
+                positiveOrDefault(resilience.timeoutMillis(), DEFAULT_RESILIENCE.timeoutMillis()),
+                positiveOrDefault(resilience.bulkTimeoutMillis(), DEFAULT_RESILIENCE.bulkTimeoutMillis()),
+                resilience.maxAttempts() != null && resilience.maxAttempts() > 0 ? resilience.maxAttempts() : DEFAULT_RESILIENCE.maxAttempts(),
+                resilience.backoffMillis() != null && resilience.backoffMillis() >= 0 ? resilience.backoffMillis() : DEFAULT_RESILIENCE.backoffMillis(),
+                resilience.failureThreshold() != null && resilience.failureThreshold() > 0 ? resilience.failureThreshold() : DEFAULT_RESILIENCE.failureThreshold(),
+                positiveOrDefault(resilience.cooldownMillis(), DEFAULT_RESILIENCE.cooldownMillis()));
+    }
+
+    /**
+     * Get the {@link Settings.Storage.Retention} configuration with any missing or invalid values replaced by their defaults.
+     * @return The {@link Settings.Storage.Retention} configuration.
+     */
+    public @NotNull Settings.Storage.Retention getRetention() {
+        Settings.Storage.Retention retention = getStorage().retention();
+        if(retention == null) return DEFAULT_RETENTION;
+
+        return new Settings.Storage.Retention(
+                Objects.requireNonNullElse(retention.enabled(), DEFAULT_RETENTION.enabled()),
+                retention.keepExpiredFor() != null && !retention.keepExpiredFor().isBlank() ? retention.keepExpiredFor() : DEFAULT_RETENTION.keepExpiredFor(),
+                retention.interval() != null && !retention.interval().isBlank() ? retention.interval() : DEFAULT_RETENTION.interval(),
+                retention.batchSize() != null && retention.batchSize() > 0 ? retention.batchSize() : DEFAULT_RETENTION.batchSize(),
+                retention.batchDelayMillis() != null && retention.batchDelayMillis() >= 0 ? retention.batchDelayMillis() : DEFAULT_RETENTION.batchDelayMillis());
+    }
+
+    /**
+     * Get the {@link LaneLimit} of every {@link QueueLane} with any missing or invalid values replaced by their defaults.
+     * @return A {@link Map} mapping each {@link QueueLane} to its {@link LaneLimit}.
+     */
+    public @NotNull Map<QueueLane, LaneLimit> getLaneLimits() {
+        Settings.Storage.Lanes lanes = Objects.requireNonNullElse(getStorage().lanes(), DEFAULT_LANES);
+
+        Map<QueueLane, LaneLimit> laneLimits = new EnumMap<>(QueueLane.class);
+        laneLimits.put(QueueLane.INTERACTIVE, getLaneLimit(QueueLane.INTERACTIVE, lanes.interactive(), DEFAULT_LANES.interactive()));
+        laneLimits.put(QueueLane.WRITE, getLaneLimit(QueueLane.WRITE, lanes.write(), DEFAULT_LANES.write()));
+        laneLimits.put(QueueLane.BULK, getLaneLimit(QueueLane.BULK, lanes.bulk(), DEFAULT_LANES.bulk()));
+
+        return laneLimits;
+    }
+
+    /**
+     * Get the {@link Settings.Storage.Memory} configuration or the default configuration if none is configured.
+     * @return The {@link Settings.Storage.Memory} configuration.
+     */
+    public @NotNull Settings.Storage.Memory getMemory() {
+        return Objects.requireNonNullElse(getStorage().memory(), DEFAULT_MEMORY);
+    }
+
+    /**
+     * Get the {@link Settings.Storage.Log} configuration with any missing or invalid values replaced by their defaults.
+     * @return The {@link Settings.Storage.Log} configuration.
+     */
+    public @NotNull Settings.Storage.Log getLog() {
+        Settings.Storage.Log log = getStorage().log();
+        if(log == null) return DEFAULT_LOG;
+
+        return new Settings.Storage.Log(
+                log.flushWindowMillis() != null && log.flushWindowMillis() >= 0 ? log.flushWindowMillis() : DEFAULT_LOG.flushWindowMillis(),
+                log.compactionThreshold() != null && log.compactionThreshold() > 0 && log.compactionThreshold() < 1 ? log.compactionThreshold() : DEFAULT_LOG.compactionThreshold());
+    }
+
+    /**
+     * Get the {@link CountdownDisplay} configured in settings.yml.
+     * If the configured display is invalid, {@link CountdownDisplay#ACTION_BAR} is returned.
+     * @return The {@link CountdownDisplay}.
+     */
+    public @NotNull CountdownDisplay getCountdownDisplay() {
+        String display = Objects.requireNonNull(getCountdown().display());
+
+        try {
+            return CountdownDisplay.valueOf(display.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            newPlayerPerks.getComponentLogger().error(AdventureUtil.serialize("Unknown countdown display " + display + " in settings.yml. ACTION_BAR will be used instead."));
+            return CountdownDisplay.ACTION_BAR;
+        }
+    }
+
+    /**
+     * Get the {@link StorageType} configured in settings.yml.
+     * If no storage type is configured or the configured type is invalid, {@link StorageType#SQLITE} is returned.
+     * @return The {@link StorageType}.
+     */
+    public @NotNull StorageType getStorageType() {
+        String type = getStorage().type();
+        if(type == null) return StorageType.SQLITE;
+
+        try {
+            return StorageType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            newPlayerPerks.getComponentLogger().error(AdventureUtil.serialize("Unknown storage type " + type + " in settings.yml. SQLITE will be used instead."));
+            return StorageType.SQLITE;
+        }
+    }
+
+    /**
+     * Converts a {@link Settings.Storage.Lane} configuration to a {@link LaneLimit}, falling back to the default configuration for missing or invalid values.
+     * @param queueLane The {@link QueueLane} being configured. Used in error messages.
+     * @param lane The configured {@link Settings.Storage.Lane} or null.
+     * @param defaultLane The default {@link Settings.Storage.Lane}.
+     * @return The {@link LaneLimit}.
+     */
+    private @NotNull LaneLimit getLaneLimit(@NotNull QueueLane queueLane, @Nullable Settings.Storage.Lane lane, @NotNull Settings.Storage.Lane defaultLane) {
+        int maxDepth = Objects.requireNonNull(defaultLane.maxDepth());
+        OverflowPolicy overflowPolicy = OverflowPolicy.valueOf(defaultLane.overflowPolicy());
+        if(lane == null) return new LaneLimit(maxDepth, overflowPolicy);
+
+        if(lane.maxDepth() != null && lane.maxDepth() > 0) maxDepth = lane.maxDepth();
+
+        if(lane.overflowPolicy() != null) {
+            try {
+                overflowPolicy = OverflowPolicy.valueOf(lane.overflowPolicy().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                newPlayerPerks.getComponentLogger().error(AdventureUtil.serialize("Unknown overflow policy " + lane.overflowPolicy() + " for the " + queueLane + " lane in settings.yml. " + overflowPolicy + " will be used instead."));
+            }
+        }
+
+        return new LaneLimit(maxDepth, overflowPolicy);
+    }
+
+    /**
+     * Compiles the {@link Settings.Timestamp} configuration into a {@link TimestampFormatter}, falling back to the default configuration for an invalid time zone or format.
+     * @return A {@link TimestampFormatter}.
+     */
+    private @NotNull TimestampFormatter createTimestampFormatter() {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+        Settings.Timestamp timestamp = getTimestamp();
+
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(Objects.requireNonNull(timestamp.timeZone()));
+        } catch (DateTimeException e) {
+            logger.error(AdventureUtil.serialize("Unknown time zone " + timestamp.timeZone() + " in settings.yml. " + DEFAULT_TIMESTAMP.timeZone() + " will be used instead."));
+            zone = ZoneId.of(Objects.requireNonNull(DEFAULT_TIMESTAMP.timeZone()));
+        }
+
+        DateTimeFormatter formatter;
+        try {
+            formatter = DateTimeFormatter.ofPattern(Objects.requireNonNull(timestamp.format()));
+        } catch (IllegalArgumentException e) {
+            logger.error(AdventureUtil.serialize("Invalid timestamp format in settings.yml. The default format will be used instead. Error: " + e.getMessage()));
+            formatter = DateTimeFormatter.ofPattern(Objects.requireNonNull(DEFAULT_TIMESTAMP.format()));
+        }
+
+        return new TimestampFormatter(formatter, zone, Boolean.TRUE.equals(timestamp.useClientLocale()));
+    }
+
+    /**
+     * Parses the period mode in settings.yml.
+     * @return The {@link PeriodMode} or {@link PeriodMode#REAL_TIME} if none is configured or the configured mode is invalid.
+     */
+    private @NotNull PeriodMode parsePeriodMode() {
+        if(settings == null || settings.periodMode() == null) return PeriodMode.REAL_TIME;
+
+        try {
+            return PeriodMode.valueOf(settings.periodMode().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            newPlayerPerks.getComponentLogger().error(AdventureUtil.serialize("Unknown period mode " + settings.periodMode() + " in settings.yml. REAL_TIME will be used instead."));
+            return PeriodMode.REAL_TIME;
+        }
+    }
+
+    /**
+     * Parses the warnings in settings.yml into milliseconds, skipping any that are invalid.
+     * @return An array of distinct milliseconds in descending order.
+     */
+    private long @NotNull [] parseWarnings() {
+        ComponentLogger logger = newPlayerPerks.getComponentLogger();
+        List<String> warnings = settings != null && settings.warnings() != null ? settings.warnings() : DEFAULT_WARNINGS;
+
+        TreeSet<Long> millis = new TreeSet<>(Comparator.reverseOrder());
+        for(String warning : warnings) {
+            try {
+                long warningMillis = TimeUtil.stringToMillis(warning);
+                if(warningMillis <= 0) {
+                    logger.error(AdventureUtil.serialize("Skipping the warning " + warning + " in settings.yml as it must be longer than 0 seconds."));
+                    continue;
+                }
+
+                millis.add(warningMillis);
+            } catch (RuntimeException e) {
+                logger.error(AdventureUtil.serialize("Skipping the invalid warning " + warning + " in settings.yml. Error: " + e.getMessage()));
+            }
+        }
+
+        return millis.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Get the value provided if it is positive, otherwise the default value.
+     * @param value The configured value or null.
+     * @param defaultValue The default value.
+     * @return The value to use.
+     */
+    private @NotNull Long positiveOrDefault(@Nullable Long value, @NotNull Long defaultValue) {
+        if(value == null || value <= 0) return defaultValue;
+
+        return value;
+    }
+
     /**
      * Reloads the plugin's settings.
      */
@@ -86,6 +446,10 @@ public class SettingsManager {
 
         migrateSettings();
 
+        timestampFormatter = createTimestampFormatter();
+        warningMillis = parseWarnings();
+        periodMode = parsePeriodMode();
+
         if(settings == null) return;
         if(settings.period() == null) return;
 
@@ -99,14 +463,21 @@ public class SettingsManager {
         if(settings == null) return;
 
         switch(settings.configVersion()) {
-            case "1.1.0.0" -> {
+            case "1.2.0.0" -> {
                 // Current version, do nothing
             }
 
+            case "1.1.0.0" -> {
+                // 1.1.0.0 -> 1.2.0.0
+                settings = new Settings("1.2.0.0", settings.locale(), false, settings.invulnerable(), null, settings.essentialsFly(), settings.islandFly(), settings.keepInventory(), settings.keepExp(), settings.voidTeleport(), settings.period(), PeriodMode.REAL_TIME.name(), DEFAULT_TIMESTAMP, DEFAULT_COUNTDOWN, DEFAULT_WARNINGS, DEFAULT_STORAGE);
+
+                saveSettings();
+            }
+
             case null -> {
-                // 1.0.0.0 -> 1.1.0.0
+                // 1.0.0.0 -> 1.2.0.0
                 boolean flySetting = Objects.requireNonNullElse(settings.fly(), false);
-                settings = new Settings("1.1.0.0", settings.locale(), settings.invulnerable(), null, flySetting, flySetting, settings.keepInventory(), settings.keepExp(), settings.voidTeleport(), settings.period());
+                settings = new Settings("1.2.0.0", settings.locale(), false, settings.invulnerable(), null, flySetting, flySetting, settings.keepInventory(), settings.keepExp(), settings.voidTeleport(), settings.period(), PeriodMode.REAL_TIME.name(), DEFAULT_TIMESTAMP, DEFAULT_COUNTDOWN, DEFAULT_WARNINGS, DEFAULT_STORAGE);
 
                 saveSettings();
             }
@@ -18,18 +18,28 @@
 package com.github.lukesky19.newPlayerPerks.manager.database;
 
 import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.manager.config.SettingsManager;
+import com.github.lukesky19.newPlayerPerks.manager.storage.StorageType;
 import com.github.lukesky19.skylib.api.database.connection.AbstractConnectionManager;
 import com.github.lukesky19.skylib.libs.hikaricp.HikariConfig;
 import com.github.lukesky19.skylib.libs.hikaricp.HikariDataSource;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
 
 /**
  * This class manages connections to the database.
  */
 public class ConnectionManager extends AbstractConnectionManager {
+    // Not initialized in the declaration as the data source is created while the super constructor runs.
+    private @Nullable HikariDataSource hikariDataSource;
+
     /**
      * Constructor
      * @param newPlayerPerks A {@link NewPlayerPerks} instance.
@@ -38,21 +48,95 @@ public class ConnectionManager extends AbstractConnectionManager {
         super(newPlayerPerks);
     }
 
+    /**
+     * Opens a {@link Connection} from the connection pool. The caller is responsible for closing it.
+     * @return A {@link Connection}.
+     * @throws SQLException if the connection pool has not been created or a connection couldn't be obtained.
+     */
+    public @NotNull Connection openConnection() throws SQLException {
+        if(hikariDataSource == null) throw new SQLException("The connection pool has not been created.");
+
+        return hikariDataSource.getConnection();
+    }
+
+    /**
+     * Closes the connection pool. Connections that are still open are closed once they are returned to the pool.
+     */
+    public void close() {
+        if(hikariDataSource != null) hikariDataSource.close();
+    }
+
     /**
      * Creates the required {@link HikariConfig} to access the database and returns the {@link HikariDataSource}.
+     * The database that is connected to is based on the storage configuration in settings.yml.
      * @param plugin The {@link Plugin} implementing and making use of this class.
      * @return A {@link HikariDataSource} object.
      */
     @Override
     protected @NotNull HikariDataSource createHikariDataSource(@NotNull Plugin plugin) {
+        SettingsManager settingsManager = ((NewPlayerPerks) plugin).getSettingsManager();
+        StorageType storageType = settingsManager.getStorageType();
+        Settings.Storage storage = settingsManager.getStorage();
+
+        // The H2, MariaDB, and PostgreSQL drivers are loaded by this plugin's class loader, so they need to be visible to HikariCP.
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(plugin.getClass().getClassLoader());
+
         try {
             HikariConfig config = new HikariConfig();
-            config.setJdbcUrl("jdbc:sqlite:" + plugin.getDataFolder().getAbsolutePath() + File.separator + "database.db");
+            config.setPoolName("NewPlayerPerks");
             config.setAutoCommit(true);
-            return new HikariDataSource(config);
+
+            switch(storageType) {
+                case SQLITE -> {
+                    config.setJdbcUrl("jdbc:sqlite:" + plugin.getDataFolder().getAbsolutePath() + File.separator + "database.db");
+                    // Only takes effect on a new database, so expired rows can later be vacuumed a few pages at a time. Existing databases are converted by the first purge.
+                    config.setConnectionInitSql("PRAGMA auto_vacuum = INCREMENTAL");
+                }
+
+                case H2 -> {
+                    String url = "jdbc:h2:file:" + plugin.getDataFolder().getAbsolutePath() + File.separator + "database";
+                    String compatibilityMode = storage.compatibilityMode();
+                    if(compatibilityMode != null && !compatibilityMode.isBlank()) {
+                        url += ";MODE=" + compatibilityMode + ";DATABASE_TO_LOWER=TRUE";
+                    }
+
+                    config.setDriverClassName("org.h2.Driver");
+                    config.setJdbcUrl(url);
+                }
+
+                case MYSQL -> {
+                    config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+                    config.setJdbcUrl("jdbc:mysql://" + storage.host() + ":" + Objects.requireNonNullElse(storage.port(), 3306) + "/" + storage.database());
+                }
+
+                case MARIADB -> {
+                    config.setDriverClassName("org.mariadb.jdbc.Driver");
+                    config.setJdbcUrl("jdbc:mariadb://" + storage.host() + ":" + Objects.requireNonNullElse(storage.port(), 3306) + "/" + storage.database());
+                }
+
+                case POSTGRESQL -> {
+                    config.setDriverClassName("org.postgresql.Driver");
+                    config.setJdbcUrl("jdbc:postgresql://" + storage.host() + ":" + Objects.requireNonNullElse(storage.port(), 5432) + "/" + storage.database());
+                }
+            }
+
+            if(storageType != StorageType.SQLITE) {
+                if(storage.username() != null) config.setUsername(storage.username());
+                if(storage.password() != null) config.setPassword(storage.password());
+            }
+
+            // Applied to every storage type so the pool always matches the concurrency limit of the queue manager.
+            config.setMaximumPoolSize(settingsManager.getPoolSize());
+
+            hikariDataSource = new HikariDataSource(config);
+            return hikariDataSource;
         } catch (RuntimeException e) {
             System.out.println(e.getMessage());
             throw new RuntimeException(e);
+        } finally {
+            currentThread.setContextClassLoader(previousClassLoader);
         }
     }
 }
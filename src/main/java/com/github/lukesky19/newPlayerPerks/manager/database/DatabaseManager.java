@@ -17,26 +17,86 @@
 */
 package com.github.lukesky19.newPlayerPerks.manager.database;
 
+import com.github.lukesky19.newPlayerPerks.NewPlayerPerks;
+import com.github.lukesky19.newPlayerPerks.manager.database.migration.SchemaMigrator;
+import com.github.lukesky19.newPlayerPerks.manager.database.tables.MetadataTable;
 import com.github.lukesky19.newPlayerPerks.manager.database.tables.PlayerDataTable;
-import com.github.lukesky19.skylib.api.database.AbstractDatabaseManager;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class manages access to the database table classes.
  */
-public class DatabaseManager extends AbstractDatabaseManager {
+public class DatabaseManager {
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull ConnectionManager connectionManager;
+    private final @NotNull QueueManager queueManager;
     private final @NotNull PlayerDataTable playerDataTable;
+    private final @NotNull CompletableFuture<Void> schemaMigrationFuture;
 
     /**
      * Constructor
+     * Starts migrating the database's tables to the current schema version.
+     * @param newPlayerPerks A {@link NewPlayerPerks} instance.
      * @param connectionManager Α {@link ConnectionManager} instance.
      * @param queueManager A {@link QueueManager} instance.
+     * @param sqlDialect The {@link SqlDialect} of the database being connected to.
+     */
+    public DatabaseManager(
+            @NotNull NewPlayerPerks newPlayerPerks,
+            @NotNull ConnectionManager connectionManager,
+            @NotNull QueueManager queueManager,
+            @NotNull SqlDialect sqlDialect) {
+        this.logger = newPlayerPerks.getComponentLogger();
+        this.connectionManager = connectionManager;
+        this.queueManager = queueManager;
+
+        MetadataTable metadataTable = new MetadataTable();
+        playerDataTable = new PlayerDataTable(queueManager, sqlDialect, metadataTable);
+
+        SchemaMigrator schemaMigrator = new SchemaMigrator(logger, queueManager, sqlDialect);
+        schemaMigrationFuture = schemaMigrator.migrate(metadataTable.getTableName(), metadataTable.getSchemaMigrations())
+                .thenCompose(version -> schemaMigrator.migrate(playerDataTable.getTableName(), playerDataTable.getSchemaMigrations()))
+                .whenComplete((version, throwable) -> {
+                    if(throwable != null) {
+                        logger.error(AdventureUtil.serialize("Failed to migrate the database schema. No player data will be loaded. Error: " + throwable.getMessage()));
+                    }
+                })
+                .thenRun(() -> {});
+    }
+
+    /**
+     * Get the {@link CompletableFuture} that completes once all tables have been migrated to the current schema version.
+     * Completes exceptionally if a migration failed.
+     * @return A {@link CompletableFuture} of type {@link Void}.
      */
-    public DatabaseManager(@NotNull ConnectionManager connectionManager, @NotNull QueueManager queueManager) {
-        super(connectionManager, queueManager);
+    public @NotNull CompletableFuture<Void> getSchemaMigrationFuture() {
+        return schemaMigrationFuture;
+    }
+
+    /**
+     * Closes the database after all queued transactions have been run and logs the batch sizes group commit achieved and the wait times of each queue lane.
+     */
+    public void handlePluginDisable() {
+        queueManager.shutdownTransactions();
+
+        GroupCommitStats groupCommitStats = queueManager.getGroupCommitStats();
+        if(groupCommitStats.transactions() > 0) {
+            logger.info(AdventureUtil.serialize(String.format("Group commit saved %d writes in %d transactions (average batch size %.1f, largest %d).",
+                    groupCommitStats.writes(), groupCommitStats.transactions(), groupCommitStats.averageBatchSize(), groupCommitStats.largestBatch())));
+        }
+
+        for(LaneStats laneStats : queueManager.getLaneStats()) {
+            if(laneStats.tasks() == 0 && laneStats.rejected() == 0) continue;
+
+            logger.info(AdventureUtil.serialize(String.format("%s lane ran %d tasks (average wait %.2fms, longest %.2fms) and rejected %d.",
+                    laneStats.lane(), laneStats.tasks(), laneStats.averageWaitMillis(), laneStats.maxWaitMillis(), laneStats.rejected())));
+        }
 
-        playerDataTable = new PlayerDataTable(queueManager);
-        playerDataTable.createTable();
+        connectionManager.close();
     }
 
     /**
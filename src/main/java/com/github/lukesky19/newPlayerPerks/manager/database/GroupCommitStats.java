@@ -0,0 +1,36 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+/**
+ * This record contains the batch sizes achieved by group commit since the plugin was enabled.
+ * @param transactions The number of transactions that grouped writes were committed in.
+ * @param writes The number of writes committed in those transactions.
+ * @param largestBatch The largest number of writes committed in one transaction.
+ */
+public record GroupCommitStats(long transactions, long writes, int largestBatch) {
+    /**
+     * Get the average number of writes committed per transaction.
+     * @return The average batch size or 0 if nothing has been committed.
+     */
+    public double averageBatchSize() {
+        if(transactions == 0) return 0;
+
+        return (double) writes / transactions;
+    }
+}
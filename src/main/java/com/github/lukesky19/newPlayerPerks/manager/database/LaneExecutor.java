@@ -0,0 +1,463 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * This class runs tasks queued in bounded {@link QueueLane}s on either a fixed number of platform threads or on virtual threads.
+ * Whenever a thread is free it takes the oldest task from the highest priority lane that has work.
+ * In virtual thread mode, a dispatcher starts one virtual thread per task and a {@link Semaphore} limits how many run at once.
+ */
+public class LaneExecutor {
+    // How long a caller may wait for room in a lane using the BLOCK overflow policy.
+    static final long BLOCK_TIMEOUT_MILLIS = 1000;
+
+    private final @NotNull ReentrantLock lock = new ReentrantLock();
+    private final @NotNull Condition workAvailable = lock.newCondition();
+    private final @NotNull Condition spaceAvailable = lock.newCondition();
+    private final @NotNull Condition terminated = lock.newCondition();
+    private final @NotNull EnumMap<QueueLane, Lane> lanes = new EnumMap<>(QueueLane.class);
+    private final @NotNull List<Thread> workers = new ArrayList<>();
+    private final @Nullable Semaphore taskPermits;
+    private final int maxConcurrency;
+    private final @Nullable ThreadFactory taskThreadFactory;
+    private final @NotNull Set<Thread> activeTaskThreads = ConcurrentHashMap.newKeySet();
+    private int runningWorkers;
+    private boolean shutdown = false;
+
+    /**
+     * Constructor
+     * Starts the executor's platform threads.
+     * @param threadFactory The {@link ThreadFactory} to create the executor's threads with.
+     * @param threads The number of threads to run tasks on.
+     * @param servedLanes The {@link Set} of {@link QueueLane}s this executor accepts tasks for.
+     * @param laneLimits The {@link Map} mapping each {@link QueueLane} to its {@link LaneLimit}.
+     */
+    public LaneExecutor(@NotNull ThreadFactory threadFactory, int threads, @NotNull Set<QueueLane> servedLanes, @NotNull Map<QueueLane, LaneLimit> laneLimits) {
+        this(servedLanes, laneLimits, null, threads, null);
+
+        startWorkers(threadFactory, threads, this::runWorker);
+    }
+
+    /**
+     * Constructor
+     * Starts the executor's dispatcher. Each task is run on its own virtual thread.
+     * @param name The name prefix of the executor's virtual threads.
+     * @param maxConcurrency The maximum number of tasks to run at once. Should not exceed the database connection pool size.
+     * @param servedLanes The {@link Set} of {@link QueueLane}s this executor accepts tasks for.
+     * @param laneLimits The {@link Map} mapping each {@link QueueLane} to its {@link LaneLimit}.
+     */
+    public LaneExecutor(@NotNull String name, int maxConcurrency, @NotNull Set<QueueLane> servedLanes, @NotNull Map<QueueLane, LaneLimit> laneLimits) {
+        this(servedLanes, laneLimits, new Semaphore(maxConcurrency), maxConcurrency, Thread.ofVirtual().name(name + "-", 0).factory());
+
+        startWorkers(Thread.ofVirtual().name(name + "-Dispatcher").factory(), 1, this::runDispatcher);
+    }
+
+    /**
+     * Constructor
+     * Creates the executor's lanes without starting any threads.
+     * @param servedLanes The {@link Set} of {@link QueueLane}s this executor accepts tasks for.
+     * @param laneLimits The {@link Map} mapping each {@link QueueLane} to its {@link LaneLimit}.
+     * @param taskPermits The {@link Semaphore} that limits how many virtual threads run at once or null when using platform threads.
+     * @param maxConcurrency The maximum number of tasks to run at once.
+     * @param taskThreadFactory The {@link ThreadFactory} that creates a virtual thread per task or null when using platform threads.
+     */
+    private LaneExecutor(
+            @NotNull Set<QueueLane> servedLanes,
+            @NotNull Map<QueueLane, LaneLimit> laneLimits,
+            @Nullable Semaphore taskPermits,
+            int maxConcurrency,
+            @Nullable ThreadFactory taskThreadFactory) {
+        this.taskPermits = taskPermits;
+        this.maxConcurrency = maxConcurrency;
+        this.taskThreadFactory = taskThreadFactory;
+
+        for(QueueLane queueLane : servedLanes) {
+            lanes.put(queueLane, new Lane(laneLimits.get(queueLane)));
+        }
+    }
+
+    /**
+     * Queues a task in the {@link QueueLane} provided.
+     * If the lane is full, its {@link OverflowPolicy} is applied.
+     * @param queueLane The {@link QueueLane} to queue the task in. Must be a lane this executor serves.
+     * @param supplier The task to run.
+     * @return A {@link CompletableFuture} containing the task's result.
+     * Completes exceptionally with a {@link RejectedExecutionException} if the task was rejected or discarded.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> submit(@NotNull QueueLane queueLane, @NotNull Supplier<T> supplier) {
+        return submit(queueLane, supplier, true);
+    }
+
+    /**
+     * Queues a task in the {@link QueueLane} provided.
+     * If the lane is full, its {@link OverflowPolicy} is applied.
+     * @param queueLane The {@link QueueLane} to queue the task in. Must be a lane this executor serves.
+     * @param supplier The task to run.
+     * @param callerMayBlock Whether the calling thread may wait for room in a lane using {@link OverflowPolicy#BLOCK}.
+     * This executor's own threads never wait, as they could be waiting on themselves.
+     * @return A {@link CompletableFuture} containing the task's result.
+     * Completes exceptionally with a {@link RejectedExecutionException} if the task was rejected or discarded.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> submit(@NotNull QueueLane queueLane, @NotNull Supplier<T> supplier, boolean callerMayBlock) {
+        Lane lane = lanes.get(queueLane);
+        if(lane == null) throw new IllegalArgumentException("This executor does not serve the " + queueLane + " lane.");
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        QueuedTask queuedTask = new QueuedTask(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (CompletionException e) {
+                future.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, future, System.nanoTime());
+
+        lock.lock();
+        try {
+            if(shutdown) return rejected(lane, future, queueLane + " lane rejected a task because the executor has been shut down.");
+
+            if(lane.queue.size() >= lane.limit.maxDepth()) {
+                switch(lane.limit.overflowPolicy()) {
+                    case REJECT -> {
+                        return rejected(lane, future, queueLane + " lane is full.");
+                    }
+
+                    case DISCARD_OLDEST -> {
+                        QueuedTask oldest = lane.queue.poll();
+                        if(oldest != null) {
+                            lane.rejected++;
+                            oldest.future.completeExceptionally(new RejectedExecutionException(queueLane + " lane discarded a task to make room for a newer one."));
+                        }
+                    }
+
+                    case BLOCK -> {
+                        if(!callerMayBlock || isExecutorThread()) return rejected(lane, future, queueLane + " lane is full.");
+
+                        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS);
+                        try {
+                            while(lane.queue.size() >= lane.limit.maxDepth() && !shutdown) {
+                                if(remainingNanos <= 0) return rejected(lane, future, queueLane + " lane is still full after waiting " + BLOCK_TIMEOUT_MILLIS + "ms.");
+
+                                remainingNanos = spaceAvailable.awaitNanos(remainingNanos);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return rejected(lane, future, queueLane + " lane rejected a task because the caller was interrupted while waiting.");
+                        }
+
+                        if(shutdown) return rejected(lane, future, queueLane + " lane rejected a task because the executor has been shut down.");
+                    }
+                }
+            }
+
+            lane.queue.add(queuedTask);
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        return future;
+    }
+
+    /**
+     * Checks if the current thread is one of this executor's threads, i.e., a worker, the dispatcher or a running task.
+     * Callbacks of a task's future usually run on the thread that ran the task.
+     * @return true if the current thread belongs to this executor, otherwise false.
+     */
+    public boolean isExecutorThread() {
+        Thread currentThread = Thread.currentThread();
+
+        return workers.contains(currentThread) || activeTaskThreads.contains(currentThread);
+    }
+
+    /**
+     * Get the queue metrics of the {@link QueueLane} provided.
+     * @param queueLane The {@link QueueLane}.
+     * @return The {@link LaneStats} or null if this executor doesn't serve the lane.
+     */
+    public @Nullable LaneStats getStats(@NotNull QueueLane queueLane) {
+        lock.lock();
+        try {
+            Lane lane = lanes.get(queueLane);
+            if(lane == null) return null;
+
+            return new LaneStats(queueLane, lane.tasks, lane.rejected, lane.totalWaitNanos, lane.maxWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of tasks waiting in the {@link QueueLane} provided.
+     * @param queueLane The {@link QueueLane}.
+     * @return The number of queued tasks or 0 if this executor doesn't serve the lane.
+     */
+    public int getDepth(@NotNull QueueLane queueLane) {
+        lock.lock();
+        try {
+            Lane lane = lanes.get(queueLane);
+            if(lane == null) return 0;
+
+            return lane.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks that are already queued are still run.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting new tasks, fails every queued task and interrupts the running ones.
+     */
+    public void shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            for(Lane lane : lanes.values()) {
+                QueuedTask queuedTask;
+                while((queuedTask = lane.queue.poll()) != null) {
+                    queuedTask.future.completeExceptionally(new RejectedExecutionException("The executor was shut down before the task could run."));
+                }
+            }
+
+            workAvailable.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        workers.forEach(Thread::interrupt);
+        activeTaskThreads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Waits for every thread to finish after {@link #shutdown()} was called.
+     * @param timeout The maximum time to wait.
+     * @param unit The {@link TimeUnit} of the timeout.
+     * @return true if every thread finished, false if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+
+        lock.lock();
+        try {
+            while(runningWorkers > 0) {
+                if(remainingNanos <= 0) return false;
+                remainingNanos = terminated.awaitNanos(remainingNanos);
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts the threads that take tasks off the lanes.
+     * @param threadFactory The {@link ThreadFactory} to create the threads with.
+     * @param threads The number of threads to start.
+     * @param loop The loop each thread runs.
+     */
+    private void startWorkers(@NotNull ThreadFactory threadFactory, int threads, @NotNull Runnable loop) {
+        runningWorkers = threads;
+        for(int i = 0; i < threads; i++) {
+            Thread worker = threadFactory.newThread(() -> {
+                try {
+                    loop.run();
+                } finally {
+                    lock.lock();
+                    try {
+                        runningWorkers--;
+                        terminated.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * The loop each of the executor's platform threads runs.
+     */
+    private void runWorker() {
+        QueuedTask queuedTask;
+        while((queuedTask = takeHighestPriority()) != null) {
+            queuedTask.task.run();
+        }
+    }
+
+    /**
+     * The loop the dispatcher runs in virtual thread mode.
+     * A permit is acquired before taking a task so the task that is started is the highest priority one at the time there is room for it.
+     */
+    private void runDispatcher() {
+        Semaphore permits = Objects.requireNonNull(taskPermits);
+        ThreadFactory threadFactory = Objects.requireNonNull(taskThreadFactory);
+
+        while(true) {
+            permits.acquireUninterruptibly();
+
+            QueuedTask queuedTask = takeHighestPriority();
+            if(queuedTask == null) {
+                permits.release();
+                break;
+            }
+
+            Thread taskThread = threadFactory.newThread(() -> {
+                try {
+                    queuedTask.task.run();
+                } finally {
+                    activeTaskThreads.remove(Thread.currentThread());
+                    permits.release();
+                }
+            });
+            activeTaskThreads.add(taskThread);
+            taskThread.start();
+        }
+
+        // Wait for the tasks that are still running so awaitTermination covers them too.
+        permits.acquireUninterruptibly(maxConcurrency);
+        permits.release(maxConcurrency);
+    }
+
+    /**
+     * Waits for and takes the oldest task from the highest priority lane with work.
+     * @return The {@link QueuedTask} or null if the executor was shut down and every lane is empty.
+     */
+    private @Nullable QueuedTask takeHighestPriority() {
+        lock.lock();
+        try {
+            QueuedTask queuedTask = pollHighestPriority();
+            while(queuedTask == null) {
+                if(shutdown) return null;
+
+                workAvailable.awaitUninterruptibly();
+                queuedTask = pollHighestPriority();
+            }
+
+            return queuedTask;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the oldest task from the highest priority lane with work and records how long it waited.
+     * Must be called while holding the lock.
+     * @return The {@link QueuedTask} or null if every lane is empty.
+     */
+    private @Nullable QueuedTask pollHighestPriority() {
+        for(Lane lane : lanes.values()) {
+            QueuedTask queuedTask = lane.queue.poll();
+            if(queuedTask == null) continue;
+
+            long waitNanos = System.nanoTime() - queuedTask.queuedAtNanos;
+            lane.tasks++;
+            lane.totalWaitNanos += waitNanos;
+            lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waitNanos);
+
+            spaceAvailable.signalAll();
+            return queuedTask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Counts a rejected task and fails its future.
+     * Must be called while holding the lock.
+     * @param lane The {@link Lane} that rejected the task.
+     * @param future The task's {@link CompletableFuture}.
+     * @param message The rejection message.
+     * @return The failed {@link CompletableFuture}.
+     * @param <T> The type of the task's result.
+     */
+    private <T> @NotNull CompletableFuture<T> rejected(@NotNull Lane lane, @NotNull CompletableFuture<T> future, @NotNull String message) {
+        lane.rejected++;
+        future.completeExceptionally(new RejectedExecutionException(message));
+        return future;
+    }
+
+    /**
+     * A task waiting in a lane.
+     * @param task The {@link Runnable} that runs the task and completes its future.
+     * @param future The task's {@link CompletableFuture}. Used to fail the task if it is discarded.
+     * @param queuedAtNanos The {@link System#nanoTime()} the task was queued at.
+     */
+    private record QueuedTask(@NotNull Runnable task, @NotNull CompletableFuture<?> future, long queuedAtNanos) {}
+
+    /**
+     * The queue and metrics of one {@link QueueLane}. Only accessed while holding the lock.
+     */
+    private static final class Lane {
+        private final @NotNull LaneLimit limit;
+        private final @NotNull ArrayDeque<QueuedTask> queue = new ArrayDeque<>();
+        private long tasks;
+        private long rejected;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        /**
+         * Constructor
+         * @param limit The lane's {@link LaneLimit}.
+         */
+        private Lane(@NotNull LaneLimit limit) {
+            this.limit = limit;
+        }
+    }
+}
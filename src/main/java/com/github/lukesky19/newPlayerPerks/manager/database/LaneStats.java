@@ -0,0 +1,48 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This record contains the queue metrics of a {@link QueueLane} since the plugin was enabled.
+ * @param lane The {@link QueueLane}.
+ * @param tasks The number of tasks that were taken off the queue to run.
+ * @param rejected The number of tasks that were rejected or discarded because the lane was full.
+ * @param totalWaitNanos The total nanoseconds tasks spent waiting in the queue.
+ * @param maxWaitNanos The longest nanoseconds a task spent waiting in the queue.
+ */
+public record LaneStats(@NotNull QueueLane lane, long tasks, long rejected, long totalWaitNanos, long maxWaitNanos) {
+    /**
+     * Get the average number of milliseconds tasks spent waiting in the queue.
+     * @return The average wait time in milliseconds or 0 if no tasks have run.
+     */
+    public double averageWaitMillis() {
+        if(tasks == 0) return 0;
+
+        return totalWaitNanos / 1_000_000.0 / tasks;
+    }
+
+    /**
+     * Get the longest number of milliseconds a task spent waiting in the queue.
+     * @return The longest wait time in milliseconds.
+     */
+    public double maxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+}
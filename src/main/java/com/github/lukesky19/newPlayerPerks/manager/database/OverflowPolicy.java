@@ -0,0 +1,37 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+/**
+ * What to do with new work when a {@link QueueLane} is already at its maximum depth.
+ */
+public enum OverflowPolicy {
+    /**
+     * Fail the new work immediately.
+     */
+    REJECT,
+    /**
+     * Fail the oldest queued work in the lane to make room for the new work.
+     */
+    DISCARD_OLDEST,
+    /**
+     * Wait up to one second for the lane to have room, then fail the new work.
+     * The server's main thread and the database threads never wait, so for them this is the same as {@link #REJECT}.
+     */
+    BLOCK
+}
@@ -0,0 +1,36 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+/**
+ * The priority lanes database work is queued in. Lanes are served in declaration order.
+ */
+public enum QueueLane {
+    /**
+     * Reads a player is waiting on, such as loading player data on join.
+     */
+    INTERACTIVE,
+    /**
+     * Writes for a single player.
+     */
+    WRITE,
+    /**
+     * Bulk saves, migrations and other background work.
+     */
+    BULK
+}
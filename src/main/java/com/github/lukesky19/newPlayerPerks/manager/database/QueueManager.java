@@ -17,18 +17,463 @@
 */
 package com.github.lukesky19.newPlayerPerks.manager.database;
 
-import com.github.lukesky19.skylib.api.database.queue.MultiThreadQueueManager;
 import org.jetbrains.annotations.NotNull;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
 /**
  * This class manages queuing reads and writes to the database.
+ * Work is queued in prioritized {@link QueueLane}s so that reads a player is waiting on are never stuck behind bulk work.
+ * It runs every task on its own {@link LaneExecutor}s, so it doesn't build on SkyLib's queue manager and its thread pool.
  */
-public class QueueManager extends MultiThreadQueueManager {
+public class QueueManager {
+    private final @NotNull ConnectionManager connectionManager;
+    // Writes are run by a single thread so that SQLite never has two writers competing for the database lock.
+    private final @NotNull LaneExecutor transactionExecutor;
+    private final @NotNull LaneExecutor readExecutor;
+    private final @NotNull LaneLimit writeLaneLimit;
+    private final @NotNull BooleanSupplier callerMayBlock;
+
+    private final int groupCommitWindowMillis;
+    private final int groupCommitMaxBatchSize;
+    private final @NotNull ArrayDeque<PendingWrite<?>> pendingWrites = new ArrayDeque<>();
+    private boolean groupCommitFlushScheduled = false;
+    private volatile boolean shutdown = false;
+
+    private final @NotNull AtomicLong groupCommitTransactions = new AtomicLong();
+    private final @NotNull AtomicLong groupCommitWrites = new AtomicLong();
+    private final @NotNull AtomicInteger groupCommitLargestBatch = new AtomicInteger();
+
     /**
      * Constructor
      * @param connectionManager A {@link ConnectionManager} instance.
+     * @param groupCommitWindowMillis How many milliseconds to wait for more grouped writes after the first one is queued.
+     * @param groupCommitMaxBatchSize The maximum number of grouped writes to commit in one transaction.
+     * @param laneLimits The {@link Map} mapping each {@link QueueLane} to its {@link LaneLimit}.
+     * @param virtualThreads Whether to run each task on its own virtual thread instead of a fixed pool of platform threads.
+     * @param poolSize The size of the database connection pool. Limits how many reads run at once.
+     * @param callerMayBlock Checks if the calling thread may wait for room in a lane using {@link OverflowPolicy#BLOCK}. Should be false on the server's main thread.
+     */
+    public QueueManager(
+            @NotNull ConnectionManager connectionManager,
+            int groupCommitWindowMillis,
+            int groupCommitMaxBatchSize,
+            @NotNull Map<QueueLane, LaneLimit> laneLimits,
+            boolean virtualThreads,
+            int poolSize,
+            @NotNull BooleanSupplier callerMayBlock) {
+        this.connectionManager = connectionManager;
+        this.groupCommitWindowMillis = groupCommitWindowMillis;
+        this.groupCommitMaxBatchSize = groupCommitMaxBatchSize;
+        this.writeLaneLimit = laneLimits.get(QueueLane.WRITE);
+        this.callerMayBlock = callerMayBlock;
+
+        Set<QueueLane> transactionLanes = EnumSet.of(QueueLane.WRITE, QueueLane.BULK);
+        Set<QueueLane> readLanes = EnumSet.of(QueueLane.INTERACTIVE, QueueLane.BULK);
+        // The writer holds one connection, so reads may use the rest of the pool.
+        int readConcurrency = Math.max(1, poolSize - 1);
+        if(virtualThreads) {
+            transactionExecutor = new LaneExecutor("NewPlayerPerks-Transactions", 1, transactionLanes, laneLimits);
+            readExecutor = new LaneExecutor("NewPlayerPerks-Reads", readConcurrency, readLanes, laneLimits);
+        } else {
+            transactionExecutor = new LaneExecutor(Thread.ofPlatform().name("NewPlayerPerks-Transactions").daemon(true).factory(),
+                    1, transactionLanes, laneLimits);
+            readExecutor = new LaneExecutor(Thread.ofPlatform().name("NewPlayerPerks-Reads-", 0).daemon(true).factory(),
+                    readConcurrency, readLanes, laneLimits);
+        }
+    }
+
+    /**
+     * Queues a {@link TransactionTask} in the {@link QueueLane#WRITE} lane that is run with its own {@link Connection} inside a single transaction.
+     * @param task The {@link TransactionTask} to run.
+     * @return A {@link CompletableFuture} containing the task's result. Completes exceptionally if the transaction was rolled back.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueTransaction(@NotNull TransactionTask<T> task) {
+        return queueTransaction(QueueLane.WRITE, task);
+    }
+
+    /**
+     * Queues a {@link TransactionTask} that is run with its own {@link Connection} inside a single transaction.
+     * @param queueLane The {@link QueueLane} to queue the transaction in. Either {@link QueueLane#WRITE} or {@link QueueLane#BULK}.
+     * @param task The {@link TransactionTask} to run.
+     * @return A {@link CompletableFuture} containing the task's result. Completes exceptionally if the transaction was rolled back or the lane was full.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueTransaction(@NotNull QueueLane queueLane, @NotNull TransactionTask<T> task) {
+        return transactionExecutor.submit(queueLane, () -> {
+            try(Connection connection = connectionManager.openConnection()) {
+                return runInTransaction(connection, task);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, mayBlock());
+    }
+
+    /**
+     * Queues a small {@link TransactionTask} that may share its transaction with other grouped writes.
+     * Writes queued within the group commit window, up to the maximum batch size, are committed together.
+     * If the shared transaction fails, each write is retried in its own transaction so one bad write can't fail the others.
+     * Grouped writes waiting for their window count towards the depth of the {@link QueueLane#WRITE} lane.
+     * @param task The {@link TransactionTask} to run. It may be run more than once if the shared transaction is rolled back.
+     * @return A {@link CompletableFuture} containing the task's result. Completes exceptionally if the task's transaction was rolled back.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueGroupedWrite(@NotNull TransactionTask<T> task) {
+        if(groupCommitMaxBatchSize <= 1) return queueTransaction(task);
+
+        PendingWrite<T> pendingWrite = new PendingWrite<>(task);
+        boolean flushNow;
+        boolean scheduleFlush;
+        synchronized(pendingWrites) {
+            // Checked while holding the lock so no write can be added after the final flush.
+            if(shutdown) return CompletableFuture.failedFuture(new RejectedExecutionException("The queue manager has been shut down."));
+
+            if(pendingWrites.size() >= writeLaneLimit.maxDepth()) {
+                switch(writeLaneLimit.overflowPolicy()) {
+                    case REJECT -> {
+                        return CompletableFuture.failedFuture(new RejectedExecutionException(QueueLane.WRITE + " lane is full."));
+                    }
+
+                    case DISCARD_OLDEST -> {
+                        PendingWrite<?> oldest = pendingWrites.poll();
+                        if(oldest != null) {
+                            oldest.future.completeExceptionally(new RejectedExecutionException(QueueLane.WRITE + " lane discarded a task to make room for a newer one."));
+                        }
+                    }
+
+                    case BLOCK -> {
+                        if(!mayBlock()) return CompletableFuture.failedFuture(new RejectedExecutionException(QueueLane.WRITE + " lane is full."));
+
+                        long deadline = System.currentTimeMillis() + LaneExecutor.BLOCK_TIMEOUT_MILLIS;
+                        while(pendingWrites.size() >= writeLaneLimit.maxDepth() && !shutdown) {
+                            long remainingMillis = deadline - System.currentTimeMillis();
+                            if(remainingMillis <= 0) {
+                                return CompletableFuture.failedFuture(new RejectedExecutionException(QueueLane.WRITE + " lane is still full after waiting " + LaneExecutor.BLOCK_TIMEOUT_MILLIS + "ms."));
+                            }
+
+                            try {
+                                pendingWrites.wait(remainingMillis);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return CompletableFuture.failedFuture(e);
+                            }
+                        }
+
+                        if(shutdown) return CompletableFuture.failedFuture(new RejectedExecutionException("The queue manager has been shut down."));
+                    }
+                }
+            }
+
+            pendingWrites.add(pendingWrite);
+
+            flushNow = pendingWrites.size() >= groupCommitMaxBatchSize;
+            scheduleFlush = !flushNow && !groupCommitFlushScheduled;
+            if(flushNow || scheduleFlush) groupCommitFlushScheduled = true;
+        }
+
+        if(flushNow) {
+            queueFlush();
+        } else if(scheduleFlush) {
+            CompletableFuture.delayedExecutor(groupCommitWindowMillis, TimeUnit.MILLISECONDS).execute(this::queueFlush);
+        }
+
+        return pendingWrite.future;
+    }
+
+    /**
+     * Queues a read-only {@link TransactionTask} in the {@link QueueLane#INTERACTIVE} lane that is run with its own {@link Connection}.
+     * Reads are run in parallel with each other and with writes.
+     * @param task The {@link TransactionTask} to run. Must not modify the database.
+     * @return A {@link CompletableFuture} containing the task's result.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueRead(@NotNull TransactionTask<T> task) {
+        return queueRead(QueueLane.INTERACTIVE, task);
+    }
+
+    /**
+     * Queues a read-only {@link TransactionTask} that is run with its own {@link Connection}.
+     * Reads are run in parallel with each other and with writes.
+     * @param queueLane The {@link QueueLane} to queue the read in. Either {@link QueueLane#INTERACTIVE} or {@link QueueLane#BULK}.
+     * @param task The {@link TransactionTask} to run. Must not modify the database.
+     * @return A {@link CompletableFuture} containing the task's result. Completes exceptionally if the lane was full.
+     * @param <T> The type of the task's result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueRead(@NotNull QueueLane queueLane, @NotNull TransactionTask<T> task) {
+        return readExecutor.submit(queueLane, () -> {
+            try(Connection connection = connectionManager.openConnection()) {
+                return task.run(connection);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, mayBlock());
+    }
+
+    /**
+     * Queues a {@link TransactionTask} in the {@link QueueLane#BULK} lane that is run on the transaction thread without a transaction.
+     * Used for maintenance statements such as VACUUM that can't run inside a transaction.
+     * @param task The {@link TransactionTask} to run.
+     * @return A {@link CompletableFuture} containing the task's result.
+     * @param <T> The type of the task's result.
      */
-    public QueueManager(@NotNull ConnectionManager connectionManager) {
-        super(connectionManager);
+    public <T> @NotNull CompletableFuture<T> queueMaintenance(@NotNull TransactionTask<T> task) {
+        return transactionExecutor.submit(QueueLane.BULK, () -> {
+            try(Connection connection = connectionManager.openConnection()) {
+                return task.run(connection);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, mayBlock());
+    }
+
+    /**
+     * Checks if there is no work a player may be waiting on, i.e., the {@link QueueLane#INTERACTIVE} and {@link QueueLane#WRITE} lanes are empty.
+     * Background work can use this to stay out of the way of joining players.
+     * @return true if no interactive reads or single writes are queued, otherwise false.
+     */
+    public boolean isPlayerWorkIdle() {
+        synchronized(pendingWrites) {
+            if(!pendingWrites.isEmpty()) return false;
+        }
+
+        return readExecutor.getDepth(QueueLane.INTERACTIVE) == 0 && transactionExecutor.getDepth(QueueLane.WRITE) == 0;
+    }
+
+    /**
+     * Get the batch sizes achieved by group commit so far.
+     * @return The {@link GroupCommitStats}.
+     */
+    public @NotNull GroupCommitStats getGroupCommitStats() {
+        return new GroupCommitStats(groupCommitTransactions.get(), groupCommitWrites.get(), groupCommitLargestBatch.get());
+    }
+
+    /**
+     * Get the queue metrics of every {@link QueueLane}.
+     * The {@link QueueLane#BULK} metrics combine bulk reads and bulk writes.
+     * @return A {@link List} of {@link LaneStats} in priority order.
+     */
+    public @NotNull List<LaneStats> getLaneStats() {
+        List<LaneStats> laneStats = new ArrayList<>();
+
+        for(QueueLane queueLane : QueueLane.values()) {
+            LaneStats transactionStats = transactionExecutor.getStats(queueLane);
+            LaneStats readStats = readExecutor.getStats(queueLane);
+
+            if(transactionStats == null && readStats == null) continue;
+            if(transactionStats == null) {
+                laneStats.add(readStats);
+            } else if(readStats == null) {
+                laneStats.add(transactionStats);
+            } else {
+                laneStats.add(new LaneStats(queueLane,
+                        transactionStats.tasks() + readStats.tasks(),
+                        transactionStats.rejected() + readStats.rejected(),
+                        transactionStats.totalWaitNanos() + readStats.totalWaitNanos(),
+                        Math.max(transactionStats.maxWaitNanos(), readStats.maxWaitNanos())));
+            }
+        }
+
+        return laneStats;
+    }
+
+    /**
+     * Stops accepting new reads and transactions and waits up to 30 seconds for the ones that are already queued to finish.
+     * Grouped writes still waiting for their window are committed once the transaction thread has stopped, or failed if it didn't stop in time.
+     * Must not be called from a task or a callback of a task run by this class.
+     */
+    public void shutdownTransactions() {
+        synchronized(pendingWrites) {
+            shutdown = true;
+            pendingWrites.notifyAll();
+        }
+
+        readExecutor.shutdown();
+        transactionExecutor.shutdown();
+
+        boolean transactionsTerminated = false;
+        try {
+            transactionsTerminated = transactionExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            if(!transactionsTerminated) transactionExecutor.shutdownNow();
+            if(!readExecutor.awaitTermination(5, TimeUnit.SECONDS)) readExecutor.shutdownNow();
+        } catch (InterruptedException e) {
+            transactionExecutor.shutdownNow();
+            readExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // No write can be added anymore, so this is the final flush. The transaction thread has stopped, so there is no other writer.
+        if(transactionsTerminated) {
+            flushPendingWrites();
+        } else {
+            failPendingWrites(new RejectedExecutionException("The queue manager was shut down before the write could be committed."));
+        }
+    }
+
+    /**
+     * Checks if the calling thread may wait for room in a lane. The database threads never wait, as the work they wait for may be queued behind them.
+     * @return true if the calling thread may wait, otherwise false.
+     */
+    private boolean mayBlock() {
+        return callerMayBlock.getAsBoolean() && !transactionExecutor.isExecutorThread() && !readExecutor.isExecutorThread();
+    }
+
+    /**
+     * Runs the {@link TransactionTask} on the {@link Connection} provided, committing on success and rolling back on failure.
+     * @param connection The {@link Connection} to use.
+     * @param task The {@link TransactionTask} to run.
+     * @return The task's result.
+     * @param <T> The type of the task's result.
+     * @throws SQLException if the task or the commit failed.
+     */
+    private <T> T runInTransaction(@NotNull Connection connection, @NotNull TransactionTask<T> task) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            T result = task.run(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Queues a flush of the pending grouped writes in the {@link QueueLane#WRITE} lane.
+     * If the flush can't be queued, the pending writes are failed so their callers aren't left waiting.
+     * After shutdown, they are left for the final flush instead.
+     */
+    private void queueFlush() {
+        transactionExecutor.submit(QueueLane.WRITE, () -> {
+            flushPendingWrites();
+            return null;
+        }, false).exceptionally(throwable -> {
+            if(!shutdown) failPendingWrites(throwable);
+            return null;
+        });
+    }
+
+    /**
+     * Commits every pending grouped write in transactions of up to the maximum batch size.
+     * Only run on the transaction thread, or once it has stopped.
+     */
+    private void flushPendingWrites() {
+        while(true) {
+            List<PendingWrite<?>> batch = new ArrayList<>();
+            synchronized(pendingWrites) {
+                while(!pendingWrites.isEmpty() && batch.size() < groupCommitMaxBatchSize) {
+                    batch.add(pendingWrites.poll());
+                }
+
+                if(batch.isEmpty()) {
+                    groupCommitFlushScheduled = false;
+                    return;
+                }
+
+                pendingWrites.notifyAll();
+            }
+
+            commitBatch(batch);
+        }
+    }
+
+    /**
+     * Fails every pending grouped write.
+     * @param throwable The {@link Throwable} to fail the writes with.
+     */
+    private void failPendingWrites(@NotNull Throwable throwable) {
+        List<PendingWrite<?>> failed;
+        synchronized(pendingWrites) {
+            failed = new ArrayList<>(pendingWrites);
+            pendingWrites.clear();
+            groupCommitFlushScheduled = false;
+            pendingWrites.notifyAll();
+        }
+
+        failed.forEach(pendingWrite -> pendingWrite.future.completeExceptionally(throwable));
+    }
+
+    /**
+     * Commits a batch of grouped writes in one transaction, falling back to one transaction per write if it fails.
+     * @param batch The {@link List} of {@link PendingWrite}s to commit.
+     */
+    private void commitBatch(@NotNull List<PendingWrite<?>> batch) {
+        try(Connection connection = connectionManager.openConnection()) {
+            runInTransaction(connection, transactionConnection -> {
+                for(PendingWrite<?> pendingWrite : batch) {
+                    pendingWrite.run(transactionConnection);
+                }
+
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            if(batch.size() == 1) {
+                batch.getFirst().future.completeExceptionally(e);
+                return;
+            }
+
+            for(PendingWrite<?> pendingWrite : batch) {
+                commitBatch(List.of(pendingWrite));
+            }
+            return;
+        }
+
+        groupCommitTransactions.incrementAndGet();
+        groupCommitWrites.addAndGet(batch.size());
+        groupCommitLargestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        batch.forEach(PendingWrite::complete);
+    }
+
+    /**
+     * A grouped write waiting to be committed.
+     * @param <T> The type of the write's result.
+     */
+    private static final class PendingWrite<T> {
+        private final @NotNull TransactionTask<T> task;
+        private final @NotNull CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        /**
+         * Constructor
+         * @param task The {@link TransactionTask} to run.
+         */
+        private PendingWrite(@NotNull TransactionTask<T> task) {
+            this.task = task;
+        }
+
+        /**
+         * Runs the write and keeps its result until the transaction is committed.
+         * @param connection The {@link Connection} of the shared transaction.
+         * @throws SQLException if the write failed.
+         */
+        private void run(@NotNull Connection connection) throws SQLException {
+            result = task.run(connection);
+        }
+
+        /**
+         * Completes the caller's future once the transaction is committed.
+         */
+        private void complete() {
+            future.complete(result);
+        }
     }
 }
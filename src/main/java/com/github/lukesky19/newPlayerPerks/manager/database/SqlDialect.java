@@ -0,0 +1,185 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+import com.github.lukesky19.newPlayerPerks.manager.storage.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This enum contains the SQL that differs between the supported databases.
+ */
+public enum SqlDialect {
+    /**
+     * SQLite. Uses INSERT ... ON CONFLICT DO UPDATE.
+     */
+    SQLITE,
+    /**
+     * MySQL 8.0.19 or newer. Uses INSERT ... AS new ON DUPLICATE KEY UPDATE.
+     */
+    MYSQL,
+    /**
+     * MariaDB, which doesn't support row aliases. Uses INSERT ... ON DUPLICATE KEY UPDATE with VALUES().
+     */
+    MARIADB,
+    /**
+     * PostgreSQL. Uses INSERT ... ON CONFLICT DO UPDATE.
+     */
+    POSTGRESQL,
+    /**
+     * H2. Uses the standard MERGE statement.
+     */
+    H2;
+
+    /**
+     * Get the {@link SqlDialect} to use for the {@link StorageType} provided.
+     * An H2 database running in MySQL or MariaDB compatibility mode uses the {@link #MARIADB} dialect so that SQL can be tested without a MySQL server.
+     * H2 does not support the row alias used by {@link #MYSQL}.
+     * H2 does not support ON CONFLICT DO UPDATE, so an H2 database running in PostgreSQL compatibility mode uses the {@link #H2} dialect.
+     * @param storageType The {@link StorageType}.
+     * @param compatibilityMode The H2 compatibility mode. May be null.
+     * @return The {@link SqlDialect}.
+     * @throws IllegalArgumentException if the {@link StorageType} doesn't use a SQL database.
+     */
+    public static @NotNull SqlDialect fromStorageType(@NotNull StorageType storageType, @Nullable String compatibilityMode) {
+        return switch(storageType) {
+            case SQLITE -> SQLITE;
+            case MYSQL -> MYSQL;
+            case MARIADB -> MARIADB;
+            case POSTGRESQL -> POSTGRESQL;
+            case H2 -> {
+                if(compatibilityMode == null) yield H2;
+
+                yield switch(compatibilityMode.toLowerCase(Locale.ROOT)) {
+                    case "mysql", "mariadb" -> MARIADB;
+                    default -> H2;
+                };
+            }
+            case MEMORY, LOG -> throw new IllegalArgumentException("The " + storageType + " storage type doesn't use a SQL database.");
+        };
+    }
+
+    /**
+     * Checks if DDL statements are part of the open transaction and are rolled back with it.
+     * MySQL and MariaDB commit DDL implicitly, and so does H2, which the {@link #MARIADB} dialect is also used for.
+     * @return true if DDL statements can be rolled back, otherwise false.
+     */
+    public boolean hasTransactionalDdl() {
+        return this == SQLITE || this == POSTGRESQL;
+    }
+
+    /**
+     * Get the SQL statements that create the version 1 schema of the player data table and any indexes if they don't exist.
+     * Later schema changes are applied through migrations, so this must not be changed.
+     * @param tableName The name of the table.
+     * @return A {@link List} of SQL statements.
+     */
+    public @NotNull List<String> getCreatePlayerDataTableSql(@NotNull String tableName) {
+        if(this == SQLITE) {
+            return List.of(
+                    "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                            "player_id LONG NOT NULL UNIQUE DEFAULT 0, " +
+                            "join_time LONG NOT NULL DEFAULT 0, " +
+                            "last_updated LONG NOT NULL DEFAULT 0)",
+                    "CREATE INDEX IF NOT EXISTS idx_" + tableName + "_player_ids ON " + tableName + "(player_id)");
+        }
+
+        // The primary key is already indexed, so no additional index is needed.
+        return List.of(
+                "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                        "player_id VARCHAR(36) NOT NULL PRIMARY KEY, " +
+                        "join_time BIGINT NOT NULL DEFAULT 0, " +
+                        "last_updated BIGINT NOT NULL DEFAULT 0)");
+    }
+
+    /**
+     * Get the SQL statement that creates the version 3 schema of the player data table, which is keyed on a 16-byte binary UUID.
+     * On SQLite, the table is created WITHOUT ROWID so the primary key is the table's only b-tree.
+     * Later schema changes are applied through migrations, so this must not be changed.
+     * @param tableName The name of the table.
+     * @return The SQL statement.
+     */
+    public @NotNull String getCreateBinaryKeyPlayerDataTableSql(@NotNull String tableName) {
+        return switch(this) {
+            case SQLITE -> "CREATE TABLE " + tableName + " (" +
+                    "player_id BLOB NOT NULL PRIMARY KEY, " +
+                    "join_time INTEGER NOT NULL DEFAULT 0, " +
+                    "expires_at INTEGER NOT NULL DEFAULT 0, " +
+                    "last_updated INTEGER NOT NULL DEFAULT 0) WITHOUT ROWID";
+
+            case MYSQL, MARIADB, H2 -> "CREATE TABLE " + tableName + " (" +
+                    "player_id BINARY(16) NOT NULL PRIMARY KEY, " +
+                    "join_time BIGINT NOT NULL DEFAULT 0, " +
+                    "expires_at BIGINT NOT NULL DEFAULT 0, " +
+                    "last_updated BIGINT NOT NULL DEFAULT 0)";
+
+            case POSTGRESQL -> "CREATE TABLE " + tableName + " (" +
+                    "player_id BYTEA NOT NULL PRIMARY KEY, " +
+                    "join_time BIGINT NOT NULL DEFAULT 0, " +
+                    "expires_at BIGINT NOT NULL DEFAULT 0, " +
+                    "last_updated BIGINT NOT NULL DEFAULT 0)";
+        };
+    }
+
+    /**
+     * Get the SQL statement that inserts a player's data or updates it if it already exists.
+     * Rows are only updated if the stored last_updated time is older than the one being written.
+     * The statement always takes five parameters in the order: player_id, join_time, playtime, expires_at, last_updated.
+     * @param tableName The name of the table.
+     * @return The SQL statement.
+     */
+    public @NotNull String getUpsertPlayerDataSql(@NotNull String tableName) {
+        return switch(this) {
+            case SQLITE, POSTGRESQL -> "INSERT INTO " + tableName + " (player_id, join_time, playtime, expires_at, last_updated) " +
+                    "VALUES (?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (player_id) DO UPDATE SET " +
+                    "join_time = excluded.join_time, playtime = excluded.playtime, expires_at = excluded.expires_at, last_updated = excluded.last_updated " +
+                    "WHERE " + tableName + ".last_updated < excluded.last_updated";
+
+            // MySQL applies assignments from left to right, so last_updated must be assigned last.
+            case MYSQL -> "INSERT INTO " + tableName + " (player_id, join_time, playtime, expires_at, last_updated) " +
+                    "VALUES (?, ?, ?, ?, ?) AS new " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "join_time = CASE WHEN " + tableName + ".last_updated < new.last_updated THEN new.join_time ELSE " + tableName + ".join_time END, " +
+                    "playtime = CASE WHEN " + tableName + ".last_updated < new.last_updated THEN new.playtime ELSE " + tableName + ".playtime END, " +
+                    "expires_at = CASE WHEN " + tableName + ".last_updated < new.last_updated THEN new.expires_at ELSE " + tableName + ".expires_at END, " +
+                    "last_updated = GREATEST(" + tableName + ".last_updated, new.last_updated)";
+
+            // MariaDB also applies assignments from left to right.
+            case MARIADB -> "INSERT INTO " + tableName + " (player_id, join_time, playtime, expires_at, last_updated) " +
+                    "VALUES (?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "join_time = CASE WHEN last_updated < VALUES(last_updated) THEN VALUES(join_time) ELSE join_time END, " +
+                    "playtime = CASE WHEN last_updated < VALUES(last_updated) THEN VALUES(playtime) ELSE playtime END, " +
+                    "expires_at = CASE WHEN last_updated < VALUES(last_updated) THEN VALUES(expires_at) ELSE expires_at END, " +
+                    "last_updated = GREATEST(last_updated, VALUES(last_updated))";
+
+            case H2 -> "MERGE INTO " + tableName + " USING " +
+                    "(VALUES (CAST(? AS BINARY(16)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) AS source (player_id, join_time, playtime, expires_at, last_updated) " +
+                    "ON " + tableName + ".player_id = source.player_id " +
+                    "WHEN MATCHED AND " + tableName + ".last_updated < source.last_updated THEN " +
+                    "UPDATE SET join_time = source.join_time, playtime = source.playtime, expires_at = source.expires_at, last_updated = source.last_updated " +
+                    "WHEN NOT MATCHED THEN " +
+                    "INSERT (player_id, join_time, playtime, expires_at, last_updated) VALUES (source.player_id, source.join_time, source.playtime, source.expires_at, source.last_updated)";
+        };
+    }
+}
@@ -0,0 +1,38 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A task that is run with a {@link Connection} inside a single transaction.
+ * @param <T> The type of the task's result.
+ */
+@FunctionalInterface
+public interface TransactionTask<T> {
+    /**
+     * Runs the task. The transaction is committed if the task returns normally and rolled back if it throws.
+     * @param connection The {@link Connection} to use. Do not commit, roll back, or close it.
+     * @return The task's result. May be null.
+     * @throws SQLException if a database error occurs.
+     */
+    T run(@NotNull Connection connection) throws SQLException;
+}
@@ -0,0 +1,120 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database.migration;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class contains methods to check which tables, columns, and indexes exist, so migrations can skip the steps that were already applied.
+ * Identifiers are matched case-insensitively, as databases differ in how they store unquoted identifiers.
+ */
+public final class SchemaInspector {
+    /**
+     * Default Constructor.
+     * This is a utility class and should not be constructed.
+     */
+    private SchemaInspector() {}
+
+    /**
+     * Checks if a table exists.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @return true if the table exists, otherwise false.
+     * @throws SQLException if the database's metadata couldn't be read.
+     */
+    public static boolean hasTable(@NotNull Connection connection, @NotNull String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        for(String name : getNameVariants(tableName)) {
+            try(ResultSet resultSet = metaData.getTables(connection.getCatalog(), null, name, null)) {
+                while(resultSet.next()) {
+                    if(tableName.equalsIgnoreCase(resultSet.getString("TABLE_NAME"))) return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a column exists in a table.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @param columnName The name of the column.
+     * @return true if the column exists, otherwise false.
+     * @throws SQLException if the database's metadata couldn't be read.
+     */
+    public static boolean hasColumn(@NotNull Connection connection, @NotNull String tableName, @NotNull String columnName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        for(String name : getNameVariants(tableName)) {
+            try(ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                while(resultSet.next()) {
+                    if(tableName.equalsIgnoreCase(resultSet.getString("TABLE_NAME")) && columnName.equalsIgnoreCase(resultSet.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if an index exists on a table.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @param indexName The name of the index.
+     * @return true if the index exists, otherwise false.
+     * @throws SQLException if the database's metadata couldn't be read.
+     */
+    public static boolean hasIndex(@NotNull Connection connection, @NotNull String tableName, @NotNull String indexName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        for(String name : getNameVariants(tableName)) {
+            // The table name of getIndexInfo is not a pattern, so each variant is looked up on its own.
+            try(ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, name, false, false)) {
+                while(resultSet.next()) {
+                    if(indexName.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the forms an unquoted identifier may be stored in: as written, in upper case, and in lower case.
+     * @param name The identifier.
+     * @return A {@link Set} of the identifier's variants.
+     */
+    private static @NotNull Set<String> getNameVariants(@NotNull String name) {
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(name);
+        variants.add(name.toUpperCase(Locale.ROOT));
+        variants.add(name.toLowerCase(Locale.ROOT));
+
+        return variants;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database.migration;
+
+import com.github.lukesky19.newPlayerPerks.manager.database.SqlDialect;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * This record contains a single versioned change to a table's schema.
+ * @param version The schema version the table is at after this migration is applied. Must be greater than 0 and unique per table.
+ * @param description A short description of what the migration changes. Used for logging.
+ * @param step The {@link Step} that applies the migration.
+ */
+public record SchemaMigration(int version, @NotNull String description, @NotNull Step step) {
+    /**
+     * Applies a migration using the {@link Connection} provided.
+     */
+    @FunctionalInterface
+    public interface Step {
+        /**
+         * Applies the migration. Do not commit, roll back, or close the {@link Connection}.
+         * @param connection The {@link Connection} to use.
+         * @param sqlDialect The {@link SqlDialect} of the database being migrated.
+         * @throws SQLException if the migration fails.
+         */
+        void apply(@NotNull Connection connection, @NotNull SqlDialect sqlDialect) throws SQLException;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database.migration;
+
+import com.github.lukesky19.newPlayerPerks.manager.database.QueueManager;
+import com.github.lukesky19.newPlayerPerks.manager.database.SqlDialect;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class tracks the schema version of each table and applies any pending {@link SchemaMigration}s in order.
+ */
+public class SchemaMigrator {
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull QueueManager queueManager;
+    private final @NotNull SqlDialect sqlDialect;
+    private final @NotNull String versionTableName = "newplayerperks_schema_version";
+
+    /**
+     * Constructor
+     * @param logger The plugin's {@link ComponentLogger}.
+     * @param queueManager A {@link QueueManager} instance.
+     * @param sqlDialect The {@link SqlDialect} of the database being migrated.
+     */
+    public SchemaMigrator(@NotNull ComponentLogger logger, @NotNull QueueManager queueManager, @NotNull SqlDialect sqlDialect) {
+        this.logger = logger;
+        this.queueManager = queueManager;
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * Applies every {@link SchemaMigration} with a version greater than the table's stored schema version.
+     * All pending migrations and the version update are run in one transaction, so either all of them are applied or none are.
+     * On databases that commit DDL statements implicitly, such as MySQL and MariaDB, that can't be guaranteed. There, the version is stored
+     * and committed after each migration, so a failure only leaves the failed migration to be run again. Migrations must be safely re-runnable.
+     * @param tableName The name of the table being migrated.
+     * @param migrations The {@link List} of {@link SchemaMigration}s for the table.
+     * @return A {@link CompletableFuture} containing the table's schema version after migrating.
+     */
+    public @NotNull CompletableFuture<Integer> migrate(@NotNull String tableName, @NotNull List<SchemaMigration> migrations) {
+        List<SchemaMigration> orderedMigrations = migrations.stream()
+                .sorted(Comparator.comparingInt(SchemaMigration::version))
+                .toList();
+
+        return queueManager.queueTransaction(connection -> {
+            createVersionTable(connection);
+
+            int currentVersion = getVersion(connection, tableName);
+            int storedVersion = currentVersion;
+            int newVersion = currentVersion;
+
+            for(SchemaMigration migration : orderedMigrations) {
+                if(migration.version() <= currentVersion) continue;
+
+                logger.info(AdventureUtil.serialize("Migrating table " + tableName + " to schema version " + migration.version() + ": " + migration.description()));
+                migration.step().apply(connection, sqlDialect);
+                newVersion = migration.version();
+
+                if(!sqlDialect.hasTransactionalDdl()) {
+                    setVersion(connection, tableName, storedVersion, newVersion);
+                    connection.commit();
+                    storedVersion = newVersion;
+                }
+            }
+
+            if(newVersion != storedVersion) {
+                setVersion(connection, tableName, storedVersion, newVersion);
+            }
+
+            return newVersion;
+        });
+    }
+
+    /**
+     * Creates the table that stores the schema version of each table if it doesn't exist.
+     * @param connection The {@link Connection} to use.
+     * @throws SQLException if the table couldn't be created.
+     */
+    private void createVersionTable(@NotNull Connection connection) throws SQLException {
+        try(Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + versionTableName + " (" +
+                    "table_name VARCHAR(64) NOT NULL PRIMARY KEY, " +
+                    "version INTEGER NOT NULL, " +
+                    "last_updated BIGINT NOT NULL)");
+        }
+    }
+
+    /**
+     * Get the stored schema version of a table.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @return The schema version or 0 if no version has been stored.
+     * @throws SQLException if the version couldn't be read.
+     */
+    private int getVersion(@NotNull Connection connection, @NotNull String tableName) throws SQLException {
+        try(PreparedStatement preparedStatement = connection.prepareStatement("SELECT version FROM " + versionTableName + " WHERE table_name = ?")) {
+            preparedStatement.setString(1, tableName);
+
+            try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                if(!resultSet.next()) return 0;
+
+                return resultSet.getInt("version");
+            }
+        }
+    }
+
+    /**
+     * Stores the schema version of a table.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @param oldVersion The previously stored version. 0 if no version was stored.
+     * @param newVersion The version to store.
+     * @throws SQLException if the version couldn't be stored.
+     */
+    private void setVersion(@NotNull Connection connection, @NotNull String tableName, int oldVersion, int newVersion) throws SQLException {
+        String sql = oldVersion == 0
+                ? "INSERT INTO " + versionTableName + " (version, last_updated, table_name) VALUES (?, ?, ?)"
+                : "UPDATE " + versionTableName + " SET version = ?, last_updated = ? WHERE table_name = ?";
+
+        try(PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, newVersion);
+            preparedStatement.setLong(2, System.currentTimeMillis());
+            preparedStatement.setString(3, tableName);
+            preparedStatement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.database.tables;
+
+import com.github.lukesky19.newPlayerPerks.manager.database.migration.SchemaMigration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * This class manages access to the metadata table in the database.
+ * The metadata table stores plugin-wide key/value pairs, such as the perk period the stored expiry times were calculated with.
+ * Its methods are meant to be used inside another table's transaction.
+ */
+public class MetadataTable {
+    private final @NotNull String tableName = "newplayerperks_metadata";
+
+    /**
+     * Constructor
+     */
+    public MetadataTable() {}
+
+    /**
+     * Get the name of the table.
+     * @return The name of the table.
+     */
+    public @NotNull String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Get the ordered {@link List} of {@link SchemaMigration}s that bring the table up to the current schema version.
+     * @return A {@link List} of {@link SchemaMigration}s.
+     */
+    public @NotNull List<SchemaMigration> getSchemaMigrations() {
+        return List.of(
+                new SchemaMigration(1, "Create the metadata table", (connection, dialect) -> {
+                    try(Statement statement = connection.createStatement()) {
+                        statement.execute("CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                                "meta_key VARCHAR(64) NOT NULL PRIMARY KEY, " +
+                                "meta_value VARCHAR(255) NOT NULL)");
+                    }
+                }));
+    }
+
+    /**
+     * Get the value stored for a key.
+     * @param connection The {@link Connection} to use.
+     * @param key The key.
+     * @return The stored value or null if none is stored.
+     * @throws SQLException if the value couldn't be read.
+     */
+    public @Nullable String getValue(@NotNull Connection connection, @NotNull String key) throws SQLException {
+        try(PreparedStatement preparedStatement = connection.prepareStatement("SELECT meta_value FROM " + tableName + " WHERE meta_key = ?")) {
+            preparedStatement.setString(1, key);
+
+            try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                if(!resultSet.next()) return null;
+
+                return resultSet.getString("meta_value");
+            }
+        }
+    }
+
+    /**
+     * Stores the value for a key, replacing any existing value.
+     * @param connection The {@link Connection} to use.
+     * @param key The key.
+     * @param value The value to store.
+     * @throws SQLException if the value couldn't be stored.
+     */
+    public void setValue(@NotNull Connection connection, @NotNull String key, @NotNull String value) throws SQLException {
+        try(PreparedStatement updateStatement = connection.prepareStatement("UPDATE " + tableName + " SET meta_value = ? WHERE meta_key = ?")) {
+            updateStatement.setString(1, value);
+            updateStatement.setString(2, key);
+            if(updateStatement.executeUpdate() > 0) return;
+        }
+
+        try(PreparedStatement insertStatement = connection.prepareStatement("INSERT INTO " + tableName + " (meta_key, meta_value) VALUES (?, ?)")) {
+            insertStatement.setString(1, key);
+            insertStatement.setString(2, value);
+            insertStatement.executeUpdate();
+        }
+    }
+}
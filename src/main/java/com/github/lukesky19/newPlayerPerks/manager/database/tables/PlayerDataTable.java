@@ -18,31 +18,54 @@
 package com.github.lukesky19.newPlayerPerks.manager.database.tables;
 
 import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.manager.database.QueueLane;
 import com.github.lukesky19.newPlayerPerks.manager.database.QueueManager;
-import com.github.lukesky19.skylib.api.database.parameter.Parameter;
-import com.github.lukesky19.skylib.api.database.parameter.impl.LongParameter;
-import com.github.lukesky19.skylib.api.database.parameter.impl.UUIDParameter;
+import com.github.lukesky19.newPlayerPerks.manager.database.SqlDialect;
+import com.github.lukesky19.newPlayerPerks.manager.database.migration.SchemaInspector;
+import com.github.lukesky19.newPlayerPerks.manager.database.migration.SchemaMigration;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import com.github.lukesky19.newPlayerPerks.util.UUIDUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * This class manages access to the player data table in the database.
  */
 public class PlayerDataTable {
     private final @NotNull QueueManager queueManager;
+    private final @NotNull SqlDialect sqlDialect;
+    private final @NotNull MetadataTable metadataTable;
     private final @NotNull String tableName = "newplayerperks_player_data";
+    private final @NotNull String periodMetadataKey = "player_data_period";
+    private final @NotNull String periodModeMetadataKey = "player_data_period_mode";
+    private final @NotNull String generationMetadataKey = "player_data_generation";
+    private final @NotNull String incrementalVacuumMetadataKey = "sqlite_incremental_vacuum";
+    // Stored as the expiry time of players whose perks only count down while they are online and have time left.
+    private final long pausedExpiresAt = Long.MAX_VALUE;
+    // The maximum number of free pages returned to the file system per maintenance task.
+    private final int vacuumPagesPerStep = 256;
+    private volatile long period = 0;
+    private volatile @NotNull PeriodMode periodMode = PeriodMode.REAL_TIME;
 
     /**
      * Default Constructor.
-     * You should use {@link #PlayerDataTable(QueueManager)} instead.
-     * @deprecated You should use {@link #PlayerDataTable(QueueManager)} instead.
+     * You should use {@link #PlayerDataTable(QueueManager, SqlDialect, MetadataTable)} instead.
+     * @deprecated You should use {@link #PlayerDataTable(QueueManager, SqlDialect, MetadataTable)} instead.
      */
     @Deprecated
     public PlayerDataTable() {
@@ -52,25 +75,219 @@ public class PlayerDataTable {
     /**
      * Constructor
      * @param queueManager A {@link QueueManager} instance.
+     * @param sqlDialect The {@link SqlDialect} of the database being connected to.
+     * @param metadataTable A {@link MetadataTable} instance.
      */
-    public PlayerDataTable(@NotNull QueueManager queueManager) {
+    public PlayerDataTable(@NotNull QueueManager queueManager, @NotNull SqlDialect sqlDialect, @NotNull MetadataTable metadataTable) {
         this.queueManager = queueManager;
+        this.sqlDialect = sqlDialect;
+        this.metadataTable = metadataTable;
     }
 
     /**
-     * Creates the table in the database if it doesn't exist and any indexes that don't exist.
+     * Get the name of the table.
+     * @return The name of the table.
      */
-    public void createTable() {
-        String tableCreationSql = "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
-                "player_id LONG NOT NULL UNIQUE DEFAULT 0, " +
-                "join_time LONG NOT NULL DEFAULT 0, " +
-                "last_updated LONG NOT NULL DEFAULT 0)";
-        String playerIdsIndexSql = "CREATE INDEX IF NOT EXISTS idx_" + tableName + "_player_ids ON " + tableName + "(player_id)";
+    public @NotNull String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Get the ordered {@link List} of {@link SchemaMigration}s that bring the table up to the current schema version.
+     * New schema changes must be added to the end of this list with the next version number. Existing migrations must never change the schema they produce.
+     * MySQL and MariaDB commit DDL implicitly, so a migration that failed part-way is run again. Each step checks if it was already applied first.
+     * @return A {@link List} of {@link SchemaMigration}s.
+     */
+    public @NotNull List<SchemaMigration> getSchemaMigrations() {
+        return List.of(
+                new SchemaMigration(1, "Create the player data table", (connection, dialect) -> {
+                    try(Statement statement = connection.createStatement()) {
+                        for(String sql : dialect.getCreatePlayerDataTableSql(tableName)) {
+                            statement.execute(sql);
+                        }
+                    }
+                }),
+                new SchemaMigration(2, "Add the indexed expires_at column", (connection, dialect) -> {
+                    try(Statement statement = connection.createStatement()) {
+                        if(!SchemaInspector.hasColumn(connection, tableName, "expires_at")) {
+                            statement.execute("ALTER TABLE " + tableName + " ADD COLUMN expires_at BIGINT NOT NULL DEFAULT 0");
+                        }
+
+                        createExpiresAtIndex(connection, statement);
+                    }
+                }),
+                new SchemaMigration(3, "Key the player data table on a 16-byte binary UUID", (connection, dialect) -> {
+                    String newTableName = tableName + "_new";
+
+                    try(Statement statement = connection.createStatement()) {
+                        // If the old table is gone, a previous attempt stopped after copying every row, so only the rename is left.
+                        if(SchemaInspector.hasTable(connection, tableName)) {
+                            // A previous attempt may have stopped while copying, so its copy is started over.
+                            statement.execute("DROP TABLE IF EXISTS " + newTableName);
+                            statement.execute(dialect.getCreateBinaryKeyPlayerDataTableSql(newTableName));
+
+                            copyRowsWithBinaryKeys(connection, newTableName);
+
+                            // Dropping the old table also drops its indexes, including the redundant player_id index.
+                            statement.execute("DROP TABLE " + tableName);
+                        }
+
+                        statement.execute("ALTER TABLE " + newTableName + " RENAME TO " + tableName);
+                        createExpiresAtIndex(connection, statement);
+                    }
+                }),
+                new SchemaMigration(4, "Delete rows of players who never had perks", (connection, dialect) -> {
+                    // A missing row now means default player data, so these rows only take up space.
+                    try(Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("DELETE FROM " + tableName + " WHERE join_time <= 0");
+                    }
+                }),
+                new SchemaMigration(5, "Add the playtime column", (connection, dialect) -> {
+                    // -1 means the playtime isn't tracked, so existing rows keep counting real time.
+                    if(SchemaInspector.hasColumn(connection, tableName, "playtime")) return;
+
+                    try(Statement statement = connection.createStatement()) {
+                        statement.execute("ALTER TABLE " + tableName + " ADD COLUMN playtime BIGINT NOT NULL DEFAULT -1");
+                    }
+                }),
+                new SchemaMigration(6, "Mark untracked playtime with the smallest BIGINT", (connection, dialect) -> {
+                    // Extending a player's perks past the period makes their playtime negative, so -1 can no longer mean the playtime isn't tracked.
+                    try(PreparedStatement preparedStatement = connection.prepareStatement("UPDATE " + tableName + " SET playtime = ? WHERE playtime = -1")) {
+                        preparedStatement.setLong(1, PlayerData.PLAYTIME_NOT_TRACKED);
+                        preparedStatement.executeUpdate();
+                    }
+                }));
+    }
+
+    /**
+     * Sets the period perks last for and how it counts down. Rows written after this is called use the new period right away.
+     * Use {@link #recalculateExpiryTimes()} to update the rows that are already stored.
+     * @param period The number of milliseconds perks last for.
+     * @param periodMode The {@link PeriodMode}.
+     */
+    public void setPeriod(long period, @NotNull PeriodMode periodMode) {
+        this.period = period;
+        this.periodMode = periodMode;
+    }
+
+    /**
+     * Recalculates the stored expiry time of every row if the period or the period mode changed since the expiry times were last calculated.
+     * While the period only counts down while players are online, rows whose playtime is tracked and below the period haven't expired,
+     * so they are stored as never expiring until the player is online again. While it counts down in real time, every row expires at its join time plus the period.
+     * @return A {@link CompletableFuture} containing the number of rows that were updated.
+     */
+    public @NotNull CompletableFuture<Integer> recalculateExpiryTimes() {
+        long period = this.period;
+        PeriodMode periodMode = this.periodMode;
+
+        return queueManager.queueTransaction(QueueLane.BULK, connection -> {
+            String storedPeriod = metadataTable.getValue(connection, periodMetadataKey);
+            String storedPeriodMode = metadataTable.getValue(connection, periodModeMetadataKey);
+            if(storedPeriod != null && Long.parseLong(storedPeriod) == period && periodMode.name().equals(storedPeriodMode)) return 0;
+
+            int updatedRows;
+            try(PreparedStatement preparedStatement = connection.prepareStatement("UPDATE " + tableName + " SET expires_at = CASE " +
+                    "WHEN join_time <= 0 THEN 0 " +
+                    "WHEN playtime > ? AND playtime < ? THEN ? " +
+                    "ELSE join_time + ? END")) {
+                preparedStatement.setLong(1, getPausablePlaytimeFloor(periodMode));
+                preparedStatement.setLong(2, period);
+                preparedStatement.setLong(3, pausedExpiresAt);
+                preparedStatement.setLong(4, period);
+                updatedRows = preparedStatement.executeUpdate();
+            }
+
+            metadataTable.setValue(connection, periodMetadataKey, String.valueOf(period));
+            metadataTable.setValue(connection, periodModeMetadataKey, periodMode.name());
+
+            return updatedRows;
+        });
+    }
 
-        queueManager.queueBulkWriteTransaction(List.of(tableCreationSql, playerIdsIndexSql));
+    /**
+     * Increments the generation stored in the metadata table and returns the new generation.
+     * @return A {@link CompletableFuture} containing the new generation.
+     */
+    public @NotNull CompletableFuture<Long> advanceGeneration() {
+        return queueManager.queueTransaction(connection -> {
+            String storedGeneration = metadataTable.getValue(connection, generationMetadataKey);
+            long generation = storedGeneration != null ? Long.parseLong(storedGeneration) + 1 : 1;
+
+            metadataTable.setValue(connection, generationMetadataKey, String.valueOf(generation));
+
+            return generation;
+        });
     }
 
+    /**
+     * Counts the players whose perks expire after {@code from} and at or before {@code to}.
+     * Uses the expires_at index, so no full table scan is needed.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @return A {@link CompletableFuture} containing the number of players.
+     */
+    public @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to) {
+        String selectSql = "SELECT COUNT(*) AS player_count FROM " + tableName + " WHERE expires_at > ? AND expires_at <= ?";
+
+        return queueManager.queueRead(connection -> {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(selectSql)) {
+                preparedStatement.setLong(1, from);
+                preparedStatement.setLong(2, to);
+
+                try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if(!resultSet.next()) return 0;
+
+                    return resultSet.getInt("player_count");
+                }
+            }
+        });
+    }
+
+    /**
+     * Get a page of players whose perks expire after {@code from} and at or before {@code to}, ordered by expiry time.
+     * Pages are keyed by the last entry of the previous page instead of an offset, so every page is a range scan on the expires_at index.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @param after The last {@link PlayerExpiry} of the previous page or null for the first page.
+     * @param limit The maximum number of entries to return.
+     * @return A {@link CompletableFuture} containing a {@link List} of {@link PlayerExpiry}.
+     */
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        String selectSql;
+        if(after == null) {
+            selectSql = "SELECT player_id, expires_at FROM " + tableName + " " +
+                    "WHERE expires_at > ? AND expires_at <= ? " +
+                    "ORDER BY expires_at, player_id LIMIT ?";
+        } else {
+            selectSql = "SELECT player_id, expires_at FROM " + tableName + " " +
+                    "WHERE expires_at > ? AND expires_at <= ? AND (expires_at > ? OR (expires_at = ? AND player_id > ?)) " +
+                    "ORDER BY expires_at, player_id LIMIT ?";
+        }
+
+        return queueManager.queueRead(connection -> {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(selectSql)) {
+                int index = 1;
+                preparedStatement.setLong(index++, from);
+                preparedStatement.setLong(index++, to);
+                if(after != null) {
+                    preparedStatement.setLong(index++, after.expiresAt());
+                    preparedStatement.setLong(index++, after.expiresAt());
+                    preparedStatement.setBytes(index++, UUIDUtil.toBytes(after.uuid()));
+                }
+                preparedStatement.setInt(index, limit);
+
+                try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                    List<PlayerExpiry> page = new ArrayList<>();
+                    while(resultSet.next()) {
+                        UUID uuid = UUIDUtil.fromBytes(resultSet.getBytes("player_id"));
+                        page.add(new PlayerExpiry(uuid, resultSet.getLong("expires_at")));
+                    }
+
+                    return page;
+                }
+            }
+        });
+    }
 
     /**
      * Loads the {@link PlayerData} for the {@link UUID} provided.
@@ -78,79 +295,464 @@ public class PlayerDataTable {
      * @return A {@link CompletableFuture} containing {@link PlayerData}. May be null.
      */
     public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
-        String selectSql = "SELECT join_time FROM " + tableName + " WHERE player_id = ? AND last_updated < ?";
-        UUIDParameter uuidParameter = new UUIDParameter(uuid);
-        LongParameter lastUpdatedParameter = new LongParameter(System.currentTimeMillis());
+        String selectSql = "SELECT join_time, playtime FROM " + tableName + " WHERE player_id = ? AND last_updated < ?";
+        byte[] playerId = UUIDUtil.toBytes(uuid);
+        long lastUpdated = System.currentTimeMillis();
+
+        return queueManager.queueRead(connection -> {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(selectSql)) {
+                preparedStatement.setBytes(1, playerId);
+                preparedStatement.setLong(2, lastUpdated);
 
-        return queueManager.queueReadTransaction(selectSql, List.of(uuidParameter, lastUpdatedParameter), resultSet -> {
-            try {
-                if(!resultSet.next()) return null;
+                try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if(!resultSet.next()) return null;
 
-                long joinTime = resultSet.getLong("join_time");
+                    long joinTime = resultSet.getLong("join_time");
+                    long playtime = resultSet.getLong("playtime");
 
-                return new PlayerData(joinTime);
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+                    return new PlayerData(joinTime, playtime);
+                }
             }
         });
     }
 
     /**
      * Saves the {@link PlayerData} for the {@link UUID} provided.
+     * A missing row means default {@link PlayerData}, so saving default {@link PlayerData} deletes the player's row instead of writing one.
+     * The save may share a transaction with other single saves queued at the same time.
      * @param uuid The {@link UUID} the {@link PlayerData} belongs to.
      * @param playerData The {@link PlayerData} to save.
+     * @param lastUpdated The epoch millisecond the save was requested at. The row is only changed if it was last updated before it.
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
-    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
-        String insertOrUpdateSql = "INSERT INTO " + tableName + " (player_id, join_time, last_updated) " +
-                "VALUES (?, ?, ?) " +
-                "ON CONFLICT (player_id) DO UPDATE SET " +
-                "join_time = ?, last_updated = ? WHERE last_updated < ?";
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData, long lastUpdated) {
+        if(playerData.isDefault()) {
+            String deleteSql = getDeletePlayerDataSql();
+
+            return queueManager.queueGroupedWrite(connection -> {
+                try(PreparedStatement preparedStatement = connection.prepareStatement(deleteSql)) {
+                    bindDelete(preparedStatement, uuid, lastUpdated);
+                    preparedStatement.executeUpdate();
+                }
+
+                return null;
+            });
+        }
 
-        UUIDParameter playerIdParameter = new UUIDParameter(uuid);
-        LongParameter joinTimeParameter = new LongParameter(playerData.getJoinTime());
-        LongParameter lastUpdatedParameter = new LongParameter(System.currentTimeMillis());
+        String insertOrUpdateSql = sqlDialect.getUpsertPlayerDataSql(tableName);
+        long joinTime = playerData.getJoinTime();
+        long playtime = playerData.getPlaytime();
+        long expiresAt = getExpiresAt(playerData);
 
-        return queueManager.queueWriteTransaction(insertOrUpdateSql,
-                List.of(
-                        playerIdParameter,
-                        joinTimeParameter,
-                        lastUpdatedParameter,
-                        joinTimeParameter,
-                        lastUpdatedParameter,
-                        lastUpdatedParameter)).thenRun(() -> {});
+        return queueManager.queueGroupedWrite(connection -> {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(insertOrUpdateSql)) {
+                bindUpsert(preparedStatement, uuid, joinTime, playtime, expiresAt, lastUpdated);
+                preparedStatement.executeUpdate();
+            }
+
+            return null;
+        });
     }
 
     /**
-     * Saves all data in the {@link Map} mapping {@link UUID}s to {@link PlayerData} provided.
+     * Saves all data in the {@link Map} mapping {@link UUID}s to {@link PlayerData} provided in a single transaction.
+     * Rows of players with default {@link PlayerData} are deleted instead of written.
      * @param playerDataMap The {@link Map} mapping {@link UUID}s to {@link PlayerData} to save.
+     * @param lastUpdated The epoch millisecond the save was requested at. Rows are only changed if they were last updated before it.
      * @return A {@link CompletableFuture} of type {@link Void} when complete.
      */
-    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
-        String insertOrUpdateSql = "INSERT INTO " + tableName + " (player_id, join_time, last_updated) " +
-                "VALUES (?, ?, ?) " +
-                "ON CONFLICT (player_id) DO UPDATE SET " +
-                "join_time = ?, last_updated = ? WHERE last_updated < ?";
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap, long lastUpdated) {
+        if(playerDataMap.isEmpty()) return CompletableFuture.completedFuture(null);
 
-        List<List<Parameter<?>>> listOfParameterLists = new ArrayList<>();
+        String insertOrUpdateSql = sqlDialect.getUpsertPlayerDataSql(tableName);
+        String deleteSql = getDeletePlayerDataSql();
 
+        // Copy the values now, as the map may be modified by the main thread before the transaction runs.
+        List<UUID> uuids = new ArrayList<>(playerDataMap.size());
+        List<long[]> values = new ArrayList<>(playerDataMap.size());
+        List<UUID> defaultUuids = new ArrayList<>();
         playerDataMap.forEach((uuid, playerData) -> {
-            UUIDParameter playerIdParameter = new UUIDParameter(uuid);
-            LongParameter joinTimeParameter = new LongParameter(playerData.getJoinTime());
-            LongParameter lastUpdatedParameter = new LongParameter(System.currentTimeMillis());
-
-            listOfParameterLists.add(
-                    List.of(
-                            playerIdParameter,
-                            joinTimeParameter,
-                            lastUpdatedParameter,
-                            joinTimeParameter,
-                            lastUpdatedParameter,
-                            lastUpdatedParameter));
+            if(playerData.isDefault()) {
+                defaultUuids.add(uuid);
+                return;
+            }
+
+            uuids.add(uuid);
+            values.add(new long[] {playerData.getJoinTime(), playerData.getPlaytime(), getExpiresAt(playerData)});
         });
 
-        if(listOfParameterLists.isEmpty()) return CompletableFuture.completedFuture(null);
+        return queueManager.queueTransaction(QueueLane.BULK, connection -> {
+            if(!uuids.isEmpty()) {
+                try(PreparedStatement preparedStatement = connection.prepareStatement(insertOrUpdateSql)) {
+                    for(int i = 0; i < uuids.size(); i++) {
+                        long[] value = values.get(i);
+                        bindUpsert(preparedStatement, uuids.get(i), value[0], value[1], value[2], lastUpdated);
+                        preparedStatement.addBatch();
+                    }
+
+                    preparedStatement.executeBatch();
+                }
+            }
+
+            if(!defaultUuids.isEmpty()) {
+                try(PreparedStatement preparedStatement = connection.prepareStatement(deleteSql)) {
+                    for(UUID uuid : defaultUuids) {
+                        bindDelete(preparedStatement, uuid, lastUpdated);
+                        preparedStatement.addBatch();
+                    }
+
+                    preparedStatement.executeBatch();
+                }
+            }
 
-        return queueManager.queueBulkWriteTransaction(insertOrUpdateSql, listOfParameterLists).thenRun(() -> {});
+            return null;
+        });
+    }
+
+    /**
+     * Moves the join time of a player who has perks by the number of milliseconds provided in a single UPDATE, so it can't lose a concurrent change.
+     * A tracked playtime is reduced by the same amount and the stored expiry time is recalculated in the same statement.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to extend the player's perks by. Negative to shorten them.
+     * @return A {@link CompletableFuture} containing true if the player had perks stored, otherwise false.
+     */
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        // expires_at is assigned first, as MySQL uses the already assigned values of columns in later assignments.
+        String updateSql = "UPDATE " + tableName + " SET " +
+                "expires_at = CASE WHEN playtime > ? AND playtime < ? THEN ? ELSE join_time + ? END, " +
+                "join_time = join_time + ?, " +
+                "playtime = CASE WHEN playtime > ? THEN playtime - ? ELSE playtime END, " +
+                "last_updated = ? " +
+                "WHERE player_id = ? AND join_time > 0";
+        byte[] playerId = UUIDUtil.toBytes(uuid);
+        long period = this.period;
+        long pausablePlaytimeFloor = getPausablePlaytimeFloor(periodMode);
+        long lastUpdated = System.currentTimeMillis();
+
+        return queueManager.queueGroupedWrite(connection -> {
+            try(PreparedStatement preparedStatement = connection.prepareStatement(updateSql)) {
+                // The playtime after the update is below the period if the current playtime is below the period plus the extension.
+                preparedStatement.setLong(1, pausablePlaytimeFloor);
+                preparedStatement.setLong(2, period + millis);
+                preparedStatement.setLong(3, pausedExpiresAt);
+                preparedStatement.setLong(4, period + millis);
+                preparedStatement.setLong(5, millis);
+                preparedStatement.setLong(6, PlayerData.PLAYTIME_NOT_TRACKED);
+                preparedStatement.setLong(7, millis);
+                preparedStatement.setLong(8, lastUpdated);
+                preparedStatement.setBytes(9, playerId);
+
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Deletes the rows of players whose perks expired at or before the time provided, then shrinks SQLite databases.
+     * Rows are deleted in small transactions in the {@link QueueLane#BULK} lane. Before each transaction, the purge waits
+     * until no player is waiting on a read or a write, so it never competes with players joining.
+     * SQLite databases are then shrunk a few pages at a time in the {@link QueueLane#BULK} lane. A database that doesn't use incremental vacuum yet
+     * is converted once with a full VACUUM first.
+     * @param expiredBefore The epoch millisecond. Rows that expired at or before it are deleted.
+     * @param batchSize The maximum number of rows to delete per transaction.
+     * @param batchDelayMillis How many milliseconds to wait between transactions and between checks for player work.
+     * @param stopRequested Checked before each transaction and vacuum step. Once it returns true, the purge stops early.
+     * @return A {@link CompletableFuture} containing the {@link PurgeResult}.
+     */
+    public @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        return deleteExpiredBatches(expiredBefore, batchSize, batchDelayMillis, stopRequested, 0)
+                .thenCompose(rowsRemoved -> {
+                    if(sqlDialect != SqlDialect.SQLITE) return CompletableFuture.completedFuture(new PurgeResult(rowsRemoved, 0));
+
+                    // Free pages left by earlier purges or removed players are reclaimed even if no rows were purged this time.
+                    return enableIncrementalVacuum(batchDelayMillis, stopRequested)
+                            .thenCompose(bytesReclaimed -> vacuumSteps(batchDelayMillis, stopRequested, bytesReclaimed))
+                            .thenApply(bytesReclaimed -> new PurgeResult(rowsRemoved, bytesReclaimed));
+                });
+    }
+
+    /**
+     * Deletes batches of expired rows until a batch deletes fewer rows than the batch size.
+     * @param expiredBefore The epoch millisecond. Rows that expired at or before it are deleted.
+     * @param batchSize The maximum number of rows to delete per transaction.
+     * @param batchDelayMillis How many milliseconds to wait before each transaction.
+     * @param stopRequested Checked before each transaction. Once it returns true, no more batches are deleted.
+     * @param rowsRemoved The number of rows removed by previous batches.
+     * @return A {@link CompletableFuture} containing the total number of rows removed.
+     */
+    private @NotNull CompletableFuture<Long> deleteExpiredBatches(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested, long rowsRemoved) {
+        String selectSql = "SELECT player_id FROM " + tableName + " WHERE expires_at > 0 AND expires_at <= ? ORDER BY expires_at LIMIT ?";
+        String deleteSql = "DELETE FROM " + tableName + " WHERE player_id = ? AND expires_at > 0 AND expires_at <= ?";
+
+        return whenPlayerWorkIdle(batchDelayMillis)
+                .thenCompose(v -> {
+                    if(stopRequested.getAsBoolean()) return CompletableFuture.completedFuture(new int[] {0, 0});
+
+                    return queueManager.queueTransaction(QueueLane.BULK, connection -> {
+                        List<byte[]> playerIds = new ArrayList<>(batchSize);
+                        try(PreparedStatement preparedStatement = connection.prepareStatement(selectSql)) {
+                            preparedStatement.setLong(1, expiredBefore);
+                            preparedStatement.setInt(2, batchSize);
+
+                            try(ResultSet resultSet = preparedStatement.executeQuery()) {
+                                while(resultSet.next()) {
+                                    playerIds.add(resultSet.getBytes("player_id"));
+                                }
+                            }
+                        }
+
+                        if(playerIds.isEmpty()) return new int[] {0, 0};
+
+                        int deletedRows = 0;
+                        try(PreparedStatement preparedStatement = connection.prepareStatement(deleteSql)) {
+                            for(byte[] playerId : playerIds) {
+                                preparedStatement.setBytes(1, playerId);
+                                preparedStatement.setLong(2, expiredBefore);
+                                preparedStatement.addBatch();
+                            }
+
+                            for(int result : preparedStatement.executeBatch()) {
+                                if(result > 0) deletedRows += result;
+                            }
+                        }
+
+                        return new int[] {playerIds.size(), deletedRows};
+                    });
+                })
+                .thenCompose(batch -> {
+                    long total = rowsRemoved + batch[1];
+                    if(batch[0] < batchSize) return CompletableFuture.completedFuture(total);
+
+                    return deleteExpiredBatches(expiredBefore, batchSize, batchDelayMillis, stopRequested, total);
+                });
+    }
+
+    /**
+     * Get a {@link CompletableFuture} that completes after the delay provided once no player is waiting on a read or a write.
+     * @param delayMillis How many milliseconds to wait before checking, and between checks.
+     * @return A {@link CompletableFuture} of type {@link Void}.
+     */
+    private @NotNull CompletableFuture<Void> whenPlayerWorkIdle(long delayMillis) {
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(v -> queueManager.isPlayerWorkIdle() ? CompletableFuture.completedFuture(null) : whenPlayerWorkIdle(Math.max(delayMillis, 10)));
+    }
+
+    /**
+     * Converts a SQLite database to incremental vacuum once, so its free pages can be returned to the file system.
+     * Setting auto_vacuum only takes effect on a new database, so an existing database is rewritten with a full VACUUM.
+     * The conversion is recorded in the metadata table once it succeeded, so it is tried again by the next purge if it failed.
+     * @param batchDelayMillis How many milliseconds to wait before converting.
+     * @param stopRequested Checked before converting. If it returns true, the database isn't converted.
+     * @return A {@link CompletableFuture} containing the number of bytes the database file shrunk by.
+     */
+    private @NotNull CompletableFuture<Long> enableIncrementalVacuum(long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        return whenPlayerWorkIdle(batchDelayMillis)
+                .thenCompose(v -> {
+                    if(stopRequested.getAsBoolean()) return CompletableFuture.completedFuture(0L);
+
+                    return queueManager.queueMaintenance(connection -> {
+                        if(metadataTable.getValue(connection, incrementalVacuumMetadataKey) != null) return 0L;
+
+                        long bytesReclaimed = 0;
+                        try(Statement statement = connection.createStatement()) {
+                            // 2 is INCREMENTAL. Databases created by this version already use it.
+                            if(getPragma(statement, "auto_vacuum") != 2) {
+                                long pageSize = getPragma(statement, "page_size");
+                                long pagesBefore = getPragma(statement, "page_count");
+
+                                statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                                statement.execute("VACUUM");
+
+                                bytesReclaimed = Math.max(0, pagesBefore - getPragma(statement, "page_count")) * pageSize;
+                            }
+                        }
+
+                        metadataTable.setValue(connection, incrementalVacuumMetadataKey, "true");
+
+                        return bytesReclaimed;
+                    });
+                });
+    }
+
+    /**
+     * Runs {@link #incrementalVacuumStep(Connection)} until no free pages are left, waiting for player work to finish before each step.
+     * @param batchDelayMillis How many milliseconds to wait before each step.
+     * @param stopRequested Checked before each step. Once it returns true, no more steps are run.
+     * @param bytesReclaimed The number of bytes reclaimed by previous steps.
+     * @return A {@link CompletableFuture} containing the total number of bytes reclaimed.
+     */
+    private @NotNull CompletableFuture<Long> vacuumSteps(long batchDelayMillis, @NotNull BooleanSupplier stopRequested, long bytesReclaimed) {
+        return whenPlayerWorkIdle(batchDelayMillis)
+                .thenCompose(v -> {
+                    if(stopRequested.getAsBoolean()) return CompletableFuture.completedFuture(new long[] {0, 0});
+
+                    return queueManager.queueMaintenance(this::incrementalVacuumStep);
+                })
+                .thenCompose(step -> {
+                    long total = bytesReclaimed + step[0];
+                    if(step[0] == 0 || step[1] == 0) return CompletableFuture.completedFuture(total);
+
+                    return vacuumSteps(batchDelayMillis, stopRequested, total);
+                });
+    }
+
+    /**
+     * Returns up to {@link #vacuumPagesPerStep} free pages of a SQLite database to the file system.
+     * Databases that don't use incremental vacuum are left alone, as {@link #enableIncrementalVacuum(long, BooleanSupplier)} converts them first.
+     * Must run without a transaction.
+     * @param connection The {@link Connection} to use.
+     * @return An array of the number of bytes the database file shrunk by and the number of free pages left.
+     * @throws SQLException if the database couldn't be vacuumed.
+     */
+    private long @NotNull [] incrementalVacuumStep(@NotNull Connection connection) throws SQLException {
+        try(Statement statement = connection.createStatement()) {
+            // 2 is INCREMENTAL.
+            if(getPragma(statement, "auto_vacuum") != 2) return new long[] {0, 0};
+
+            long pageSize = getPragma(statement, "page_size");
+            long pagesBefore = getPragma(statement, "page_count");
+
+            // executeUpdate steps the pragma to completion. execute only frees the first page.
+            statement.executeUpdate("PRAGMA incremental_vacuum(" + vacuumPagesPerStep + ")");
+
+            long pagesAfter = getPragma(statement, "page_count");
+
+            return new long[] {Math.max(0, pagesBefore - pagesAfter) * pageSize, getPragma(statement, "freelist_count")};
+        }
+    }
+
+    /**
+     * Reads a numeric SQLite pragma.
+     * @param statement The {@link Statement} to use.
+     * @param pragma The name of the pragma.
+     * @return The pragma's value.
+     * @throws SQLException if the pragma couldn't be read.
+     */
+    private long getPragma(@NotNull Statement statement, @NotNull String pragma) throws SQLException {
+        try(ResultSet resultSet = statement.executeQuery("PRAGMA " + pragma)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Get the SQL statement that deletes a player's row unless it was written after the delete was requested.
+     * @return The SQL statement. Takes the player_id and the last_updated time as parameters.
+     */
+    private @NotNull String getDeletePlayerDataSql() {
+        return "DELETE FROM " + tableName + " WHERE player_id = ? AND last_updated < ?";
+    }
+
+    /**
+     * Binds the parameters of the statement from {@link #getDeletePlayerDataSql()}.
+     * @param preparedStatement The {@link PreparedStatement} to bind the parameters to.
+     * @param uuid The {@link UUID} of the player.
+     * @param lastUpdated The epoch millisecond the delete was requested at.
+     * @throws SQLException if a parameter couldn't be bound.
+     */
+    private void bindDelete(@NotNull PreparedStatement preparedStatement, @NotNull UUID uuid, long lastUpdated) throws SQLException {
+        preparedStatement.setBytes(1, UUIDUtil.toBytes(uuid));
+        preparedStatement.setLong(2, lastUpdated);
+    }
+
+    /**
+     * Binds the parameters of the upsert statement from {@link SqlDialect#getUpsertPlayerDataSql(String)}.
+     * @param preparedStatement The {@link PreparedStatement} to bind the parameters to.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The player's join time.
+     * @param playtime The player's playtime or {@link PlayerData#PLAYTIME_NOT_TRACKED}.
+     * @param expiresAt The epoch millisecond the player's perks expire at.
+     * @param lastUpdated The epoch millisecond the row is written at.
+     * @throws SQLException if a parameter couldn't be bound.
+     */
+    private void bindUpsert(@NotNull PreparedStatement preparedStatement, @NotNull UUID uuid, long joinTime, long playtime, long expiresAt, long lastUpdated) throws SQLException {
+        preparedStatement.setBytes(1, UUIDUtil.toBytes(uuid));
+        preparedStatement.setLong(2, joinTime);
+        preparedStatement.setLong(3, playtime);
+        preparedStatement.setLong(4, expiresAt);
+        preparedStatement.setLong(5, lastUpdated);
+    }
+
+    /**
+     * Creates the index on the expires_at column of the player data table if it doesn't exist.
+     * MySQL doesn't support CREATE INDEX IF NOT EXISTS, so the index is looked up first.
+     * @param connection The {@link Connection} to use.
+     * @param statement The {@link Statement} to create the index with.
+     * @throws SQLException if the index couldn't be created.
+     */
+    private void createExpiresAtIndex(@NotNull Connection connection, @NotNull Statement statement) throws SQLException {
+        String indexName = "idx_" + tableName + "_expires_at";
+        if(SchemaInspector.hasIndex(connection, tableName, indexName)) return;
+
+        statement.execute("CREATE INDEX " + indexName + " ON " + tableName + " (expires_at, player_id)");
+    }
+
+    /**
+     * Copies every row of the player data table into a table keyed on a 16-byte binary UUID.
+     * Older versions stored the player's {@link UUID} as text. Rows whose player_id isn't a valid {@link UUID} can never be loaded, so they are not copied.
+     * @param connection The {@link Connection} to use.
+     * @param newTableName The name of the table to copy the rows into.
+     * @throws SQLException if the rows couldn't be copied.
+     */
+    private void copyRowsWithBinaryKeys(@NotNull Connection connection, @NotNull String newTableName) throws SQLException {
+        String selectSql = "SELECT player_id, join_time, expires_at, last_updated FROM " + tableName;
+        String insertSql = "INSERT INTO " + newTableName + " (player_id, join_time, expires_at, last_updated) VALUES (?, ?, ?, ?)";
+
+        try(Statement selectStatement = connection.createStatement();
+            ResultSet resultSet = selectStatement.executeQuery(selectSql);
+            PreparedStatement insertStatement = connection.prepareStatement(insertSql)) {
+            int batchSize = 0;
+
+            while(resultSet.next()) {
+                UUID uuid = switch(resultSet.getObject("player_id")) {
+                    case byte[] bytes when bytes.length == 16 -> UUIDUtil.fromBytes(bytes);
+                    case UUID storedUuid -> storedUuid;
+                    case String text -> {
+                        try {
+                            yield UUID.fromString(text.trim());
+                        } catch (IllegalArgumentException e) {
+                            yield null;
+                        }
+                    }
+                    case null, default -> null;
+                };
+                if(uuid == null) continue;
+
+                insertStatement.setBytes(1, UUIDUtil.toBytes(uuid));
+                insertStatement.setLong(2, resultSet.getLong("join_time"));
+                insertStatement.setLong(3, resultSet.getLong("expires_at"));
+                insertStatement.setLong(4, resultSet.getLong("last_updated"));
+                insertStatement.addBatch();
+
+                if(++batchSize >= 1000) {
+                    insertStatement.executeBatch();
+                    batchSize = 0;
+                }
+            }
+
+            if(batchSize > 0) insertStatement.executeBatch();
+        }
+    }
+
+    /**
+     * Calculates the expiry time to store for the {@link PlayerData} provided.
+     * Players whose playtime is tracked have their join time moved forward by the time they spent offline, so it still gives the expiry time once they used up the period.
+     * @param playerData The {@link PlayerData}.
+     * @return The epoch millisecond the player's perks expire at, {@link Long#MAX_VALUE} if their perks are paused, or 0 if the player never had perks.
+     */
+    private long getExpiresAt(@NotNull PlayerData playerData) {
+        if(playerData.isDefault()) return 0;
+        if(periodMode == PeriodMode.PLAYTIME && playerData.isPlaytimeTracked() && playerData.getPlaytime() < period) return pausedExpiresAt;
+
+        return playerData.getJoinTime() + period;
+    }
+
+    /**
+     * Get the value a row's playtime must be greater than for its perks to be stored as paused, used by the expiry time CASE expressions.
+     * Rows keep their tracked playtime while the period counts down in real time, so it isn't lost if the mode is switched back.
+     * @param periodMode The {@link PeriodMode}.
+     * @return {@link PlayerData#PLAYTIME_NOT_TRACKED} if the period only counts down while players are online, otherwise {@link Long#MAX_VALUE}, which no playtime is greater than.
+     */
+    private long getPausablePlaytimeFloor(@NotNull PeriodMode periodMode) {
+        return periodMode == PeriodMode.PLAYTIME ? PlayerData.PLAYTIME_NOT_TRACKED : Long.MAX_VALUE;
     }
 }
@@ -0,0 +1,135 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This class stops calls to the storage backend while it is unhealthy.
+ * After a number of consecutive failures the breaker opens and calls fail fast.
+ * Once the cooldown has passed, a single trial call is let through. If it succeeds, the breaker closes again.
+ */
+public class CircuitBreaker {
+    private final @NotNull ComponentLogger logger;
+    private final int failureThreshold;
+    private final long cooldownMillis;
+
+    private @NotNull State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        /**
+         * Calls are let through.
+         */
+        CLOSED,
+        /**
+         * Calls fail fast.
+         */
+        OPEN,
+        /**
+         * One trial call is let through to check if the backend recovered.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Constructor
+     * @param logger The {@link ComponentLogger} to log state changes with.
+     * @param failureThreshold The number of consecutive failures that opens the breaker.
+     * @param cooldownMillis How many milliseconds the breaker stays open before a trial call is let through.
+     */
+    public CircuitBreaker(@NotNull ComponentLogger logger, int failureThreshold, long cooldownMillis) {
+        this.logger = logger;
+        this.failureThreshold = failureThreshold;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    /**
+     * Checks if a call may be made. Every permitted call must be followed by {@link #recordSuccess()} or {@link #recordFailure()}.
+     * @return true if the call may be made, false if it should fail fast.
+     */
+    public synchronized boolean tryAcquire() {
+        switch(state) {
+            case CLOSED -> {
+                return true;
+            }
+
+            case OPEN -> {
+                if(System.currentTimeMillis() - openedAt < cooldownMillis) return false;
+
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            }
+
+            case HALF_OPEN -> {
+                if(trialInFlight) return false;
+
+                trialInFlight = true;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Records a successful call. Closes the breaker if it wasn't closed.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+
+        if(state != State.CLOSED) {
+            state = State.CLOSED;
+            logger.info(AdventureUtil.serialize("Player data storage recovered. Database operations have resumed."));
+        }
+    }
+
+    /**
+     * Records a failed call. Opens the breaker if the trial call failed or too many calls failed in a row.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+
+        if(state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            if(state == State.CLOSED) {
+                logger.error(AdventureUtil.serialize("Player data storage failed " + consecutiveFailures + " times in a row. Database operations will fail fast for " + cooldownMillis + "ms."));
+            }
+
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Get the current {@link State} of the breaker.
+     * @return The {@link State}.
+     */
+    public synchronized @NotNull State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is an in-memory index of player join times for the storage backends that don't use a database.
+ * Players with default {@link PlayerData} have no entry. Expiry queries scan every entry, which is fast enough for the sizes these backends are meant for.
+ */
+public class JoinTimeIndex {
+    private static final @NotNull Comparator<PlayerExpiry> EXPIRY_ORDER = Comparator.comparingLong(PlayerExpiry::expiresAt)
+            .thenComparing(PlayerExpiry::uuid, (first, second) -> {
+                // Matches the order of the 16-byte player_id keys used by the SQL storage.
+                int comparison = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+                if(comparison != 0) return comparison;
+
+                return Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+            });
+
+    private final @NotNull Map<UUID, Long> joinTimes = new ConcurrentHashMap<>();
+    private volatile long period = 0;
+
+    /**
+     * Constructor
+     */
+    public JoinTimeIndex() {}
+
+    /**
+     * Sets the period perks last for, which is used to calculate each player's expiry time.
+     * @param period The number of milliseconds perks last for.
+     */
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    /**
+     * Get the number of players with an entry.
+     * @return The number of players.
+     */
+    public int size() {
+        return joinTimes.size();
+    }
+
+    /**
+     * Get the {@link PlayerData} for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return A copy of the {@link PlayerData} or null if the player has default {@link PlayerData}.
+     */
+    public @Nullable PlayerData get(@NotNull UUID uuid) {
+        Long joinTime = joinTimes.get(uuid);
+
+        return joinTime != null ? new PlayerData(joinTime) : null;
+    }
+
+    /**
+     * Stores a player's join time. A join time of 0 or less removes the player's entry.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The join time.
+     */
+    public void put(@NotNull UUID uuid, long joinTime) {
+        if(joinTime <= 0) {
+            joinTimes.remove(uuid);
+        } else {
+            joinTimes.put(uuid, joinTime);
+        }
+    }
+
+    /**
+     * Atomically moves a player's join time by the number of milliseconds provided if the player has an entry.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to move the join time by.
+     * @return true if the player had an entry, otherwise false.
+     */
+    public boolean extend(@NotNull UUID uuid, long millis) {
+        return joinTimes.computeIfPresent(uuid, (key, joinTime) -> joinTime + millis) != null;
+    }
+
+    /**
+     * Removes a player's entry if it still has the join time provided.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The join time the entry must have.
+     * @return true if the entry was removed, otherwise false.
+     */
+    public boolean remove(@NotNull UUID uuid, long joinTime) {
+        return joinTimes.remove(uuid, joinTime);
+    }
+
+    /**
+     * Copies every entry to a {@link Map} mapping {@link UUID}s to {@link PlayerData}.
+     * @return The {@link Map}.
+     */
+    public @NotNull Map<UUID, PlayerData> copy() {
+        Map<UUID, PlayerData> playerDataMap = new HashMap<>(joinTimes.size());
+        joinTimes.forEach((uuid, joinTime) -> playerDataMap.put(uuid, new PlayerData(joinTime)));
+
+        return playerDataMap;
+    }
+
+    /**
+     * Counts the players whose perks expire after {@code from} and at or before {@code to}.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @return The number of players.
+     */
+    public int countExpiringBetween(long from, long to) {
+        long period = this.period;
+
+        return (int) joinTimes.values().stream()
+                .mapToLong(joinTime -> joinTime + period)
+                .filter(expiresAt -> expiresAt > from && expiresAt <= to)
+                .count();
+    }
+
+    /**
+     * Get a page of players whose perks expire after {@code from} and at or before {@code to}, ordered by expiry time and then {@link UUID}.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @param after The last {@link PlayerExpiry} of the previous page or null for the first page.
+     * @param limit The maximum number of entries to return.
+     * @return A {@link List} of {@link PlayerExpiry}.
+     */
+    public @NotNull List<PlayerExpiry> getExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        long period = this.period;
+
+        return joinTimes.entrySet().stream()
+                .map(entry -> new PlayerExpiry(entry.getKey(), entry.getValue() + period))
+                .filter(playerExpiry -> playerExpiry.expiresAt() > from && playerExpiry.expiresAt() <= to)
+                .filter(playerExpiry -> after == null || EXPIRY_ORDER.compare(playerExpiry, after) > 0)
+                .sorted(EXPIRY_ORDER)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Get every player whose perks expired at or before the time provided, with the join time their entry has.
+     * @param expiredBefore The epoch millisecond.
+     * @return A {@link Map} mapping {@link UUID}s to join times.
+     */
+    public @NotNull Map<UUID, Long> getExpired(long expiredBefore) {
+        long period = this.period;
+
+        Map<UUID, Long> expired = new HashMap<>();
+        joinTimes.forEach((uuid, joinTime) -> {
+            if(joinTime + period <= expiredBefore) expired.put(uuid, joinTime);
+        });
+
+        return expired;
+    }
+}
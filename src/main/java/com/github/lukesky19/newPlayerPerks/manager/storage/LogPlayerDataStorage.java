@@ -0,0 +1,675 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32C;
+
+/**
+ * This class stores player data in an append-only log of files. Used for LOG.
+ * <p>
+ * Every save appends fixed-width records to the current log file. Saves that are queued together are written and forced to disk at once,
+ * and a save only completes once its records were forced. Player data is read from an in-memory {@link JoinTimeIndex},
+ * which is rebuilt on startup from the latest compacted segment plus the logs written after it.
+ * <p>
+ * Once the share of records that were overwritten passes the compaction threshold, the writer switches to a new log file and the live
+ * entries are written to a new segment in the background. Segment n contains everything written to the logs before log n.
+ * Segments use the {@link PlayerDataSnapshot} file format, with the segment number as the generation.
+ */
+public class LogPlayerDataStorage implements PlayerDataStorage {
+    // most significant bits (8) + least significant bits (8) + join time (8) + checksum (4)
+    private static final int RECORD_SIZE = 28;
+    // Compacting a small log isn't worth rewriting the segment.
+    private static final long MIN_COMPACTION_RECORDS = 1000;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String LOG_PREFIX = "log-";
+    private static final String FILE_SUFFIX = ".dat";
+
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull Path directory;
+    private final int flushWindowMillis;
+    private final double compactionThreshold;
+
+    private final @NotNull JoinTimeIndex index = new JoinTimeIndex();
+    private final @NotNull LinkedBlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    private final @NotNull ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("NewPlayerPerks-LogCompaction").daemon(true).factory());
+    private final @NotNull AtomicBoolean compacting = new AtomicBoolean(false);
+    private final @NotNull AtomicLong generation = new AtomicLong();
+    private volatile boolean running = true;
+
+    // Only used by the writer thread once the storage is initialized.
+    private @Nullable FileChannel logChannel;
+    private long logNumber;
+    private long segmentRecords;
+    private long logRecords;
+    // Only used by open() before the writer thread is started, then by the writer thread.
+    private final @NotNull ByteBuffer checksumBuffer = ByteBuffer.allocate(24);
+    private final @NotNull CRC32C checksumCrc = new CRC32C();
+
+    private @Nullable CompletableFuture<Void> initializeFuture;
+    private @Nullable Thread writerThread;
+
+    /**
+     * Constructor
+     * @param logger The {@link ComponentLogger} to log with.
+     * @param directory The {@link Path} of the directory the segments and logs are stored in.
+     * @param flushWindowMillis How many milliseconds to wait for more saves after the first one is queued, so they are forced to disk together.
+     * @param compactionThreshold The share of overwritten records, between 0 and 1, that triggers a compaction.
+     */
+    public LogPlayerDataStorage(@NotNull ComponentLogger logger, @NotNull Path directory, int flushWindowMillis, double compactionThreshold) {
+        this.logger = logger;
+        this.directory = directory;
+        this.flushWindowMillis = flushWindowMillis;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Rebuilds the index from the segment and logs on disk and starts the writer thread.
+     * @return A {@link CompletableFuture} of type {@link Void}. Completes exceptionally if the files couldn't be read.
+     */
+    @Override
+    public synchronized @NotNull CompletableFuture<Void> initialize() {
+        if(initializeFuture != null) return initializeFuture;
+
+        initializeFuture = CompletableFuture.runAsync(() -> {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+
+            writerThread = Thread.ofPlatform().name("NewPlayerPerks-LogWriter").daemon(true).start(this::runWriter);
+        }, compactionExecutor);
+
+        return initializeFuture;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
+        return initialize().thenApply(v -> index.get(uuid));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        return append(Map.of(uuid, playerData.getJoinTime()), null).thenRun(() -> {});
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        if(playerDataMap.isEmpty()) return initialize();
+
+        // Copy the join times now, as the main thread may change the player data before the write runs.
+        Map<UUID, Long> joinTimes = new HashMap<>(playerDataMap.size());
+        playerDataMap.forEach((uuid, playerData) -> joinTimes.put(uuid, playerData.getJoinTime()));
+
+        return append(joinTimes, null).thenRun(() -> {});
+    }
+
+    /**
+     * Appends the player's moved join time on the condition that the join time didn't change since it was read.
+     * If another save got in between, the join time is read again and the extension is retried.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to extend the player's perks by. Negative to shorten them.
+     * @return A {@link CompletableFuture} containing true if the player had perks stored, otherwise false.
+     */
+    @Override
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        return initialize().thenCompose(v -> {
+            PlayerData playerData = index.get(uuid);
+            if(playerData == null) return CompletableFuture.completedFuture(false);
+
+            long joinTime = playerData.getJoinTime();
+
+            return append(Map.of(uuid, joinTime + millis), Map.of(uuid, joinTime))
+                    .thenCompose(written -> written > 0 ? CompletableFuture.completedFuture(true) : extendPerks(uuid, millis));
+        });
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updatePeriod(long period, @NotNull PeriodMode periodMode) {
+        index.setPeriod(period);
+
+        return initialize();
+    }
+
+    /**
+     * Advances a generation that is only kept in memory, as the warm-start snapshot isn't used with this storage.
+     * @return A {@link CompletableFuture} containing the new generation.
+     */
+    @Override
+    public @NotNull CompletableFuture<Long> advanceGeneration() {
+        return CompletableFuture.completedFuture(generation.incrementAndGet());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to) {
+        return initialize().thenApply(v -> index.countExpiringBetween(from, to));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        return initialize().thenApply(v -> index.getExpiringBetween(from, to, after, limit));
+    }
+
+    /**
+     * Appends deletions for the expired players in batches, then compacts the storage if enough records are dead.
+     * @param expiredBefore The epoch millisecond. Data of players whose perks expired at or before it is deleted.
+     * @param batchSize The maximum number of players to delete at once.
+     * @param batchDelayMillis How many milliseconds to wait between batches.
+     * @param stopRequested Checked before each batch. Once it returns true, the remaining batches are skipped.
+     * @return A {@link CompletableFuture} containing the {@link PurgeResult}.
+     */
+    @Override
+    public @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        return initialize().thenCompose(v -> {
+            List<Map.Entry<UUID, Long>> expired = new ArrayList<>(index.getExpired(expiredBefore).entrySet());
+            AtomicLong rowsRemoved = new AtomicLong();
+
+            CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+            for(int start = 0; start < expired.size(); start += batchSize) {
+                Map<UUID, Long> deletions = new HashMap<>();
+                Map<UUID, Long> expectedJoinTimes = new HashMap<>();
+                expired.subList(start, Math.min(start + batchSize, expired.size())).forEach(entry -> {
+                    deletions.put(entry.getKey(), 0L);
+                    expectedJoinTimes.put(entry.getKey(), entry.getValue());
+                });
+
+                future = future.thenCompose(v1 -> stopRequested.getAsBoolean() ? CompletableFuture.completedFuture(0) : append(deletions, expectedJoinTimes))
+                        .thenAccept(rowsRemoved::addAndGet)
+                        .thenCompose(v2 -> CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(batchDelayMillis, TimeUnit.MILLISECONDS)));
+            }
+
+            // The space is reclaimed by the next compaction.
+            return future.thenApply(v3 -> new PurgeResult(rowsRemoved.get(), 0));
+        });
+    }
+
+    /**
+     * Stops the writer thread once every queued save was written, waits for a running compaction and closes the log file.
+     */
+    @Override
+    public void close() {
+        synchronized(pendingWrites) {
+            running = false;
+        }
+
+        Thread writerThread = this.writerThread;
+        if(writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        compactionExecutor.shutdown();
+        try {
+            if(!compactionExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn(AdventureUtil.serialize("The player data log compaction did not finish in time and will be redone on the next start."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if(logChannel != null) logChannel.close();
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to close the player data log. Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Queues join times to be appended to the log. A join time of 0 or less deletes the player's data.
+     * @param joinTimes The {@link Map} mapping {@link UUID}s to join times.
+     * @param expectedJoinTimes The join times players must still have for their record to be written, or null to always write every record.
+     * @return A {@link CompletableFuture} containing the number of records written. Completes once the records were forced to disk.
+     */
+    private @NotNull CompletableFuture<Integer> append(@NotNull Map<UUID, Long> joinTimes, @Nullable Map<UUID, Long> expectedJoinTimes) {
+        return initialize().thenCompose(v -> {
+            PendingWrite pendingWrite = new PendingWrite(joinTimes, expectedJoinTimes, new CompletableFuture<>());
+
+            // Synchronized with close(), so no save is queued after the writer thread was told to stop.
+            synchronized(pendingWrites) {
+                if(!running) return CompletableFuture.failedFuture(new IllegalStateException("The player data log is closed."));
+
+                pendingWrites.add(pendingWrite);
+            }
+
+            return pendingWrite.future();
+        });
+    }
+
+    /**
+     * Writes queued saves until the storage is closed and no saves are left.
+     */
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>();
+
+        while(running || !pendingWrites.isEmpty()) {
+            try {
+                PendingWrite first = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+                if(first == null) continue;
+
+                batch.add(first);
+                // Wait briefly for more saves so they share one force().
+                if(flushWindowMillis > 0 && running) Thread.sleep(flushWindowMillis);
+                pendingWrites.drainTo(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingWrites.drainTo(batch);
+                running = false;
+            }
+
+            write(batch);
+            batch.clear();
+
+            if(shouldCompact()) rotateAndCompact();
+        }
+
+        // Only reached if the writer was interrupted before every save was written.
+        pendingWrites.drainTo(batch);
+        batch.forEach(pendingWrite -> pendingWrite.future().completeExceptionally(new IllegalStateException("The player data log is closed.")));
+    }
+
+    /**
+     * Appends a batch of saves to the log, forces it to disk once and applies the saves to the index.
+     * @param batch The {@link List} of {@link PendingWrite}s to write.
+     */
+    private void write(@NotNull List<PendingWrite> batch) {
+        // The writer thread is the only one changing the index, so conditional records can be checked here without a race.
+        List<Map<UUID, Long>> batchJoinTimes = new ArrayList<>(batch.size());
+        int records = 0;
+        for(PendingWrite pendingWrite : batch) {
+            Map<UUID, Long> joinTimes = pendingWrite.joinTimes();
+            Map<UUID, Long> expectedJoinTimes = pendingWrite.expectedJoinTimes();
+            if(expectedJoinTimes != null) {
+                joinTimes = new HashMap<>(joinTimes);
+                joinTimes.keySet().removeIf(uuid -> {
+                    PlayerData playerData = index.get(uuid);
+                    return playerData == null || playerData.getJoinTime() != expectedJoinTimes.get(uuid);
+                });
+            }
+
+            batchJoinTimes.add(joinTimes);
+            records += joinTimes.size();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(records * RECORD_SIZE);
+        batchJoinTimes.forEach(joinTimes -> joinTimes.forEach((uuid, joinTime) -> putRecord(buffer, uuid, Math.max(0, joinTime))));
+        buffer.flip();
+
+        long validSize = -1;
+        try {
+            // Only null if a previous failed write couldn't be removed and no new log could be started either.
+            FileChannel logChannel = this.logChannel != null ? this.logChannel : startNextLog();
+            validSize = logChannel.size();
+
+            while(buffer.hasRemaining()) logChannel.write(buffer);
+            logChannel.force(false);
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to write to the player data log. Error: " + e.getMessage()));
+            if(validSize >= 0) discardFailedWrite(validSize);
+            batch.forEach(pendingWrite -> pendingWrite.future().completeExceptionally(e));
+            return;
+        }
+
+        logRecords += records;
+        for(int i = 0; i < batch.size(); i++) {
+            Map<UUID, Long> joinTimes = batchJoinTimes.get(i);
+            joinTimes.forEach(index::put);
+            batch.get(i).future().complete(joinTimes.size());
+        }
+    }
+
+    /**
+     * Removes the bytes of a failed write from the end of the log. Replaying stops at the first corrupted record,
+     * so records appended after a partial one would otherwise be lost on the next start.
+     * If the log can't be truncated, the writer switches to a new log instead, leaving the partial record at the end of the old one.
+     * @param validSize The size of the log before the failed write.
+     */
+    private void discardFailedWrite(long validSize) {
+        FileChannel logChannel = this.logChannel;
+        if(logChannel == null) return;
+
+        try {
+            logChannel.truncate(validSize);
+            return;
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to remove a failed write from the player data log, a new log will be started. Error: " + e.getMessage()));
+        }
+
+        try {
+            startNextLog();
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to start a new player data log, it will be retried on the next save. Error: " + e.getMessage()));
+            // Nothing may be appended after the partial record, so the old log is closed either way.
+            if(this.logChannel != logChannel) return;
+
+            this.logChannel = null;
+            try {
+                logChannel.close();
+            } catch (IOException closeException) {
+                logger.error(AdventureUtil.serialize("Failed to close the player data log. Error: " + closeException.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Closes the current log and switches to a new one.
+     * @return The {@link FileChannel} of the new log.
+     * @throws IOException if the new log couldn't be opened, in which case the current log stays in use, or if the current log couldn't be closed.
+     */
+    private @NotNull FileChannel startNextLog() throws IOException {
+        FileChannel nextLogChannel = openLog(logNumber + 1);
+        FileChannel previousLogChannel = logChannel;
+        logChannel = nextLogChannel;
+        logNumber++;
+
+        if(previousLogChannel != null) previousLogChannel.close();
+        return nextLogChannel;
+    }
+
+    /**
+     * Checks if enough records in the segment and logs were overwritten to compact them.
+     * @return true if a compaction should run, otherwise false.
+     */
+    private boolean shouldCompact() {
+        if(compacting.get() || logRecords < MIN_COMPACTION_RECORDS) return false;
+
+        long totalRecords = segmentRecords + logRecords;
+        long deadRecords = totalRecords - index.size();
+
+        return (double) deadRecords / totalRecords >= compactionThreshold;
+    }
+
+    /**
+     * Switches to a new log file and writes the live entries to a new segment in the background.
+     * Once the segment is written, the files it replaces are deleted.
+     */
+    private void rotateAndCompact() {
+        long previousLogNumber = logNumber;
+        long nextLogNumber = logNumber + 1;
+
+        try {
+            startNextLog();
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to start a new player data log, compaction is skipped. Error: " + e.getMessage()));
+            return;
+        }
+
+        // Every record written so far is in the logs before the new one, so the index is exactly what the new segment must contain.
+        Map<UUID, PlayerData> liveEntries = index.copy();
+        segmentRecords = liveEntries.size();
+        logRecords = 0;
+        compacting.set(true);
+
+        compactionExecutor.execute(() -> {
+            try {
+                long bytesBefore = getDirectorySize();
+                PlayerDataSnapshot.write(getSegmentPath(nextLogNumber), nextLogNumber, liveEntries);
+                deleteFilesBefore(nextLogNumber);
+
+                logger.info(AdventureUtil.serialize("Compacted the player data log through log " + previousLogNumber + ", reclaiming " + Math.max(0, bytesBefore - getDirectorySize()) + " bytes."));
+            } catch (IOException e) {
+                logger.error(AdventureUtil.serialize("Failed to compact the player data log. Error: " + e.getMessage()));
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Loads the latest valid segment and replays the logs written after it into the index, then opens the latest log for appending.
+     * A torn record at the end of the latest log, left by a crash during a write, is truncated.
+     * @throws IOException if the files couldn't be read.
+     */
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+
+        TreeSet<Long> segmentNumbers = new TreeSet<>();
+        TreeSet<Long> logNumbers = new TreeSet<>();
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for(Path path : paths) {
+                String fileName = path.getFileName().toString();
+                Long segmentNumber = parseNumber(fileName, SEGMENT_PREFIX);
+                Long logNumber = parseNumber(fileName, LOG_PREFIX);
+                if(segmentNumber != null) segmentNumbers.add(segmentNumber);
+                if(logNumber != null) logNumbers.add(logNumber);
+            }
+        }
+
+        long baseNumber = 0;
+        for(Long segmentNumber : segmentNumbers.descendingSet()) {
+            PlayerDataSnapshot segment = PlayerDataSnapshot.open(getSegmentPath(segmentNumber), segmentNumber);
+            if(segment == null) {
+                logger.error(AdventureUtil.serialize("The player data segment " + getSegmentPath(segmentNumber) + " is corrupted, an older segment will be used."));
+                continue;
+            }
+
+            segment.forEach((uuid, playerData) -> index.put(uuid, playerData.getJoinTime()));
+            segmentRecords = segment.size();
+            baseNumber = segmentNumber;
+            break;
+        }
+
+        long latestLogNumber = Math.max(baseNumber, logNumbers.isEmpty() ? baseNumber : logNumbers.last());
+        for(Long logNumber : logNumbers.tailSet(baseNumber, true)) {
+            logRecords += replay(getLogPath(logNumber), logNumber == latestLogNumber);
+        }
+
+        logNumber = latestLogNumber;
+        logChannel = openLog(latestLogNumber);
+
+        deleteFilesBefore(baseNumber);
+
+        logger.info(AdventureUtil.serialize("Loaded the data of " + index.size() + " players from the player data log."));
+    }
+
+    /**
+     * Replays the records of a log file into the index.
+     * @param path The {@link Path} of the log file.
+     * @param latest Is this the latest log, whose torn tail may be truncated?
+     * @return The number of records replayed.
+     * @throws IOException if the file couldn't be read.
+     */
+    private long replay(@NotNull Path path, boolean latest) throws IOException {
+        long records = 0;
+
+        try(FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            long validSize = 0;
+
+            reading:
+            while(true) {
+                int read = fileChannel.read(buffer);
+                buffer.flip();
+
+                while(buffer.remaining() >= RECORD_SIZE) {
+                    long mostSigBits = buffer.getLong();
+                    long leastSigBits = buffer.getLong();
+                    long joinTime = buffer.getLong();
+                    if(buffer.getInt() != checksum(mostSigBits, leastSigBits, joinTime)) break reading;
+
+                    index.put(new UUID(mostSigBits, leastSigBits), joinTime);
+                    validSize += RECORD_SIZE;
+                    records++;
+                }
+
+                buffer.compact();
+                // Any bytes left over at the end of the file are an incomplete record.
+                if(read < 0) break;
+            }
+
+            if(validSize < fileChannel.size()) {
+                if(latest) {
+                    logger.warn(AdventureUtil.serialize("Truncating " + (fileChannel.size() - validSize) + " bytes of incomplete records at the end of " + path + "."));
+                    fileChannel.truncate(validSize);
+                } else {
+                    logger.error(AdventureUtil.serialize("The player data log " + path + " contains corrupted records after byte " + validSize + ", which were skipped."));
+                }
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Opens a log file for appending, creating it if it doesn't exist.
+     * @param logNumber The number of the log.
+     * @return The {@link FileChannel}.
+     * @throws IOException if the file couldn't be opened.
+     */
+    private @NotNull FileChannel openLog(long logNumber) throws IOException {
+        return FileChannel.open(getLogPath(logNumber), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Deletes the segments and logs that a segment with the number provided replaces.
+     * @param number The number of the segment.
+     */
+    private void deleteFilesBefore(long number) {
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for(Path path : paths) {
+                String fileName = path.getFileName().toString();
+                Long segmentNumber = parseNumber(fileName, SEGMENT_PREFIX);
+                Long logNumber = parseNumber(fileName, LOG_PREFIX);
+
+                if((segmentNumber != null && segmentNumber < number) || (logNumber != null && logNumber < number)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to delete old player data log files. Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the combined size of the segments and logs.
+     * @return The size in bytes.
+     * @throws IOException if the sizes couldn't be read.
+     */
+    private long getDirectorySize() throws IOException {
+        long size = 0;
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for(Path path : paths) size += Files.size(path);
+        }
+
+        return size;
+    }
+
+    /**
+     * Get the {@link Path} of a segment.
+     * @param number The number of the segment.
+     * @return The {@link Path}.
+     */
+    private @NotNull Path getSegmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + FILE_SUFFIX);
+    }
+
+    /**
+     * Get the {@link Path} of a log.
+     * @param number The number of the log.
+     * @return The {@link Path}.
+     */
+    private @NotNull Path getLogPath(long number) {
+        return directory.resolve(LOG_PREFIX + number + FILE_SUFFIX);
+    }
+
+    /**
+     * Parses the number of a segment or log from its file name.
+     * @param fileName The file name.
+     * @param prefix The prefix of the file type.
+     * @return The number or null if the file name isn't of that type.
+     */
+    private static @Nullable Long parseNumber(@NotNull String fileName, @NotNull String prefix) {
+        if(!fileName.startsWith(prefix) || !fileName.endsWith(FILE_SUFFIX)) return null;
+
+        try {
+            return Long.parseLong(fileName.substring(prefix.length(), fileName.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a record to the {@link ByteBuffer} provided.
+     * @param buffer The {@link ByteBuffer} to write to.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The join time. 0 deletes the player's data.
+     */
+    private void putRecord(@NotNull ByteBuffer buffer, @NotNull UUID uuid, long joinTime) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        buffer.putLong(joinTime);
+        buffer.putInt(checksum(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), joinTime));
+    }
+
+    /**
+     * Calculates the checksum of a record.
+     * @param mostSigBits The most significant bits of the player's {@link UUID}.
+     * @param leastSigBits The least significant bits of the player's {@link UUID}.
+     * @param joinTime The join time.
+     * @return The checksum.
+     */
+    private int checksum(long mostSigBits, long leastSigBits, long joinTime) {
+        checksumBuffer.clear();
+        checksumBuffer.putLong(mostSigBits).putLong(leastSigBits).putLong(joinTime).flip();
+
+        checksumCrc.reset();
+        checksumCrc.update(checksumBuffer);
+        return (int) checksumCrc.getValue();
+    }
+
+    /**
+     * A save waiting to be written by the writer thread.
+     * @param joinTimes The {@link Map} mapping {@link UUID}s to the join times to write.
+     * @param expectedJoinTimes The join times players must still have for their record to be written, or null to always write every record.
+     * @param future The {@link CompletableFuture} to complete with the number of records written once they were forced to disk.
+     */
+    private record PendingWrite(@NotNull Map<UUID, Long> joinTimes, @Nullable Map<UUID, Long> expectedJoinTimes, @NotNull CompletableFuture<Integer> future) {}
+}
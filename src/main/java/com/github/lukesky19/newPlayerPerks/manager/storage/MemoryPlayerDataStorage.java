@@ -0,0 +1,220 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class stores player data in memory only. Used for MEMORY.
+ * No database is opened and every operation completes right away. If a dump file is configured, player data is dumped to it periodically
+ * and when the storage is closed, and loaded from it again on the next start. Dumps use the {@link PlayerDataSnapshot} file format.
+ */
+public class MemoryPlayerDataStorage implements PlayerDataStorage {
+    // Dumps aren't tied to a database generation, so they are always written and opened at the same one.
+    private static final long DUMP_GENERATION = 0;
+
+    private final @NotNull ComponentLogger logger;
+    private final @Nullable Path dumpPath;
+    private final long dumpIntervalMillis;
+
+    private final @NotNull JoinTimeIndex index = new JoinTimeIndex();
+    private final @NotNull AtomicLong generation = new AtomicLong();
+    private final @NotNull AtomicBoolean dirty = new AtomicBoolean(false);
+
+    private @Nullable CompletableFuture<Void> initializeFuture;
+    private @Nullable ScheduledExecutorService dumpExecutor;
+
+    /**
+     * Constructor
+     * @param logger The {@link ComponentLogger} to log with.
+     * @param dumpPath The {@link Path} of the dump file or null to only keep player data in memory.
+     * @param dumpIntervalMillis How many milliseconds to wait between dumps. Ignored if dumpPath is null.
+     */
+    public MemoryPlayerDataStorage(@NotNull ComponentLogger logger, @Nullable Path dumpPath, long dumpIntervalMillis) {
+        this.logger = logger;
+        this.dumpPath = dumpPath;
+        this.dumpIntervalMillis = dumpIntervalMillis;
+    }
+
+    /**
+     * Loads the dump file, if one is configured, and starts dumping player data periodically.
+     * @return A {@link CompletableFuture} of type {@link Void}. Always completes normally.
+     */
+    @Override
+    public synchronized @NotNull CompletableFuture<Void> initialize() {
+        if(initializeFuture != null) return initializeFuture;
+
+        if(dumpPath != null) {
+            loadDump(dumpPath);
+
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("NewPlayerPerks-MemoryDump").daemon(true).factory());
+            dumpExecutor.scheduleWithFixedDelay(this::dump, dumpIntervalMillis, dumpIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        initializeFuture = CompletableFuture.completedFuture(null);
+        return initializeFuture;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
+        return CompletableFuture.completedFuture(index.get(uuid));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        store(uuid, playerData);
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        playerDataMap.forEach(this::store);
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        boolean extended = index.extend(uuid, millis);
+        if(extended) dirty.set(true);
+
+        return CompletableFuture.completedFuture(extended);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updatePeriod(long period, @NotNull PeriodMode periodMode) {
+        index.setPeriod(period);
+
+        return initialize();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> advanceGeneration() {
+        return CompletableFuture.completedFuture(generation.incrementAndGet());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to) {
+        return CompletableFuture.completedFuture(index.countExpiringBetween(from, to));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        return CompletableFuture.completedFuture(index.getExpiringBetween(from, to, after, limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        long rowsRemoved = 0;
+        for(Map.Entry<UUID, Long> entry : index.getExpired(expiredBefore).entrySet()) {
+            if(index.remove(entry.getKey(), entry.getValue())) rowsRemoved++;
+        }
+
+        if(rowsRemoved > 0) dirty.set(true);
+
+        return CompletableFuture.completedFuture(new PurgeResult(rowsRemoved, 0));
+    }
+
+    /**
+     * Stops the periodic dump and dumps player data a final time.
+     */
+    @Override
+    public synchronized void close() {
+        if(dumpExecutor == null) return;
+
+        dumpExecutor.shutdownNow();
+        try {
+            if(!dumpExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn(AdventureUtil.serialize("The periodic player data dump did not stop in time."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        dump();
+    }
+
+    /**
+     * Stores or removes a player's join time. Default {@link PlayerData} removes the player's entry.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData} to store.
+     */
+    private void store(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        index.put(uuid, playerData.getJoinTime());
+
+        dirty.set(true);
+    }
+
+    /**
+     * Writes all player data to the dump file if it changed since the last dump.
+     */
+    private void dump() {
+        if(dumpPath == null || !dirty.getAndSet(false)) return;
+
+        try {
+            PlayerDataSnapshot.write(dumpPath, DUMP_GENERATION, index.copy());
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.error(AdventureUtil.serialize("Failed to dump player data to " + dumpPath + ". The previous dump was kept and the dump will be retried. Error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Loads the player data in the dump file, if it exists.
+     * @param dumpPath The {@link Path} of the dump file.
+     */
+    private void loadDump(@NotNull Path dumpPath) {
+        try {
+            if(!Files.exists(dumpPath)) return;
+
+            PlayerDataSnapshot dump = PlayerDataSnapshot.open(dumpPath, DUMP_GENERATION);
+            if(dump == null) {
+                logger.error(AdventureUtil.serialize("The player data dump " + dumpPath + " is corrupted and was not loaded."));
+                return;
+            }
+
+            dump.forEach((uuid, playerData) -> index.put(uuid, playerData.getJoinTime()));
+
+            logger.info(AdventureUtil.serialize("Loaded the data of " + index.size() + " players from " + dumpPath + "."));
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to load the player data dump " + dumpPath + ". Error: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * This class reads and writes the warm-start snapshot of player data.
+ * The snapshot is a binary file of fixed-width records (UUID, join time and playtime) sorted by UUID, which is read into memory once and searched with a binary search.
+ * The file is not memory-mapped, because a mapping keeps the file open until it is garbage collected and on Windows that stops it from being replaced.
+ * The header stores the storage generation the snapshot was taken at and a checksum of the records. The storage stays authoritative:
+ * a snapshot is only opened if its generation matches and its checksum is valid.
+ */
+public class PlayerDataSnapshot {
+    private static final int MAGIC = 0x4E505053; // NPPS
+    private static final int FORMAT_VERSION = 2;
+    // Version 1 records have no playtime. Segments and dumps written in it are still read.
+    private static final int FORMAT_VERSION_WITHOUT_PLAYTIME = 1;
+    // magic (4) + format version (4) + generation (8) + record count (4) + checksum (4)
+    private static final int HEADER_SIZE = 24;
+    // most significant bits (8) + least significant bits (8) + join time (8) + playtime (8)
+    private static final int RECORD_SIZE = 32;
+    // most significant bits (8) + least significant bits (8) + join time (8)
+    private static final int RECORD_SIZE_WITHOUT_PLAYTIME = 24;
+
+    private final @NotNull ByteBuffer buffer;
+    private final int recordCount;
+    private final int recordSize;
+
+    /**
+     * Constructor
+     * @param buffer The {@link ByteBuffer} containing the snapshot file. Must have been validated.
+     * @param recordCount The number of records in the snapshot.
+     * @param recordSize The size of each record in bytes.
+     */
+    private PlayerDataSnapshot(@NotNull ByteBuffer buffer, int recordCount, int recordSize) {
+        this.buffer = buffer;
+        this.recordCount = recordCount;
+        this.recordSize = recordSize;
+    }
+
+    /**
+     * Get the number of players in the snapshot.
+     * @return The number of players.
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Get the {@link PlayerData} stored in the snapshot for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return The {@link PlayerData} or null if the player is not in the snapshot.
+     */
+    public @Nullable PlayerData getPlayerData(@NotNull UUID uuid) {
+        long mostSigBits = uuid.getMostSignificantBits();
+        long leastSigBits = uuid.getLeastSignificantBits();
+
+        int low = 0;
+        int high = recordCount - 1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_SIZE + middle * recordSize;
+
+            int comparison = compare(buffer.getLong(offset), buffer.getLong(offset + 8), mostSigBits, leastSigBits);
+            if(comparison < 0) {
+                low = middle + 1;
+            } else if(comparison > 0) {
+                high = middle - 1;
+            } else {
+                return getPlayerData(offset);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Passes every player in the snapshot to the {@link BiConsumer} provided, in {@link UUID} order.
+     * @param consumer The {@link BiConsumer} accepting the {@link UUID} and {@link PlayerData} of each player.
+     */
+    public void forEach(@NotNull BiConsumer<UUID, PlayerData> consumer) {
+        for(int index = 0; index < recordCount; index++) {
+            int offset = HEADER_SIZE + index * recordSize;
+
+            consumer.accept(new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)), getPlayerData(offset));
+        }
+    }
+
+    /**
+     * Reads the {@link PlayerData} of the record at the offset provided.
+     * @param offset The offset of the record.
+     * @return The {@link PlayerData}.
+     */
+    private @NotNull PlayerData getPlayerData(int offset) {
+        if(recordSize == RECORD_SIZE_WITHOUT_PLAYTIME) return new PlayerData(buffer.getLong(offset + 16));
+
+        return new PlayerData(buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+    }
+
+    /**
+     * Opens the snapshot file at the {@link Path} provided and reads it into memory. The file is closed before this returns.
+     * @param path The {@link Path} of the snapshot file.
+     * @param generation The storage generation the snapshot must have been taken at.
+     * @return The {@link PlayerDataSnapshot} or null if the file doesn't exist, is out of date or is corrupted.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static @Nullable PlayerDataSnapshot open(@NotNull Path path, long generation) throws IOException {
+        if(!Files.isRegularFile(path)) return null;
+
+        ByteBuffer buffer;
+        try(FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            if(size < HEADER_SIZE || size > Integer.MAX_VALUE) return null;
+
+            buffer = ByteBuffer.allocate((int) size);
+            while(buffer.hasRemaining()) {
+                if(fileChannel.read(buffer) < 0) return null;
+            }
+            buffer.flip();
+        }
+
+        if(buffer.getInt(0) != MAGIC) return null;
+
+        int recordSize = switch(buffer.getInt(4)) {
+            case FORMAT_VERSION -> RECORD_SIZE;
+            case FORMAT_VERSION_WITHOUT_PLAYTIME -> RECORD_SIZE_WITHOUT_PLAYTIME;
+            default -> 0;
+        };
+        if(recordSize == 0) return null;
+        if(buffer.getLong(8) != generation) return null;
+
+        int recordCount = buffer.getInt(16);
+        if(recordCount < 0 || (long) HEADER_SIZE + (long) recordCount * recordSize != buffer.capacity()) return null;
+
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(buffer.slice(HEADER_SIZE, recordCount * recordSize));
+        if((int) crc32c.getValue() != buffer.getInt(20)) return null;
+
+        return new PlayerDataSnapshot(buffer, recordCount, recordSize);
+    }
+
+    /**
+     * Writes a snapshot of the player data provided to the {@link Path} provided, replacing any existing snapshot.
+     * The file is written next to the target first and then moved into place, so a crash never leaves a partial snapshot behind.
+     * If it can't be moved into place, the temporary file is deleted and the existing snapshot is kept.
+     * @param path The {@link Path} of the snapshot file.
+     * @param generation The storage generation the player data was saved at.
+     * @param playerDataMap The {@link Map} mapping {@link UUID}s to {@link PlayerData} to write.
+     * @throws IOException if the file couldn't be written.
+     */
+    public static void write(@NotNull Path path, long generation, @NotNull Map<UUID, PlayerData> playerDataMap) throws IOException {
+        List<UUID> uuids = new ArrayList<>(playerDataMap.keySet());
+        uuids.sort((first, second) -> compare(first.getMostSignificantBits(), first.getLeastSignificantBits(), second.getMostSignificantBits(), second.getLeastSignificantBits()));
+
+        ByteBuffer records = ByteBuffer.allocate(uuids.size() * RECORD_SIZE);
+        for(UUID uuid : uuids) {
+            records.putLong(uuid.getMostSignificantBits());
+            records.putLong(uuid.getLeastSignificantBits());
+            PlayerData playerData = playerDataMap.get(uuid);
+            records.putLong(playerData.getJoinTime());
+            records.putLong(playerData.getPlaytime());
+        }
+        records.flip();
+
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(records.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putLong(generation);
+        header.putInt(uuids.size());
+        header.putInt((int) crc32c.getValue());
+        header.flip();
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try(FileChannel fileChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(header.hasRemaining()) fileChannel.write(header);
+            while(records.hasRemaining()) fileChannel.write(records);
+            fileChannel.force(true);
+        }
+
+        try {
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Compares two {@link UUID}s by their bits as unsigned numbers, which is the order records are sorted in.
+     * @param firstMostSigBits The most significant bits of the first {@link UUID}.
+     * @param firstLeastSigBits The least significant bits of the first {@link UUID}.
+     * @param secondMostSigBits The most significant bits of the second {@link UUID}.
+     * @param secondLeastSigBits The least significant bits of the second {@link UUID}.
+     * @return A negative number, zero, or a positive number if the first {@link UUID} is less than, equal to, or greater than the second.
+     */
+    private static int compare(long firstMostSigBits, long firstLeastSigBits, long secondMostSigBits, long secondLeastSigBits) {
+        int comparison = Long.compareUnsigned(firstMostSigBits, secondMostSigBits);
+        if(comparison != 0) return comparison;
+
+        return Long.compareUnsigned(firstLeastSigBits, secondLeastSigBits);
+    }
+}
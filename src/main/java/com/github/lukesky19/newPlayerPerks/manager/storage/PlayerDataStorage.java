@@ -0,0 +1,160 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This interface is the contract between the {@link com.github.lukesky19.newPlayerPerks.manager.PlayerDataManager} and the backend that stores player data.
+ */
+public interface PlayerDataStorage {
+    /**
+     * Get the {@link CompletableFuture} that completes once the storage is ready to be used, e.g., after any schema migrations have run.
+     * No player data should be loaded or saved before it completes. Calling this multiple times returns the same {@link CompletableFuture}.
+     * @return A {@link CompletableFuture} of type {@link Void}. Completes exceptionally if the storage couldn't be initialized.
+     */
+    @NotNull CompletableFuture<Void> initialize();
+
+    /**
+     * Checks if the storage stores the playtime of {@link PlayerData}, which is needed for periods that only count while players are online.
+     * Storage that doesn't support it only stores the join time.
+     * @return true if playtime is stored, otherwise false.
+     */
+    default boolean isPlaytimeSupported() {
+        return false;
+    }
+
+    /**
+     * Loads the {@link PlayerData} for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing {@link PlayerData}. May be null if no data is stored, which means the player has default {@link PlayerData}.
+     */
+    @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid);
+
+    /**
+     * Saves the {@link PlayerData} for the {@link UUID} provided.
+     * Default {@link PlayerData} is not stored. Saving it removes any data stored for the player.
+     * @param uuid The {@link UUID} the {@link PlayerData} belongs to.
+     * @param playerData The {@link PlayerData} to save.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData);
+
+    /**
+     * Saves all data in the {@link Map} mapping {@link UUID}s to {@link PlayerData} provided.
+     * Default {@link PlayerData} is not stored. Saving it removes any data stored for the player.
+     * @param playerDataMap The {@link Map} mapping {@link UUID}s to {@link PlayerData} to save.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap);
+
+    /**
+     * Saves the {@link PlayerData} for the {@link UUID} provided as of the time provided.
+     * Storage that keeps the time each player's data was last updated only applies the save if the stored data is older,
+     * so repeating the save can't overwrite a newer one. Other storage ignores the time.
+     * @param uuid The {@link UUID} the {@link PlayerData} belongs to.
+     * @param playerData The {@link PlayerData} to save.
+     * @param lastUpdated The epoch millisecond the save was requested at.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    default @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData, long lastUpdated) {
+        return savePlayerData(uuid, playerData);
+    }
+
+    /**
+     * Saves all data in the {@link Map} mapping {@link UUID}s to {@link PlayerData} provided as of the time provided.
+     * Storage that keeps the time each player's data was last updated only applies the save if the stored data is older,
+     * so repeating the save can't overwrite a newer one. Other storage ignores the time.
+     * @param playerDataMap The {@link Map} mapping {@link UUID}s to {@link PlayerData} to save.
+     * @param lastUpdated The epoch millisecond the save was requested at.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    default @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap, long lastUpdated) {
+        return savePlayerData(playerDataMap);
+    }
+
+    /**
+     * Moves the stored join time of a player who has perks by the number of milliseconds provided, as a single atomic change.
+     * A tracked playtime is reduced by the same amount. Players with default {@link PlayerData} are left as they are.
+     * @param uuid The {@link UUID} of the player.
+     * @param millis The number of milliseconds to extend the player's perks by. Negative to shorten them.
+     * @return A {@link CompletableFuture} containing true if the player had perks stored, otherwise false.
+     */
+    @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis);
+
+    /**
+     * Sets the period perks last for and how it counts down, which are used to calculate the stored expiry time of each player.
+     * If either changed, the stored expiry times are recalculated.
+     * @param period The number of milliseconds perks last for.
+     * @param periodMode The {@link PeriodMode}. Ignored if {@link #isPlaytimeSupported()} returns false.
+     * @return A {@link CompletableFuture} of type {@link Void} when complete.
+     */
+    @NotNull CompletableFuture<Void> updatePeriod(long period, @NotNull PeriodMode periodMode);
+
+    /**
+     * Increments the storage's generation and returns the new generation. The generation is stored with the player data.
+     * A copy of player data taken at one generation is out of date once the generation was advanced again.
+     * @return A {@link CompletableFuture} containing the new generation.
+     */
+    @NotNull CompletableFuture<Long> advanceGeneration();
+
+    /**
+     * Counts the players whose perks expire after {@code from} and at or before {@code to}.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @return A {@link CompletableFuture} containing the number of players.
+     */
+    @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to);
+
+    /**
+     * Get a page of players whose perks expire after {@code from} and at or before {@code to}, ordered by expiry time and then {@link UUID}.
+     * @param from The exclusive lower bound as an epoch millisecond.
+     * @param to The inclusive upper bound as an epoch millisecond.
+     * @param after The last {@link PlayerExpiry} of the previous page or null for the first page.
+     * @param limit The maximum number of entries to return.
+     * @return A {@link CompletableFuture} containing a {@link List} of {@link PlayerExpiry}.
+     */
+    @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit);
+
+    /**
+     * Deletes the data of players whose perks expired at or before the time provided and shrinks the storage if it can.
+     * The purge runs in the background in small batches and should never delay players being loaded or saved.
+     * @param expiredBefore The epoch millisecond. Data of players whose perks expired at or before it is deleted.
+     * @param batchSize The maximum number of players to delete at once.
+     * @param batchDelayMillis How many milliseconds to wait between batches.
+     * @param stopRequested Checked between batches. Once it returns true, the purge stops early and completes with what it removed so far.
+     * @return A {@link CompletableFuture} containing the {@link PurgeResult}.
+     */
+    @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested);
+
+    /**
+     * Closes the storage backend. Called when the plugin is disabled.
+     */
+    void close();
+}
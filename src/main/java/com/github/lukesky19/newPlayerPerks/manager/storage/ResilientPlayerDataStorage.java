@@ -0,0 +1,266 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.data.Settings;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class wraps another {@link PlayerDataStorage} so a slow or failing backend can't leave futures that never complete.
+ * Every operation has a deadline and is retried a bounded number of times with a randomized, growing delay.
+ * A {@link CircuitBreaker} fails operations fast while the backend is unhealthy.
+ * Deadlines start once the backend is initialized, so a long schema migration doesn't count against them.
+ */
+public class ResilientPlayerDataStorage implements PlayerDataStorage {
+    private final @NotNull PlayerDataStorage delegate;
+    private final @NotNull CircuitBreaker circuitBreaker;
+    private final long timeoutMillis;
+    private final long bulkTimeoutMillis;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    /**
+     * Constructor
+     * @param logger The {@link ComponentLogger} to log circuit breaker state changes with.
+     * @param delegate The {@link PlayerDataStorage} to wrap.
+     * @param resilience The {@link Settings.Storage.Resilience} configuration. All values must be set.
+     */
+    public ResilientPlayerDataStorage(@NotNull ComponentLogger logger, @NotNull PlayerDataStorage delegate, @NotNull Settings.Storage.Resilience resilience) {
+        this.delegate = delegate;
+        this.circuitBreaker = new CircuitBreaker(logger, resilience.failureThreshold(), resilience.cooldownMillis());
+        this.timeoutMillis = resilience.timeoutMillis();
+        this.bulkTimeoutMillis = resilience.bulkTimeoutMillis();
+        this.maxAttempts = resilience.maxAttempts();
+        this.backoffMillis = resilience.backoffMillis();
+    }
+
+    /**
+     * Get the {@link CircuitBreaker} guarding the wrapped storage.
+     * @return The {@link CircuitBreaker}.
+     */
+    public @NotNull CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> initialize() {
+        return delegate.initialize();
+    }
+
+    @Override
+    public boolean isPlaytimeSupported() {
+        return delegate.isPlaytimeSupported();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
+        return call(timeoutMillis, () -> delegate.loadPlayerData(uuid));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        return savePlayerData(uuid, playerData, System.currentTimeMillis());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        return savePlayerData(playerDataMap, System.currentTimeMillis());
+    }
+
+    /**
+     * Saves the {@link PlayerData} with a deadline and retries.
+     * A timed out attempt stays queued and may still be applied, so every attempt carries the same last updated time.
+     * An attempt that is applied after a newer save then leaves the newer data in place.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData, long lastUpdated) {
+        // Copy the join time and playtime now so a retry writes the values the caller saved.
+        PlayerData snapshot = new PlayerData(playerData.getJoinTime(), playerData.getPlaytime());
+
+        return call(timeoutMillis, () -> delegate.savePlayerData(uuid, snapshot, lastUpdated));
+    }
+
+    /**
+     * Saves all data in the {@link Map} with a deadline and retries.
+     * A timed out attempt stays queued and may still be applied, so every attempt carries the same last updated time.
+     * An attempt that is applied after a newer save then leaves the newer data in place.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap, long lastUpdated) {
+        // Copy the map now so a retry doesn't see changes made by the main thread in between attempts.
+        Map<UUID, PlayerData> snapshot = new HashMap<>(playerDataMap.size());
+        playerDataMap.forEach((uuid, playerData) -> snapshot.put(uuid, new PlayerData(playerData.getJoinTime(), playerData.getPlaytime())));
+
+        return call(bulkTimeoutMillis, () -> delegate.savePlayerData(snapshot, lastUpdated));
+    }
+
+    /**
+     * Extends a player's perks with a deadline but without retries.
+     * An attempt that timed out may still have been applied, so retrying it could extend the player's perks twice.
+     */
+    @Override
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        // The UPDATE adds to the stored join time, so it isn't idempotent and must not be retried.
+        return callOnce(timeoutMillis, () -> delegate.extendPerks(uuid, millis));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updatePeriod(long period, @NotNull PeriodMode periodMode) {
+        return call(bulkTimeoutMillis, () -> delegate.updatePeriod(period, periodMode));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> advanceGeneration() {
+        return call(timeoutMillis, delegate::advanceGeneration);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to) {
+        return call(timeoutMillis, () -> delegate.countPlayersExpiringBetween(from, to));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        return call(timeoutMillis, () -> delegate.getPlayersExpiringBetween(from, to, after, limit));
+    }
+
+    /**
+     * Purges expired player data without a deadline or retries, as a purge is paced and may take a long time.
+     * A failed purge is simply run again at the next interval. Fails fast while the circuit breaker is open.
+     */
+    @Override
+    public @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        if(circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            return CompletableFuture.failedFuture(new StorageUnavailableException("Player data storage is unavailable. Try again later."));
+        }
+
+        return delegate.purgeExpired(expiredBefore, batchSize, batchDelayMillis, stopRequested);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Runs an operation once the wrapped storage is initialized, with a deadline, retries, and the {@link CircuitBreaker}.
+     * @param timeout The deadline of each attempt in milliseconds.
+     * @param operation The {@link Supplier} that starts the operation on the wrapped storage.
+     * @return A {@link CompletableFuture} containing the operation's result.
+     * Completes exceptionally with a {@link StorageUnavailableException} if the circuit breaker is open.
+     * @param <T> The type of the operation's result.
+     */
+    private <T> @NotNull CompletableFuture<T> call(long timeout, @NotNull Supplier<CompletableFuture<T>> operation) {
+        return delegate.initialize().thenCompose(v -> attempt(timeout, operation, 1, true));
+    }
+
+    /**
+     * Runs an operation once the wrapped storage is initialized, with a deadline and the {@link CircuitBreaker}, but without retries.
+     * Use this for operations that aren't idempotent, since an attempt that timed out may still be applied.
+     * @param timeout The deadline of the attempt in milliseconds.
+     * @param operation The {@link Supplier} that starts the operation on the wrapped storage.
+     * @return A {@link CompletableFuture} containing the operation's result.
+     * Completes exceptionally with a {@link StorageUnavailableException} if the circuit breaker is open.
+     * @param <T> The type of the operation's result.
+     */
+    private <T> @NotNull CompletableFuture<T> callOnce(long timeout, @NotNull Supplier<CompletableFuture<T>> operation) {
+        return delegate.initialize().thenCompose(v -> attempt(timeout, operation, 1, false));
+    }
+
+    /**
+     * Makes one attempt at an operation and schedules the next one if it failed.
+     * @param timeout The deadline of the attempt in milliseconds.
+     * @param operation The {@link Supplier} that starts the operation on the wrapped storage.
+     * @param attempt The number of this attempt, starting at 1.
+     * @param retry true to retry a failed attempt up to the maximum number of attempts, false to fail right away.
+     * @return A {@link CompletableFuture} containing the operation's result.
+     * @param <T> The type of the operation's result.
+     */
+    private <T> @NotNull CompletableFuture<T> attempt(long timeout, @NotNull Supplier<CompletableFuture<T>> operation, int attempt, boolean retry) {
+        if(!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new StorageUnavailableException("Player data storage is unavailable. Try again later."));
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = operation.get().copy();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.orTimeout(timeout, TimeUnit.MILLISECONDS).handle((result, throwable) -> {
+            if(throwable == null) {
+                circuitBreaker.recordSuccess();
+                return CompletableFuture.completedFuture(result);
+            }
+
+            circuitBreaker.recordFailure();
+
+            Throwable cause = unwrap(throwable);
+            if(!retry || attempt >= maxAttempts || cause instanceof StorageUnavailableException) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+
+            return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(getBackoff(attempt), TimeUnit.MILLISECONDS))
+                    .thenCompose(v -> attempt(timeout, operation, attempt + 1, true));
+        }).thenCompose(next -> next);
+    }
+
+    /**
+     * Get a randomized delay before the next attempt. The upper bound doubles every attempt.
+     * @param attempt The number of the attempt that failed, starting at 1.
+     * @return The delay in milliseconds.
+     */
+    private long getBackoff(int attempt) {
+        long maxDelay = backoffMillis << Math.min(attempt - 1, 10);
+        if(maxDelay <= 0) return 0;
+
+        return ThreadLocalRandom.current().nextLong(maxDelay / 2, maxDelay + 1);
+    }
+
+    /**
+     * Unwraps the cause of a {@link CompletionException} or {@link ExecutionException}.
+     * @param throwable The {@link Throwable} to unwrap.
+     * @return The cause or the {@link Throwable} provided if it isn't a wrapper.
+     */
+    private @NotNull Throwable unwrap(@NotNull Throwable throwable) {
+        while((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+
+        return throwable;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import com.github.lukesky19.newPlayerPerks.data.PlayerExpiry;
+import com.github.lukesky19.newPlayerPerks.data.PurgeResult;
+import com.github.lukesky19.newPlayerPerks.manager.database.DatabaseManager;
+import com.github.lukesky19.newPlayerPerks.manager.database.tables.PlayerDataTable;
+import com.github.lukesky19.newPlayerPerks.util.PeriodMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class stores player data in a SQL database. Used for SQLite, H2, MySQL, MariaDB, and PostgreSQL.
+ * Reads and writes wait for the database's schema migrations to finish first.
+ */
+public class SqlPlayerDataStorage implements PlayerDataStorage {
+    private final @NotNull DatabaseManager databaseManager;
+
+    /**
+     * Constructor
+     * @param databaseManager A {@link DatabaseManager} instance.
+     */
+    public SqlPlayerDataStorage(@NotNull DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> initialize() {
+        return databaseManager.getSchemaMigrationFuture();
+    }
+
+    @Override
+    public boolean isPlaytimeSupported() {
+        return true;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.loadPlayerData(uuid));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        return savePlayerData(uuid, playerData, System.currentTimeMillis());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        return savePlayerData(playerDataMap, System.currentTimeMillis());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData, long lastUpdated) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.savePlayerData(uuid, playerData, lastUpdated));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> savePlayerData(@NotNull Map<UUID, PlayerData> playerDataMap, long lastUpdated) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.savePlayerData(playerDataMap, lastUpdated));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> extendPerks(@NotNull UUID uuid, long millis) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.extendPerks(uuid, millis));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updatePeriod(long period, @NotNull PeriodMode periodMode) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        playerDataTable.setPeriod(period, periodMode);
+
+        return initialize().thenCompose(v -> playerDataTable.recalculateExpiryTimes()).thenRun(() -> {});
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Long> advanceGeneration() {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.advanceGeneration());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> countPlayersExpiringBetween(long from, long to) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.countPlayersExpiringBetween(from, to));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<PlayerExpiry>> getPlayersExpiringBetween(long from, long to, @Nullable PlayerExpiry after, int limit) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.getPlayersExpiringBetween(from, to, after, limit));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<PurgeResult> purgeExpired(long expiredBefore, int batchSize, long batchDelayMillis, @NotNull BooleanSupplier stopRequested) {
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        return initialize().thenCompose(v -> playerDataTable.purgeExpired(expiredBefore, batchSize, batchDelayMillis, stopRequested));
+    }
+
+    @Override
+    public void close() {
+        databaseManager.handlePluginDisable();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+/**
+ * This enum is used to identify the storage backend configured in settings.yml.
+ */
+public enum StorageType {
+    /**
+     * A local SQLite database file. This is the default.
+     */
+    SQLITE,
+    /**
+     * A local, embedded H2 database file. Can optionally run in a MySQL or PostgreSQL compatibility mode.
+     */
+    H2,
+    /**
+     * A MySQL database server.
+     */
+    MYSQL,
+    /**
+     * A MariaDB database server.
+     */
+    MARIADB,
+    /**
+     * A PostgreSQL database server.
+     */
+    POSTGRESQL,
+    /**
+     * Player data is only kept in memory and optionally dumped to a file periodically. No database is used.
+     */
+    MEMORY,
+    /**
+     * An append-only log of files in the plugin's folder, compacted in the background. No database is used.
+     */
+    LOG
+}
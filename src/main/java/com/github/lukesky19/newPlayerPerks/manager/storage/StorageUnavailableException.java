@@ -0,0 +1,33 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.manager.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown when a player data operation is failed fast because the {@link CircuitBreaker} is open.
+ */
+public class StorageUnavailableException extends RuntimeException {
+    /**
+     * Constructor
+     * @param message The detail message.
+     */
+    public StorageUnavailableException(@NotNull String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * This class contains methods to send the result of a command to the player who ran it, or to the console.
+ */
+public final class CommandMessages {
+    /**
+     * Default Constructor.
+     * This is a utility class and should not be constructed.
+     */
+    private CommandMessages() {}
+
+    /**
+     * Sends a message to the sender or logs it if the command was run from the console.
+     * PlaceholderAPI placeholders are resolved for the sender if they are a player.
+     * @param logger The {@link ComponentLogger} console messages are logged with.
+     * @param sender The {@link CommandSender} who ran the command.
+     * @param template The {@link MessageTemplate} sent to players.
+     * @param consoleTemplate The {@link MessageTemplate} logged to the console.
+     * @param placeholders A {@link Map} mapping placeholder names to their {@link Component} values.
+     */
+    public static void send(@NotNull ComponentLogger logger, @NotNull CommandSender sender, @NotNull MessageTemplate template, @NotNull MessageTemplate consoleTemplate, @NotNull Map<String, Component> placeholders) {
+        send(logger, sender, template, consoleTemplate, sender instanceof Player player ? player : null, placeholders);
+    }
+
+    /**
+     * Sends a message to the sender or logs it if the command was run from the console.
+     * @param logger The {@link ComponentLogger} console messages are logged with.
+     * @param sender The {@link CommandSender} who ran the command.
+     * @param template The {@link MessageTemplate} sent to players.
+     * @param consoleTemplate The {@link MessageTemplate} logged to the console.
+     * @param placeholderPlayer The {@link Player} whose PlaceholderAPI placeholders are used, or null to skip them.
+     * @param placeholders A {@link Map} mapping placeholder names to their {@link Component} values.
+     */
+    public static void send(@NotNull ComponentLogger logger, @NotNull CommandSender sender, @NotNull MessageTemplate template, @NotNull MessageTemplate consoleTemplate, @Nullable Player placeholderPlayer, @NotNull Map<String, Component> placeholders) {
+        if(sender instanceof Player) {
+            sender.sendMessage(template.render(placeholderPlayer, placeholders));
+        } else {
+            logger.info(consoleTemplate.render(placeholderPlayer, placeholders));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+/**
+ * This enum contains where the time players have left on their perks can be displayed.
+ */
+public enum CountdownDisplay {
+    /**
+     * The time left is displayed above the player's hotbar.
+     */
+    ACTION_BAR,
+    /**
+     * The time left is displayed in a boss bar that empties as the player's perks run out.
+     */
+    BOSS_BAR
+}
@@ -0,0 +1,172 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import com.github.lukesky19.newPlayerPerks.data.Locale;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class formats durations using a {@link Locale.TimeMessage} that has been parsed once.
+ * Each time unit is pre-rendered for every value it can hold, so formatting a duration only joins cached {@link Component}s.
+ * Durations are split into years of 365 days, months of 30 days, weeks, days, hours, minutes, and seconds.
+ */
+public final class DurationFormatter {
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long WEEK = 7 * DAY;
+    private static final long MONTH = 30 * DAY;
+    private static final long YEAR = 365 * DAY;
+    private static final long @NotNull [] UNIT_MILLIS = {YEAR, MONTH, WEEK, DAY, HOUR, MINUTE, SECOND};
+    private static final @NotNull String @NotNull [] UNIT_NAMES = {"years", "months", "weeks", "days", "hours", "minutes", "seconds"};
+    private static final int @NotNull [] CACHED_VALUES = {10, 13, 5, 7, 24, 60, 60};
+
+    private final @Nullable Component prefix;
+    private final @Nullable Component suffix;
+    private final @NotNull Unit @NotNull [] units;
+
+    /**
+     * Constructor
+     * @param prefix The {@link Component} to display before the first time unit, or null if there is none.
+     * @param suffix The {@link Component} to display after the last time unit, or null if there is none.
+     * @param units The compiled {@link Unit}s, ordered from years to seconds.
+     */
+    private DurationFormatter(@Nullable Component prefix, @Nullable Component suffix, @NotNull Unit @NotNull [] units) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.units = units;
+    }
+
+    /**
+     * Parses a {@link Locale.TimeMessage} into a {@link DurationFormatter}.
+     * @param timeMessage The {@link Locale.TimeMessage} to parse.
+     * @return A {@link DurationFormatter}.
+     */
+    public static @NotNull DurationFormatter compile(@NotNull Locale.TimeMessage timeMessage) {
+        String[] unitMessages = {
+                timeMessage.years(),
+                timeMessage.months(),
+                timeMessage.weeks(),
+                timeMessage.days(),
+                timeMessage.hours(),
+                timeMessage.minutes(),
+                timeMessage.seconds()};
+
+        Unit[] units = new Unit[unitMessages.length];
+        for(int i = 0; i < unitMessages.length; i++) {
+            MessageTemplate template = MessageTemplate.compile(Objects.requireNonNullElse(unitMessages[i], ""), List.of(UNIT_NAMES[i]));
+            units[i] = new Unit(UNIT_NAMES[i], template, CACHED_VALUES[i]);
+        }
+
+        return new DurationFormatter(compileAffix(timeMessage.prefix()), compileAffix(timeMessage.suffix()), units);
+    }
+
+    /**
+     * Parses the prefix or suffix of a {@link Locale.TimeMessage}.
+     * @param affix The prefix or suffix to parse.
+     * @return The parsed {@link Component} or null if the prefix or suffix is empty.
+     */
+    private static @Nullable Component compileAffix(@Nullable String affix) {
+        if(affix == null || affix.isEmpty()) return null;
+
+        return MessageTemplate.compile(affix, List.of()).render();
+    }
+
+    /**
+     * Formats a duration, displaying each non-zero time unit.
+     * If every time unit is zero, the seconds unit is displayed with a value of zero.
+     * @param timeMilliseconds The duration in milliseconds. Negative durations are formatted as zero.
+     * @return The formatted {@link Component}.
+     */
+    public @NotNull Component format(long timeMilliseconds) {
+        long remaining = Math.max(0L, timeMilliseconds);
+        TextComponent.Builder builder = Component.text();
+
+        if(prefix != null) builder.append(prefix);
+
+        boolean isFirstUnit = true;
+        for(int i = 0; i < units.length; i++) {
+            long value = remaining / UNIT_MILLIS[i];
+            remaining %= UNIT_MILLIS[i];
+            if(value <= 0) continue;
+
+            if(!isFirstUnit) builder.append(Component.space());
+            builder.append(units[i].render(value));
+            isFirstUnit = false;
+        }
+
+        if(isFirstUnit) builder.append(units[units.length - 1].render(0));
+
+        if(suffix != null) builder.append(suffix);
+
+        return builder.build();
+    }
+
+    /**
+     * This class contains a single time unit along with its pre-rendered values.
+     */
+    private static final class Unit {
+        private final @NotNull String name;
+        private final @NotNull MessageTemplate template;
+        private final @NotNull Component @NotNull [] cache;
+
+        /**
+         * Constructor
+         * @param name The name of the time unit's placeholder.
+         * @param template The {@link MessageTemplate} for the time unit.
+         * @param cachedValues The number of values, starting at zero, to pre-render.
+         */
+        private Unit(@NotNull String name, @NotNull MessageTemplate template, int cachedValues) {
+            this.name = name;
+            this.template = template;
+            this.cache = new Component[cachedValues];
+
+            for(int value = 0; value < cachedValues; value++) {
+                cache[value] = renderUncached(value);
+            }
+        }
+
+        /**
+         * Renders the time unit for a value, using the pre-rendered {@link Component} if there is one.
+         * @param value The value of the time unit.
+         * @return The rendered {@link Component}.
+         */
+        private @NotNull Component render(long value) {
+            if(value < cache.length) return cache[(int) value];
+
+            return renderUncached(value);
+        }
+
+        /**
+         * Renders the time unit for a value.
+         * @param value The value of the time unit.
+         * @return The rendered {@link Component}.
+         */
+        private @NotNull Component renderUncached(long value) {
+            return template.render(Map.of(name, Component.text(value)));
+        }
+    }
+}
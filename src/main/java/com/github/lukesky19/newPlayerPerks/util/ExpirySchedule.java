@@ -0,0 +1,117 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * This class contains a time-ordered schedule of when players' perks expire and when they are warned beforehand.
+ * Due events are taken from the front of the schedule, so checking it costs nothing for players whose events aren't due.
+ * A warning is only scheduled while its threshold is still ahead, so rescheduling a player never repeats a warning that already fired.
+ */
+public final class ExpirySchedule {
+    /**
+     * The warning index of the event for when a player's perks expire.
+     */
+    public static final int EXPIRY = -1;
+
+    private static final @NotNull Comparator<Event> ORDER = Comparator.comparingLong(Event::time)
+            .thenComparing(Event::uuid)
+            .thenComparingInt(Event::warning);
+
+    private final @NotNull TreeSet<Event> events = new TreeSet<>(ORDER);
+    private final @NotNull Map<UUID, List<Event>> playerEvents = new HashMap<>();
+
+    /**
+     * This record contains a scheduled event.
+     * @param time The epoch millisecond the event is due at.
+     * @param uuid The {@link UUID} of the player.
+     * @param expiresAt The epoch millisecond the player's perks expire at.
+     * @param warning The index of the warning threshold, or {@link #EXPIRY} when the player's perks expire.
+     */
+    public record Event(long time, @NotNull UUID uuid, long expiresAt, int warning) {}
+
+    /**
+     * Schedules a player's expiry and any warnings whose threshold hasn't passed yet, replacing their previous events.
+     * @param uuid The {@link UUID} of the player.
+     * @param expiresAt The epoch millisecond the player's perks expire at.
+     * @param warningMillis How many milliseconds before expiry each warning is due.
+     * @param now The current epoch millisecond.
+     */
+    public synchronized void schedule(@NotNull UUID uuid, long expiresAt, long @NotNull [] warningMillis, long now) {
+        unschedule(uuid);
+
+        List<Event> scheduled = new ArrayList<>(warningMillis.length + 1);
+        scheduled.add(new Event(expiresAt, uuid, expiresAt, EXPIRY));
+        for(int i = 0; i < warningMillis.length; i++) {
+            long time = expiresAt - warningMillis[i];
+            if(time > now) scheduled.add(new Event(time, uuid, expiresAt, i));
+        }
+
+        events.addAll(scheduled);
+        playerEvents.put(uuid, scheduled);
+    }
+
+    /**
+     * Removes all of a player's scheduled events.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public synchronized void unschedule(@NotNull UUID uuid) {
+        List<Event> scheduled = playerEvents.remove(uuid);
+        if(scheduled == null) return;
+
+        for(Event event : scheduled) {
+            events.remove(event);
+        }
+    }
+
+    /**
+     * Removes and returns the earliest event that is due.
+     * @param now The current epoch millisecond.
+     * @return The due {@link Event} or null if no event is due.
+     */
+    public synchronized @Nullable Event pollDue(long now) {
+        if(events.isEmpty() || events.first().time() > now) return null;
+
+        Event event = events.pollFirst();
+        List<Event> scheduled = playerEvents.get(event.uuid());
+        if(scheduled != null) {
+            scheduled.remove(event);
+            if(scheduled.isEmpty()) playerEvents.remove(event.uuid());
+        }
+
+        return event;
+    }
+
+    /**
+     * Removes every scheduled event.
+     */
+    public synchronized void clear() {
+        events.clear();
+        playerEvents.clear();
+    }
+}
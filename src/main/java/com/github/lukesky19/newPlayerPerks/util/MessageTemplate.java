@@ -0,0 +1,138 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * This class contains a locale message that has been parsed once into a {@link Component}.
+ * The plugin's placeholders (i.e., {@code <player_name>}) are left in the parsed {@link Component} as literal text
+ * and are swapped for their values when the message is rendered, so sending a message doesn't parse MiniMessage again.
+ * Messages that contain PlaceholderAPI placeholders are still parsed for each player they are sent to.
+ */
+public final class MessageTemplate {
+    private final @NotNull String message;
+    private final @NotNull Component component;
+    private final @Nullable Pattern placeholderPattern;
+    private final boolean externalPlaceholders;
+
+    /**
+     * Constructor
+     * @param message The MiniMessage {@link String} that was parsed.
+     * @param component The parsed {@link Component}.
+     * @param placeholderPattern The {@link Pattern} matching the placeholders used in the message, or null if none are used.
+     * @param externalPlaceholders Whether the message contains PlaceholderAPI placeholders.
+     */
+    private MessageTemplate(
+            @NotNull String message,
+            @NotNull Component component,
+            @Nullable Pattern placeholderPattern,
+            boolean externalPlaceholders) {
+        this.message = message;
+        this.component = component;
+        this.placeholderPattern = placeholderPattern;
+        this.externalPlaceholders = externalPlaceholders;
+    }
+
+    /**
+     * Parses a MiniMessage {@link String} into a {@link MessageTemplate}.
+     * @param message The MiniMessage {@link String} to parse.
+     * @param placeholderNames The names of the placeholders that may be bound when the message is rendered.
+     * @return A {@link MessageTemplate}.
+     */
+    public static @NotNull MessageTemplate compile(@NotNull String message, @NotNull Collection<String> placeholderNames) {
+        StringJoiner joiner = new StringJoiner("|", "<(", ")>");
+        boolean hasPlaceholders = false;
+        for(String name : placeholderNames) {
+            if(message.contains("<" + name + ">")) {
+                joiner.add(Pattern.quote(name));
+                hasPlaceholders = true;
+            }
+        }
+
+        Pattern placeholderPattern = hasPlaceholders ? Pattern.compile(joiner.toString()) : null;
+
+        return new MessageTemplate(message, AdventureUtil.serialize(message), placeholderPattern, message.indexOf('%') != -1);
+    }
+
+    /**
+     * Get the MiniMessage {@link String} the template was parsed from.
+     * @return The MiniMessage {@link String}.
+     */
+    public @NotNull String getMessage() {
+        return message;
+    }
+
+    /**
+     * Renders the template without binding any placeholders.
+     * @return The parsed {@link Component}.
+     */
+    public @NotNull Component render() {
+        return component;
+    }
+
+    /**
+     * Renders the template, replacing each placeholder with its value.
+     * Placeholders without a value are left as-is.
+     * @param placeholders A {@link Map} mapping placeholder names to their {@link Component} values.
+     * @return The rendered {@link Component}.
+     */
+    public @NotNull Component render(@NotNull Map<String, Component> placeholders) {
+        if(placeholderPattern == null || placeholders.isEmpty()) return component;
+
+        return component.replaceText(TextReplacementConfig.builder()
+                .match(placeholderPattern)
+                .replacement((matchResult, builder) -> {
+                    Component value = placeholders.get(matchResult.group(1));
+                    return value != null ? value : builder;
+                })
+                .build());
+    }
+
+    /**
+     * Renders the template for a player, replacing each placeholder with its value.
+     * If the message contains PlaceholderAPI placeholders, it is parsed again for the player so those are resolved.
+     * @param player The {@link Player} the message is for, or null to skip PlaceholderAPI placeholders.
+     * @param placeholders A {@link Map} mapping placeholder names to their {@link Component} values.
+     * @return The rendered {@link Component}.
+     */
+    public @NotNull Component render(@Nullable Player player, @NotNull Map<String, Component> placeholders) {
+        if(player == null || !externalPlaceholders) return render(placeholders);
+
+        List<TagResolver.Single> resolvers = new ArrayList<>(placeholders.size());
+        for(Map.Entry<String, Component> entry : placeholders.entrySet()) {
+            resolvers.add(Placeholder.component(entry.getKey(), entry.getValue()));
+        }
+
+        return AdventureUtil.serialize(player, message, resolvers);
+    }
+}
@@ -34,7 +34,7 @@ public enum PerksResult {
      */
     SETTINGS_ERROR,
     /**
-     * When perks can't be added, enabled, or removed because the player has no player data.
+     * When perks can't be added, enabled, or removed because the player has no player data, or can't be removed because the player never had them.
      */
     NO_PLAYER_DATA,
     /**
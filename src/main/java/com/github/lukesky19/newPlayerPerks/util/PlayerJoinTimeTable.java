@@ -0,0 +1,279 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import com.github.lukesky19.newPlayerPerks.data.PlayerData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class is an open-addressed hash table mapping player {@link UUID}s to their join time and perk flags.
+ * Keys and values are stored in parallel long arrays, so an entry costs no objects: no {@link UUID}, map node or {@link PlayerData} per player.
+ * Collisions are resolved with linear probing and removals shift later entries back, so no tombstones are left behind.
+ * All methods are synchronized, as player data is loaded on database threads and used on the main thread.
+ */
+public class PlayerJoinTimeTable {
+    /**
+     * Returned by {@link #getJoinTime(UUID)} if the player has no entry.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final long OCCUPIED = 1L;
+    private static final long PERKS_ACTIVE = 1L << 1;
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private long[] mostSigBits;
+    private long[] leastSigBits;
+    private long[] joinTimes;
+    private long[] flags;
+    private int size = 0;
+
+    /**
+     * Constructor
+     */
+    public PlayerJoinTimeTable() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Get the number of players with an entry.
+     * @return The number of players.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the player has an entry.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the player has an entry, otherwise false.
+     */
+    public synchronized boolean contains(@NotNull UUID uuid) {
+        return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Get the player's join time.
+     * @param uuid The {@link UUID} of the player.
+     * @return The join time or {@link #MISSING} if the player has no entry.
+     */
+    public synchronized long getJoinTime(@NotNull UUID uuid) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        return slot >= 0 ? joinTimes[slot] : MISSING;
+    }
+
+    /**
+     * Stores the player's join time, keeping their perk flags if they already have an entry.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinTime The join time.
+     */
+    public synchronized void put(@NotNull UUID uuid, long joinTime) {
+        long mostSigBits = uuid.getMostSignificantBits();
+        long leastSigBits = uuid.getLeastSignificantBits();
+
+        int slot = find(mostSigBits, leastSigBits);
+        if(slot >= 0) {
+            joinTimes[slot] = joinTime;
+            return;
+        }
+
+        // Growing by half instead of doubling keeps the table between half and three quarters full.
+        if(size + 1 > joinTimes.length * MAX_LOAD_FACTOR) allocate(joinTimes.length + joinTimes.length / 2);
+
+        insert(mostSigBits, leastSigBits, joinTime, OCCUPIED);
+        size++;
+    }
+
+    /**
+     * Removes the player's entry.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public synchronized void remove(@NotNull UUID uuid) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if(slot < 0) return;
+
+        int capacity = joinTimes.length;
+        int next = slot;
+        while(true) {
+            next = next + 1 == capacity ? 0 : next + 1;
+            if(flags[next] == 0) break;
+
+            // An entry can move back into the free slot only if the free slot is between its home slot and where it is now.
+            int home = home(mostSigBits[next], leastSigBits[next], capacity);
+            boolean reachable = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+            if(!reachable) continue;
+
+            mostSigBits[slot] = mostSigBits[next];
+            leastSigBits[slot] = leastSigBits[next];
+            joinTimes[slot] = joinTimes[next];
+            flags[slot] = flags[next];
+            slot = next;
+        }
+
+        flags[slot] = 0;
+        size--;
+    }
+
+    /**
+     * Checks if the player's perks are active.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the player has an entry and their perks are active, otherwise false.
+     */
+    public synchronized boolean isPerksActive(@NotNull UUID uuid) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+
+        return slot >= 0 && (flags[slot] & PERKS_ACTIVE) != 0;
+    }
+
+    /**
+     * Sets if the player's perks are active.
+     * @param uuid The {@link UUID} of the player.
+     * @param active Are the player's perks active?
+     * @return true if the player has an entry, otherwise false.
+     */
+    public synchronized boolean setPerksActive(@NotNull UUID uuid, boolean active) {
+        int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if(slot < 0) return false;
+
+        flags[slot] = active ? flags[slot] | PERKS_ACTIVE : flags[slot] & ~PERKS_ACTIVE;
+        return true;
+    }
+
+    /**
+     * Get the {@link UUID}s of all players with an entry.
+     * @param activeOnly Should only players whose perks are active be returned?
+     * @return A new {@link List} of {@link UUID}s, which is safe to iterate while the table changes.
+     */
+    public synchronized @NotNull List<UUID> getUuids(boolean activeOnly) {
+        List<UUID> uuids = new ArrayList<>(activeOnly ? 16 : size);
+        for(int slot = 0; slot < flags.length; slot++) {
+            if(flags[slot] == 0 || (activeOnly && (flags[slot] & PERKS_ACTIVE) == 0)) continue;
+
+            uuids.add(new UUID(mostSigBits[slot], leastSigBits[slot]));
+        }
+
+        return uuids;
+    }
+
+    /**
+     * Copies every entry to a {@link Map} mapping {@link UUID}s to {@link PlayerData}.
+     * @return The {@link Map}.
+     */
+    public synchronized @NotNull Map<UUID, PlayerData> toMap() {
+        Map<UUID, PlayerData> playerDataMap = new HashMap<>(size * 2);
+        for(int slot = 0; slot < flags.length; slot++) {
+            if(flags[slot] == 0) continue;
+
+            playerDataMap.put(new UUID(mostSigBits[slot], leastSigBits[slot]), new PlayerData(joinTimes[slot]));
+        }
+
+        return playerDataMap;
+    }
+
+    /**
+     * Removes every entry and releases the memory of a table that grew large.
+     */
+    public synchronized void clear() {
+        size = 0;
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Finds the slot of a key.
+     * @param mostSigBits The most significant bits of the {@link UUID}.
+     * @param leastSigBits The least significant bits of the {@link UUID}.
+     * @return The slot or -1 if the key has no entry.
+     */
+    private int find(long mostSigBits, long leastSigBits) {
+        int capacity = joinTimes.length;
+        int slot = home(mostSigBits, leastSigBits, capacity);
+
+        while(flags[slot] != 0) {
+            if(this.mostSigBits[slot] == mostSigBits && this.leastSigBits[slot] == leastSigBits) return slot;
+
+            slot = slot + 1 == capacity ? 0 : slot + 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Inserts a key that has no entry yet into the first free slot from its home slot. The table must have a free slot.
+     * @param mostSigBits The most significant bits of the {@link UUID}.
+     * @param leastSigBits The least significant bits of the {@link UUID}.
+     * @param joinTime The join time.
+     * @param entryFlags The flags of the entry, including {@link #OCCUPIED}.
+     */
+    private void insert(long mostSigBits, long leastSigBits, long joinTime, long entryFlags) {
+        int capacity = joinTimes.length;
+        int slot = home(mostSigBits, leastSigBits, capacity);
+        while(flags[slot] != 0) slot = slot + 1 == capacity ? 0 : slot + 1;
+
+        this.mostSigBits[slot] = mostSigBits;
+        this.leastSigBits[slot] = leastSigBits;
+        joinTimes[slot] = joinTime;
+        flags[slot] = entryFlags;
+    }
+
+    /**
+     * Replaces the arrays with arrays of the capacity provided and re-inserts every entry.
+     * @param capacity The new capacity.
+     */
+    private void allocate(int capacity) {
+        long[] oldMostSigBits = mostSigBits;
+        long[] oldLeastSigBits = leastSigBits;
+        long[] oldJoinTimes = joinTimes;
+        long[] oldFlags = flags;
+
+        mostSigBits = new long[capacity];
+        leastSigBits = new long[capacity];
+        joinTimes = new long[capacity];
+        flags = new long[capacity];
+
+        if(oldFlags == null || size == 0) return;
+
+        for(int slot = 0; slot < oldFlags.length; slot++) {
+            if(oldFlags[slot] != 0) insert(oldMostSigBits[slot], oldLeastSigBits[slot], oldJoinTimes[slot], oldFlags[slot]);
+        }
+    }
+
+    /**
+     * Get the slot a key is stored in if there are no collisions.
+     * @param mostSigBits The most significant bits of the {@link UUID}.
+     * @param leastSigBits The least significant bits of the {@link UUID}.
+     * @param capacity The capacity of the table.
+     * @return The home slot.
+     */
+    private static int home(long mostSigBits, long leastSigBits, int capacity) {
+        // Offline-mode and other name-based UUIDs share fixed version bits, so the bits are mixed before picking a slot.
+        long hash = mostSigBits * 0x9E3779B97F4A7C15L ^ leastSigBits;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+
+        // Maps the upper 32 bits onto [0, capacity), so the capacity doesn't have to be a power of two.
+        return (int) (((hash >>> 32) * capacity) >>> 32);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class contains methods to find players who may be offline by their name or {@link UUID} without a blocking lookup.
+ */
+public final class PlayerResolver {
+    /**
+     * Default Constructor.
+     * This is a utility class and should not be constructed.
+     */
+    private PlayerResolver() {}
+
+    /**
+     * Get the {@link OfflinePlayer} for the name or {@link UUID} provided.
+     * Names are looked up among online players first, then in the server's cache of players who joined before, so no profile is ever fetched.
+     * @param server The {@link Server}.
+     * @param nameOrUuid The player's name or {@link UUID}.
+     * @return The {@link OfflinePlayer} or null if the name doesn't belong to a known player.
+     */
+    public static @Nullable OfflinePlayer resolve(@NotNull Server server, @NotNull String nameOrUuid) {
+        Player onlinePlayer = server.getPlayerExact(nameOrUuid);
+        if(onlinePlayer != null) return onlinePlayer;
+
+        OfflinePlayer cachedPlayer = server.getOfflinePlayerIfCached(nameOrUuid);
+        if(cachedPlayer != null) return cachedPlayer;
+
+        try {
+            return server.getOfflinePlayer(UUID.fromString(nameOrUuid));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Suggests the names of online players that start with the text typed so far.
+     * Offline players can still be typed out, but aren't suggested.
+     * @param server The {@link Server}.
+     * @param builder The {@link SuggestionsBuilder} of the argument.
+     * @return A {@link CompletableFuture} containing the {@link Suggestions}.
+     */
+    public static @NotNull CompletableFuture<Suggestions> suggestOnlinePlayers(@NotNull Server server, @NotNull SuggestionsBuilder builder) {
+        for(Player player : server.getOnlinePlayers()) {
+            if(player.getName().toLowerCase(Locale.ROOT).startsWith(builder.getRemainingLowerCase())) builder.suggest(player.getName());
+        }
+
+        return builder.buildFuture();
+    }
+}
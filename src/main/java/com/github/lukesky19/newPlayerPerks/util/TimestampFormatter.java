@@ -0,0 +1,102 @@
+/*
+    NewPlayerPerks applies specific perks to new players.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.newPlayerPerks.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class formats timestamps with a {@link DateTimeFormatter} pattern that has been compiled once.
+ * A {@link DateTimeFormatter} is created for each time zone and locale the first time it is needed and reused afterward.
+ */
+public final class TimestampFormatter {
+    private final @NotNull DateTimeFormatter defaultFormatter;
+    private final @NotNull ZoneId defaultZone;
+    private final boolean useClientLocale;
+    private final @NotNull ConcurrentHashMap<String, ZoneId> zones = new ConcurrentHashMap<>();
+    private final @NotNull ConcurrentHashMap<ZoneId, ConcurrentHashMap<Locale, DateTimeFormatter>> formatters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param formatter The {@link DateTimeFormatter} compiled from the configured pattern.
+     * @param defaultZone The {@link ZoneId} to use when a player has no valid time zone of their own.
+     * @param useClientLocale Should the client's {@link Locale} be used when one is provided?
+     */
+    public TimestampFormatter(@NotNull DateTimeFormatter formatter, @NotNull ZoneId defaultZone, boolean useClientLocale) {
+        this.defaultFormatter = formatter.withZone(defaultZone);
+        this.defaultZone = defaultZone;
+        this.useClientLocale = useClientLocale;
+    }
+
+    /**
+     * Formats a timestamp in the default time zone and locale.
+     * @param epochMillis The timestamp in milliseconds since the epoch.
+     * @return The formatted timestamp.
+     */
+    public @NotNull String format(long epochMillis) {
+        return defaultFormatter.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * Formats a timestamp in a time zone and locale, falling back to the defaults for any that are missing or invalid.
+     * @param epochMillis The timestamp in milliseconds since the epoch.
+     * @param timeZone The ID of the time zone to use, e.g., Europe/Berlin, or null to use the default time zone.
+     * @param locale The client's {@link Locale}, or null to use the default locale. Ignored if client locales are disabled.
+     * @return The formatted timestamp.
+     */
+    public @NotNull String format(long epochMillis, @Nullable String timeZone, @Nullable Locale locale) {
+        return getFormatter(timeZone, locale).format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * Get the {@link DateTimeFormatter} for a time zone and locale, falling back to the defaults for any that are missing or invalid.
+     * @param timeZone The ID of the time zone to use, e.g., Europe/Berlin, or null to use the default time zone.
+     * @param locale The client's {@link Locale}, or null to use the default locale. Ignored if client locales are disabled.
+     * @return The cached {@link DateTimeFormatter}.
+     */
+    public @NotNull DateTimeFormatter getFormatter(@Nullable String timeZone, @Nullable Locale locale) {
+        ZoneId zone = timeZone == null || timeZone.isEmpty() ? defaultZone : zones.computeIfAbsent(timeZone, this::parseZone);
+        if(!useClientLocale) locale = null;
+        if(zone.equals(defaultZone) && locale == null) return defaultFormatter;
+
+        Locale formatterLocale = locale;
+        return formatters.computeIfAbsent(zone, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(formatterLocale != null ? formatterLocale : defaultFormatter.getLocale(),
+                        key -> defaultFormatter.withZone(zone).withLocale(key));
+    }
+
+    /**
+     * Parses a time zone ID.
+     * @param timeZone The ID of the time zone.
+     * @return The {@link ZoneId}, or the default {@link ZoneId} if the ID is invalid.
+     */
+    private @NotNull ZoneId parseZone(@NotNull String timeZone) {
+        try {
+            return ZoneId.of(timeZone);
+        } catch (DateTimeException e) {
+            return defaultZone;
+        }
+    }
+}